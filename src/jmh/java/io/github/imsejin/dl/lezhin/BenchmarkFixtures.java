@@ -0,0 +1,54 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Fixtures shared by the benchmarks
+ *
+ * @since 3.2.0
+ */
+public final class BenchmarkFixtures {
+
+    public static final long CONTENT_ID = 5484404437368832L;
+
+    public static final long EPISODE_ID = 6212466349244416L;
+
+    public static final String SIGNATURE = "E7sTgEjH0ap6vtAl3aF0Ua3x2rDtVfQhWp5dQ4pQ";
+
+    public static final String KEY_PAIR_ID = "APKAIE2HZN7MIT3GVXTA";
+
+    private BenchmarkFixtures() {
+        throw new UnsupportedOperationException(getClass().getName() + " is not allowed to instantiate");
+    }
+
+    /**
+     * Returns a policy of CloudFront like the one the API server issues, which expires in 2100.
+     *
+     * @return URL-safe Base64 of the policy
+     */
+    public static String policy() {
+        String policy = "{\"Statement\":[{\"Resource\":\"https://rcdn.lezhin.com/v2/comics/" + CONTENT_ID
+                + "/episodes/" + EPISODE_ID + "/contents/*\","
+                + "\"Condition\":{\"DateLessThan\":{\"AWS:EpochTime\":4102444800}}}]}";
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(policy.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
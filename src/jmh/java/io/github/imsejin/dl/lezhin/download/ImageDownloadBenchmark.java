@@ -0,0 +1,134 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end benchmark of downloading an image from a local HTTP server to a file,
+ * which includes the interceptors, the streaming to a temporary file, the checksum and the move.
+ *
+ * @since 3.2.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class ImageDownloadBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Server {
+        /**
+         * Size of the image in KiB.
+         */
+        @Param({"64", "512"})
+        private int imageSize;
+
+        private HttpServer server;
+
+        private ExecutorService executor;
+
+        private URL url;
+
+        private Path directory;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            byte[] image = new byte[this.imageSize * 1024];
+            new Random(0).nextBytes(image);
+
+            this.executor = Executors.newFixedThreadPool(8);
+            this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            this.server.setExecutor(this.executor);
+            this.server.createContext("/", exchange -> {
+                exchange.getResponseHeaders().set("Content-Type", "image/webp");
+                exchange.sendResponseHeaders(200, image.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(image);
+                }
+            });
+            this.server.start();
+
+            this.url = new URL("http", "127.0.0.1", this.server.getAddress().getPort(), "/001.webp");
+            this.directory = Files.createTempDirectory("image-download-benchmark");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            this.server.stop(0);
+            this.executor.shutdownNow();
+
+            try (Stream<Path> paths = Files.walk(this.directory)) {
+                for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Worker {
+        private Path dest;
+
+        @Setup(Level.Trial)
+        public void setup(Server server, ThreadParams threadParams) {
+            this.dest = server.directory.resolve(threadParams.getThreadIndex() + ".webp");
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Downloader {
+        private final ImageDownloader imageDownloader = new ImageDownloader();
+    }
+
+    @Benchmark
+    public DownloadedImage download(Server server, Worker worker, Downloader downloader) throws IOException {
+        return downloader.imageDownloader.download(server.url, worker.dest);
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.http.url;
+
+import io.github.imsejin.dl.lezhin.BenchmarkFixtures;
+import io.github.imsejin.dl.lezhin.api.auth.model.Authority;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmark of building the URL and the file name of an image, which is done for every image.
+ *
+ * <pre>
+ *     mvn -P benchmark -DskipTests verify -Djmh.args="ImageUrlBenchmark -prof gc"
+ * </pre>
+ *
+ * @since 3.2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageUrlBenchmark {
+
+    private static final Pattern PATTERN = Pattern.compile("\\{(.+?)}", Pattern.MULTILINE);
+
+    private static final String TEMPLATE = "/v2/comics/{contentId}/episodes/{episodeId}/contents/scrolls/{num}.{imageFormat}"
+            + "?purchased={purchased}&q=30&Policy={policy}&Signature={signature}&Key-Pair-Id={keyPairId}";
+
+    private static final String HOST = "https://rcdn.lezhin.com";
+
+    private Authority authority;
+
+    private EpisodeImageUrls imageUrls;
+
+    private int num;
+
+    @Setup
+    public void setup() {
+        this.authority = new Authority(BenchmarkFixtures.policy(), BenchmarkFixtures.SIGNATURE,
+                BenchmarkFixtures.KEY_PAIR_ID);
+        this.imageUrls = new EpisodeImageUrls(HOST, this.authority.getContentId(), this.authority.getEpisodeId(),
+                "webp", true);
+    }
+
+    @Benchmark
+    public URL templateReplacement() throws MalformedURLException {
+        int num = nextNumber();
+        String uri = TEMPLATE;
+        Object[] params = {this.authority.getContentId(), this.authority.getEpisodeId(), num, "webp", true,
+                this.authority.getPolicy(), this.authority.getSignature(), this.authority.getKeyPairId()};
+
+        // How it was done before: a regex match and a replacement per variable.
+        Matcher matcher = PATTERN.matcher(TEMPLATE);
+        for (int i = 0; i < params.length && matcher.find(); i++) {
+            uri = uri.replaceAll("\\{" + matcher.group(1) + '}', String.valueOf(params[i]));
+        }
+
+        String fileName = String.format("%03d.%s", num, "webp");
+        return fileName.isEmpty() ? null : URI.create(HOST).resolve(uri).normalize().toURL();
+    }
+
+    @Benchmark
+    public URL precomputedParts() {
+        int num = nextNumber();
+
+        StringBuilder sb = new StringBuilder(8);
+        if (num < 100) {
+            sb.append('0');
+        }
+        if (num < 10) {
+            sb.append('0');
+        }
+
+        String fileName = sb.append(num).append('.').append("webp").toString();
+        return fileName.isEmpty() ? null : this.imageUrls.get(this.authority, num);
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private int nextNumber() {
+        this.num = this.num % 120 + 1;
+        return this.num;
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.http.url;
+
+import io.github.imsejin.dl.lezhin.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of rendering the URI templates.
+ *
+ * @since 3.2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class URIsBenchmark {
+
+    private final String policy = BenchmarkFixtures.policy();
+
+    private final StringBuilder builder = new StringBuilder(1024);
+
+    @Benchmark
+    public String getWithoutParameters() {
+        return URIs.EPISODE_IMAGE.get();
+    }
+
+    @Benchmark
+    public String getContent() {
+        return URIs.CONTENT.get("ko", "redhood");
+    }
+
+    @Benchmark
+    public String getEpisodeImage() {
+        return URIs.EPISODE_IMAGE.get(BenchmarkFixtures.CONTENT_ID, BenchmarkFixtures.EPISODE_ID, 7, "webp", true,
+                this.policy, BenchmarkFixtures.SIGNATURE, BenchmarkFixtures.KEY_PAIR_ID);
+    }
+
+    @Benchmark
+    public int renderEpisodeImage() {
+        this.builder.setLength(0);
+        return URIs.EPISODE_IMAGE.render(this.builder, BenchmarkFixtures.CONTENT_ID, BenchmarkFixtures.EPISODE_ID,
+                7, "webp", true, this.policy, BenchmarkFixtures.SIGNATURE, BenchmarkFixtures.KEY_PAIR_ID).length();
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.process;
+
+import io.github.imsejin.dl.lezhin.argument.impl.ContentName;
+import io.github.imsejin.dl.lezhin.argument.impl.DebugMode;
+import io.github.imsejin.dl.lezhin.argument.impl.EpisodeRange;
+import io.github.imsejin.dl.lezhin.argument.impl.ImageFormat;
+import io.github.imsejin.dl.lezhin.argument.impl.Language;
+import io.github.imsejin.dl.lezhin.attribute.impl.AccessToken;
+import io.github.imsejin.dl.lezhin.attribute.impl.Authentication;
+import io.github.imsejin.dl.lezhin.attribute.impl.DirectoryPath;
+import io.github.imsejin.dl.lezhin.attribute.impl.HttpHosts;
+import io.github.imsejin.dl.lezhin.attribute.impl.PurchasedEpisodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of creating and merging the contexts, which assign the attributes by reflection.
+ *
+ * @since 3.2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProcessContextBenchmark {
+
+    private Object[] arguments;
+
+    private Object[] attributes;
+
+    private ProcessContext context;
+
+    @Setup
+    public void setup() {
+        this.arguments = new Object[]{new Language(), new ContentName(), new EpisodeRange(), new ImageFormat(),
+                new DebugMode()};
+        this.attributes = new Object[]{
+                new Authentication("username", "password"),
+                new AccessToken(UUID.randomUUID().toString()),
+                new HttpHosts("api.lezhin.com", "cdn.lezhin.com", "rcdn.lezhin.com", "reco.lezhin.com",
+                        "pay.lezhin.com", "panther.lezhin.com"),
+                new DirectoryPath(Path.of("").toAbsolutePath()),
+                new PurchasedEpisodes(List.of(1L, 2L, 3L)),
+        };
+        this.context = ProcessContext.create(this.arguments);
+    }
+
+    @Benchmark
+    public ProcessContext create() {
+        return ProcessContext.create(this.arguments);
+    }
+
+    @Benchmark
+    public ProcessContext of() {
+        return ProcessContext.of(this.context, this.attributes);
+    }
+
+    @Benchmark
+    public ProcessContext add() {
+        ProcessContext context = ProcessContext.create(this.arguments);
+        context.add(this.attributes);
+
+        return context;
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of making the name of an episode directory safe, which is done for every episode.
+ *
+ * @since 3.2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileNameUtilsBenchmark {
+
+    @Param({
+            "0001 - Prologue",
+            "0042 - What? The \"Red Hood\" is back: part 1/2...",
+            "0128 - 붉은 두건: 제2부 <완결>",
+    })
+    private String fileName;
+
+    @Benchmark
+    public String sanitize() {
+        return FileNameUtils.sanitize(this.fileName);
+    }
+
+    @Benchmark
+    public String replaceForbiddenCharacters() {
+        return FileNameUtils.replaceForbiddenCharacters(this.fileName);
+    }
+
+    @Benchmark
+    public String both() {
+        return FileNameUtils.replaceForbiddenCharacters(FileNameUtils.sanitize(this.fileName));
+    }
+
+}
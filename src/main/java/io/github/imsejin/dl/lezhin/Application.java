@@ -19,57 +19,213 @@ package io.github.imsejin.dl.lezhin;
 import io.github.imsejin.common.util.ClassUtils;
 import io.github.imsejin.dl.lezhin.argument.Argument;
 import io.github.imsejin.dl.lezhin.argument.ArgumentsParser;
+import io.github.imsejin.dl.lezhin.argument.impl.ArchiveMode;
+import io.github.imsejin.dl.lezhin.argument.impl.Bandwidth;
+import io.github.imsejin.dl.lezhin.argument.impl.BatchFile;
+import io.github.imsejin.dl.lezhin.argument.impl.BatchFile.Entry;
+import io.github.imsejin.dl.lezhin.argument.impl.Browserless;
+import io.github.imsejin.dl.lezhin.argument.impl.Concurrency;
 import io.github.imsejin.dl.lezhin.argument.impl.ContentName;
 import io.github.imsejin.dl.lezhin.argument.impl.DebugMode;
+import io.github.imsejin.dl.lezhin.argument.impl.DedupMode;
 import io.github.imsejin.dl.lezhin.argument.impl.EpisodeRange;
 import io.github.imsejin.dl.lezhin.argument.impl.ImageFormat;
 import io.github.imsejin.dl.lezhin.argument.impl.Language;
+import io.github.imsejin.dl.lezhin.argument.impl.MetricsFile;
+import io.github.imsejin.dl.lezhin.argument.impl.MetricsPort;
+import io.github.imsejin.dl.lezhin.argument.impl.RequestRate;
 import io.github.imsejin.dl.lezhin.argument.impl.SingleThreading;
+import io.github.imsejin.dl.lezhin.argument.impl.Stitch;
+import io.github.imsejin.dl.lezhin.argument.impl.SyncMode;
+import io.github.imsejin.dl.lezhin.argument.impl.VirtualThreading;
+import io.github.imsejin.dl.lezhin.attribute.impl.WebHost;
 import io.github.imsejin.dl.lezhin.browser.WebBrowser;
 import io.github.imsejin.dl.lezhin.common.Loggers;
 import io.github.imsejin.dl.lezhin.exception.LezhinComicsDownloaderException;
+import io.github.imsejin.dl.lezhin.exception.ParsingArgumentException;
+import io.github.imsejin.dl.lezhin.http.interceptor.ThrottleInterceptor;
+import io.github.imsejin.dl.lezhin.metrics.MetricRegistry;
+import io.github.imsejin.dl.lezhin.metrics.MetricsServer;
+import io.github.imsejin.dl.lezhin.metrics.RunReport;
 import io.github.imsejin.dl.lezhin.process.ProcessContext;
 import io.github.imsejin.dl.lezhin.process.Processor;
 import io.github.imsejin.dl.lezhin.process.framework.ProcessorCreator;
 import io.github.imsejin.dl.lezhin.process.framework.ProcessorOrderResolver;
+import io.github.imsejin.dl.lezhin.process.impl.ContentInformationProcessor;
 import io.github.imsejin.dl.lezhin.util.PathUtils;
+import org.jetbrains.annotations.Nullable;
 import org.reflections.Reflections;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.IntStream;
 
+import static java.util.stream.Collectors.toUnmodifiableList;
 import static java.util.stream.Collectors.toUnmodifiableSet;
 
 public final class Application {
 
     public static void main(String[] args) {
+        Path metricsFile = null;
+        MetricsServer metricsServer = null;
+
         try {
             ArgumentsParser argumentsParser = new ArgumentsParser(
-                    new Language(), new ContentName(), new EpisodeRange(),
-                    new ImageFormat(), new SingleThreading(), new DebugMode());
+                    new Language(), new ContentName(), new EpisodeRange(), new BatchFile(),
+                    new ImageFormat(), new SingleThreading(), new VirtualThreading(), new Concurrency(), new SyncMode(),
+                    new ArchiveMode(), new DedupMode(), new Stitch(), new Browserless(), new Bandwidth(),
+                    new RequestRate(), new MetricsFile(), new MetricsPort(), new DebugMode());
             List<Argument> arguments = argumentsParser.parse(args);
 
             ProcessContext context = ProcessContext.create(arguments.toArray());
+            context.add(new WebHost());
+
             if (context.getDebugMode().getValue()) {
                 Loggers.debugging();
                 WebBrowser.debugging();
             }
 
+            // Limits are shared by all the HTTP clients.
+            ThrottleInterceptor.configure(context.getRequestRate().getValue(), context.getBandwidth().getValue());
+
+            metricsFile = context.getMetricsFile().getValue();
+            metricsServer = startMetricsServer(context.getMetricsPort().getValue());
+
             List<Processor> processors = createProcessors();
 
-            for (Processor processor : processors) {
-                Object attribute = processor.process(context);
-                context.add(attribute);
+            BatchFile batchFile = context.getBatchFile();
+            if (batchFile.getValue() == null) {
+                if (context.getContentName().getValue().isEmpty()) {
+                    throw new ParsingArgumentException("Either ContentName or BatchFile is required");
+                }
+
+                process(context, processors);
+            } else {
+                processInBatch(context, processors, batchFile.readEntries());
             }
         } catch (Throwable t) {
             Loggers.getLogger().error("Failed to perform a process", t);
         } finally {
             WebBrowser.quitIfInitialized();
+            report(metricsFile, metricsServer);
         }
     }
 
     // -------------------------------------------------------------------------------------------------
 
+    private static void process(ProcessContext context, List<Processor> processors)
+            throws LezhinComicsDownloaderException {
+        for (Processor processor : processors) {
+            long startedAt = System.nanoTime();
+            String name = processor.getClass().getSimpleName();
+            try {
+                Object attribute = processor.process(context);
+                context.add(attribute);
+            } finally {
+                long elapsed = System.nanoTime() - startedAt;
+                MetricRegistry.getDefault().histogram("lezhin_processor_duration_seconds", "processor", name)
+                        .record(elapsed);
+                RunReport.getDefault().recordProcessor(name, elapsed);
+            }
+        }
+    }
+
+    /**
+     * Logs in once and downloads the contents one by one.
+     *
+     * <p> The processors before {@link ContentInformationProcessor} prepare a session, which is shared
+     * by all the contents. If a content fails, the others are still downloaded.
+     */
+    private static void processInBatch(ProcessContext context, List<Processor> processors, List<Entry> entries)
+            throws LezhinComicsDownloaderException {
+        if (entries.isEmpty()) {
+            Loggers.getLogger().info("There is no content in the batch file");
+            return;
+        }
+
+        int index = IntStream.range(0, processors.size())
+                .filter(i -> processors.get(i) instanceof ContentInformationProcessor)
+                .findFirst().orElseThrow();
+
+        // The first content is used to check if the cached session is still valid.
+        context.add(entries.get(0).getContentName());
+        process(context, processors.subList(0, index));
+
+        List<Processor> contentProcessors = processors.subList(index, processors.size());
+        List<String> failedContentNames = new ArrayList<>();
+
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            String contentName = entry.getContentName().getValue();
+            Loggers.getLogger().info("[{}/{}] Download '{}' in range of {}", i + 1, entries.size(),
+                    contentName, entry.getEpisodeRange().getValue());
+
+            // Each content is processed on its own context, which is based on the session.
+            ProcessContext contentContext = ProcessContext.of(context, entry.getContentName(), entry.getEpisodeRange());
+
+            try {
+                process(contentContext, contentProcessors);
+            } catch (Exception e) {
+                Loggers.getLogger().error("Failed to download '{}'", contentName, e);
+                failedContentNames.add(contentName);
+            }
+        }
+
+        if (failedContentNames.isEmpty()) {
+            Loggers.getLogger().info("Downloaded all {} contents", entries.size());
+        } else {
+            Loggers.getLogger().warn("Failed to download {} of {} contents: {}",
+                    failedContentNames.size(), entries.size(), failedContentNames);
+        }
+    }
+
+    @Nullable
+    private static MetricsServer startMetricsServer(@Nullable Integer port) {
+        if (port == null) {
+            return null;
+        }
+
+        try {
+            MetricsServer server = new MetricsServer(MetricRegistry.getDefault(), port);
+            Loggers.getLogger().info("Expose metrics at http://localhost:{}/metrics", server.getPort());
+            return server;
+        } catch (IOException e) {
+            // Downloading is more important than the metrics.
+            Loggers.getLogger().warn("Failed to expose metrics on port {}: {}", port, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Shows the report of the run and writes it with the metrics, if the file is given.
+     */
+    private static void report(@Nullable Path metricsFile, @Nullable MetricsServer metricsServer) {
+        if (metricsServer != null) {
+            metricsServer.close();
+        }
+
+        RunReport report = RunReport.getDefault();
+        if (report.isEmpty()) {
+            return;
+        }
+
+        Loggers.getLogger().info("{}{}", System.lineSeparator(), report.toTable());
+
+        if (metricsFile == null) {
+            return;
+        }
+
+        try {
+            report.writeJson(metricsFile);
+            Loggers.getLogger().info("Wrote report and metrics to {}", metricsFile);
+        } catch (IOException e) {
+            Loggers.getLogger().warn("Failed to write report and metrics to {}: {}", metricsFile, e.getMessage());
+        }
+    }
+
     private static List<Processor> createProcessors() throws LezhinComicsDownloaderException {
         // Finds all types of implementation of the processor.
         Set<Class<? extends Processor>> processorTypes = new Reflections(Application.class)
@@ -83,6 +239,9 @@ public final class Application {
         // Prepares objects needed to instantiate the processors.
         List<Object> beans = List.of(PathUtils.getCurrentPath());
 
+        // Keeps the order of the chain in the report.
+        RunReport.getDefault().declareProcessors(orderedTypes.stream().map(Class::getSimpleName).collect(toUnmodifiableList()));
+
         // Creates the processors with beans.
         ProcessorCreator processorCreator = new ProcessorCreator(beans.toArray());
         return processorCreator.create(orderedTypes);
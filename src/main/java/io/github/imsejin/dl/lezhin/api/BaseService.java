@@ -19,6 +19,8 @@ package io.github.imsejin.dl.lezhin.api;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import io.github.imsejin.dl.lezhin.http.interceptor.FabricatedHeadersInterceptor;
+import io.github.imsejin.dl.lezhin.http.interceptor.RetryInterceptor;
+import io.github.imsejin.dl.lezhin.http.interceptor.ThrottleInterceptor;
 import lombok.AccessLevel;
 import lombok.Getter;
 import okhttp3.OkHttpClient;
@@ -32,8 +34,26 @@ import java.util.UUID;
  */
 public abstract class BaseService {
 
+    /**
+     * Host of the web server, which serves the APIs under {@code /lz-api}.
+     *
+     * @since 3.2.0
+     */
+    public static final String WEB_HOST = "https://www.lezhin.com";
+
+    /**
+     * Host of the API server.
+     *
+     * @since 3.2.0
+     */
+    public static final String API_HOST = "https://api.lezhin.com";
+
     private static final FabricatedHeadersInterceptor interceptor = new FabricatedHeadersInterceptor();
 
+    private static final RetryInterceptor retryInterceptor = new RetryInterceptor();
+
+    private static final ThrottleInterceptor throttleInterceptor = new ThrottleInterceptor();
+
     @Getter(AccessLevel.PROTECTED)
     private static final Gson gson = new GsonBuilder()
             .disableJdkUnsafe()
@@ -42,10 +62,19 @@ public abstract class BaseService {
             .setLenient()
             .create();
 
-    @Getter(AccessLevel.PROTECTED)
-    private static final OkHttpClient httpClient = new OkHttpClient.Builder()
+    /**
+     * Client without the fabricated headers, which is shared by the clients of the platform.
+     */
+    private static final OkHttpClient baseHttpClient = new OkHttpClient.Builder()
             .readTimeout(Duration.ofSeconds(15))
             .writeTimeout(Duration.ofSeconds(15))
+            // Retries outermost, so that each attempt has the fabricated headers.
+            .addInterceptor(retryInterceptor)
+            .addInterceptor(throttleInterceptor)
+            .build();
+
+    @Getter(AccessLevel.PROTECTED)
+    private static final OkHttpClient httpClient = baseHttpClient.newBuilder()
             .addInterceptor(interceptor)
             .build();
 
@@ -54,4 +83,28 @@ public abstract class BaseService {
         interceptor.setAccessToken(accessToken);
     }
 
+    /**
+     * Returns a builder of the client which retries and throttles the requests like the services,
+     * but doesn't fabricate the headers of the APIs. The client shares the connections with the services.
+     *
+     * @return builder of client
+     * @since 3.2.0
+     */
+    public static OkHttpClient.Builder newHttpClientBuilder() {
+        return baseHttpClient.newBuilder();
+    }
+
+    /**
+     * Returns the base URL of Retrofit, which must end with a slash.
+     *
+     * @param host host such as {@code https://www.lezhin.com} or {@code http://127.0.0.1:8080}
+     * @param path path under the host, such as {@code lz-api/v2/}
+     * @return base URL
+     * @since 3.2.0
+     */
+    protected static String toBaseUrl(String host, String path) {
+        String prefix = host.endsWith("/") ? host : host + '/';
+        return prefix + path;
+    }
+
 }
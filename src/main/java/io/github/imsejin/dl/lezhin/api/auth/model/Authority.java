@@ -26,6 +26,7 @@ import lombok.Getter;
 import lombok.ToString;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.regex.Pattern;
 
@@ -72,6 +73,18 @@ public class Authority implements Attribute {
         return this.expiredAt < currentTimeSeconds;
     }
 
+    /**
+     * Returns whether this will be expired within the margin.
+     *
+     * @param margin margin of time
+     * @return whether this is expired or will be expired soon
+     * @since 3.2.0
+     */
+    public boolean isExpired(Duration margin) {
+        long currentTimeSeconds = System.currentTimeMillis() / 1000;
+        return this.expiredAt - margin.toSeconds() < currentTimeSeconds;
+    }
+
     // -------------------------------------------------------------------------------------------------
 
     private static Long extractContentId(JsonObject jsonObject) {
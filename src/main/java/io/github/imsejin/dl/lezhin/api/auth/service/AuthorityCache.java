@@ -0,0 +1,163 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.api.auth.service;
+
+import io.github.imsejin.dl.lezhin.api.auth.model.Authority;
+import io.github.imsejin.dl.lezhin.api.auth.model.ServiceRequest;
+import io.github.imsejin.dl.lezhin.common.Loggers;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Cache of the authorities for viewing episodes
+ *
+ * <p> The authorities of the next episodes are requested in the background by {@link #prefetch(ServiceRequest)},
+ * while the images of the current episode are being downloaded. An authority is reused until it is about
+ * to expire, so only stale ones are requested again.
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class AuthorityCache implements AutoCloseable {
+
+    /**
+     * Authority is regarded as stale this much earlier than it expires, so that the images
+     * of the episode can be downloaded before it expires.
+     */
+    @VisibleForTesting
+    static final Duration EXPIRATION_MARGIN = Duration.ofMinutes(1);
+
+    private final Function<ServiceRequest, Authority> requester;
+
+    private final ConcurrentMap<Key, CompletableFuture<Authority>> futures = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "authority-prefetcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param requester function that requests an authority, such as {@link AuthorityService#getAuthForViewEpisode}
+     */
+    public AuthorityCache(Function<ServiceRequest, Authority> requester) {
+        this.requester = requester;
+    }
+
+    /**
+     * Requests the authority in the background, unless it is cached and still fresh.
+     *
+     * @param request request of authority
+     */
+    public void prefetch(ServiceRequest request) {
+        Key key = Key.from(request);
+        this.futures.compute(key, (k, future) -> {
+            if (future != null && !isStale(future)) {
+                return future;
+            }
+
+            return CompletableFuture.supplyAsync(() -> this.requester.apply(request), this.executor);
+        });
+    }
+
+    /**
+     * Returns the authority. If it is being prefetched, waits for it.
+     * If it is not cached, stale or failed to prefetch, requests it right now.
+     *
+     * @param request request of authority
+     * @return authority
+     */
+    public Authority get(ServiceRequest request) {
+        CompletableFuture<Authority> future = this.futures.get(Key.from(request));
+
+        if (future != null) {
+            try {
+                Authority authority = future.join();
+                if (!authority.isExpired(EXPIRATION_MARGIN)) {
+                    return authority;
+                }
+            } catch (CompletionException e) {
+                Loggers.getLogger().debug("Failed to prefetch authority of episode[{}]: {}",
+                        request.getEpisodeId(), e.getCause().toString());
+            }
+        }
+
+        return refresh(request);
+    }
+
+    /**
+     * Requests the authority right now, even if it is cached, and caches it.
+     * This is used when the cached one is rejected by the CDN.
+     *
+     * @param request request of authority
+     * @return new authority
+     */
+    public Authority refresh(ServiceRequest request) {
+        Authority authority = this.requester.apply(request);
+        this.futures.put(Key.from(request), CompletableFuture.completedFuture(authority));
+
+        return authority;
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static boolean isStale(CompletableFuture<Authority> future) {
+        // Authority being requested is never stale.
+        if (!future.isDone()) {
+            return false;
+        }
+
+        return future.isCompletedExceptionally() || future.join().isExpired(EXPIRATION_MARGIN);
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    @ToString
+    @EqualsAndHashCode
+    private static final class Key {
+        private final Long contentId;
+        private final Long episodeId;
+        private final boolean purchased;
+
+        private Key(Long contentId, Long episodeId, boolean purchased) {
+            this.contentId = contentId;
+            this.episodeId = episodeId;
+            this.purchased = purchased;
+        }
+
+        private static Key from(ServiceRequest request) {
+            return new Key(request.getContentId(), request.getEpisodeId(), request.isPurchased());
+        }
+    }
+
+}
@@ -22,6 +22,7 @@ import io.github.imsejin.dl.lezhin.api.auth.model.Authority;
 import io.github.imsejin.dl.lezhin.api.auth.model.ServiceRequest;
 import io.github.imsejin.dl.lezhin.common.Loggers;
 import io.github.imsejin.dl.lezhin.common.PropertyBinder;
+import io.github.imsejin.dl.lezhin.metrics.MetricRegistry;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -43,12 +44,26 @@ public class AuthorityService extends BaseService {
 
     private final ServiceInterface serviceInterface;
 
+    private final String baseUrl;
+
     public AuthorityService(Locale locale, UUID accessToken) {
+        this(locale, accessToken, WEB_HOST);
+    }
+
+    /**
+     * @param locale      locale
+     * @param accessToken access token
+     * @param host        host of the web server
+     * @since 3.2.0
+     */
+    public AuthorityService(Locale locale, UUID accessToken, String host) {
         super(locale, accessToken);
 
+        this.baseUrl = toBaseUrl(host, "lz-api/v2/cloudfront/signed-url/");
+
         OkHttpClient httpClient = BaseService.getHttpClient();
         Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl("https://www.lezhin.com/lz-api/v2/cloudfront/signed-url/")
+                .baseUrl(this.baseUrl)
                 .addConverterFactory(GsonConverterFactory.create())
                 .client(httpClient)
                 .build();
@@ -57,8 +72,9 @@ public class AuthorityService extends BaseService {
     }
 
     public Authority getAuthForViewEpisode(ServiceRequest request) {
-        Loggers.getLogger().debug("Request: https://www.lezhin.com/lz-api/v2/cloudfront/signed-url/generate" +
+        Loggers.getLogger().debug("Request: {}generate" +
                         "?contentId={}&episodeId={}&purchased={}&q={}&firstCheckType={}",
+                this.baseUrl,
                 request.getContentId(),
                 request.getEpisodeId(),
                 request.isPurchased(),
@@ -72,10 +88,13 @@ public class AuthorityService extends BaseService {
                 request.getFirstCheckType());
 
         Response<AuthResponse> response;
+        long startedAt = System.nanoTime();
         try {
             response = call.execute();
         } catch (IOException e) {
             throw new RuntimeException(e.getMessage(), e);
+        } finally {
+            MetricRegistry.getDefault().histogram("lezhin_authority_fetch_duration_seconds").recordSince(startedAt);
         }
 
         AuthResponse authResponse = Objects.requireNonNull(response.body());
@@ -48,12 +48,25 @@ public class EpisodeImageCountService extends BaseService {
 
     private final ServiceInterface serviceInterface;
 
+    private final String baseUrl;
+
     public EpisodeImageCountService(UUID accessToken) {
+        this(accessToken, API_HOST);
+    }
+
+    /**
+     * @param accessToken access token
+     * @param host        host of the API server
+     * @since 3.2.0
+     */
+    public EpisodeImageCountService(UUID accessToken, String host) {
         // Supported on only korea platform.
         super(Locale.KOREA, accessToken);
 
+        this.baseUrl = toBaseUrl(host, "");
+
         Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl("https://api.lezhin.com/")
+                .baseUrl(this.baseUrl)
                 .addConverterFactory(GsonConverterFactory.create(BaseService.getGson()))
                 .client(BaseService.getHttpClient())
                 .build();
@@ -62,7 +75,7 @@ public class EpisodeImageCountService extends BaseService {
     }
 
     public Map<String, Integer> getImageCountMap(String contentAlias) {
-        Loggers.getLogger().debug("Request: https://api.lezhin.com/episodes/{}", contentAlias);
+        Loggers.getLogger().debug("Request: {}episodes/{}", this.baseUrl, contentAlias);
         Call<List<EpisodeModel>> call = this.serviceInterface.getEpisodes(contentAlias);
 
         Response<List<EpisodeModel>> response;
@@ -83,7 +96,7 @@ public class EpisodeImageCountService extends BaseService {
     }
 
     public int getImageCount(String contentAlias, Episode episode) {
-        Loggers.getLogger().debug("Request: https://api.lezhin.com/episodes/{}/{}", contentAlias, episode.getName());
+        Loggers.getLogger().debug("Request: {}episodes/{}/{}", this.baseUrl, contentAlias, episode.getName());
         Call<EpisodeModel> call = this.serviceInterface.getEpisode(contentAlias, episode.getName());
 
         Response<EpisodeModel> response;
@@ -24,6 +24,7 @@ import io.github.imsejin.common.util.StringUtils;
 import io.github.imsejin.dl.lezhin.api.BaseService;
 import io.github.imsejin.dl.lezhin.argument.impl.Language;
 import io.github.imsejin.dl.lezhin.common.Loggers;
+import io.github.imsejin.dl.lezhin.exception.HttpResponseException;
 import retrofit2.Call;
 import retrofit2.Response;
 import retrofit2.Retrofit;
@@ -47,11 +48,25 @@ public class PurchasedEpisodeService extends BaseService {
 
     private final Language language;
 
+    private final String baseUrl;
+
     public PurchasedEpisodeService(Language language, UUID accessToken) {
+        this(language, accessToken, WEB_HOST);
+    }
+
+    /**
+     * @param language    language
+     * @param accessToken access token
+     * @param host        host of the web server
+     * @since 3.2.0
+     */
+    public PurchasedEpisodeService(Language language, UUID accessToken, String host) {
         super(language.getValue(), accessToken);
 
+        this.baseUrl = toBaseUrl(host, "lz-api/v2/");
+
         Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl("https://www.lezhin.com/lz-api/v2/")
+                .baseUrl(this.baseUrl)
                 .addConverterFactory(ScalarsConverterFactory.create())
                 .client(BaseService.getHttpClient())
                 .build();
@@ -61,7 +76,7 @@ public class PurchasedEpisodeService extends BaseService {
     }
 
     public List<Long> getPurchasedEpisodeIdList(String contentAlias) {
-        Loggers.getLogger().debug("Request: https://www.lezhin.com/lz-api/v2/contents/{}/users", contentAlias);
+        Loggers.getLogger().debug("Request: {}contents/{}/users", this.baseUrl, contentAlias);
         Call<String> call = this.serviceInterface.getPurchasedEpisodes(contentAlias, "comic",
                 this.language.getValue().getLanguage(), this.language.asLocaleString());
 
@@ -72,6 +87,13 @@ public class PurchasedEpisodeService extends BaseService {
             throw new RuntimeException(e.getMessage(), e);
         }
 
+        // Status code tells if the access token is rejected.
+        if (!response.isSuccessful()) {
+            HttpResponseException e = new HttpResponseException(response.code(),
+                    "Unexpected response of purchased episodes: %d %s", response.code(), contentAlias);
+            throw new RuntimeException(e.getMessage(), e);
+        }
+
         String json = response.body();
         if (StringUtils.isNullOrBlank(json)) {
             throw new IllegalArgumentException("Failed to get list of purchased episode: " + contentAlias);
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.argument.impl;
+
+import io.github.imsejin.dl.lezhin.argument.Argument;
+import io.github.imsejin.dl.lezhin.attribute.Attribute;
+import io.github.imsejin.dl.lezhin.http.throttle.Throttle;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.commons.cli.Option;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maximum bytes per second downloaded from the platform, optionally during a time window
+ *
+ * @since 3.2.0
+ */
+@Getter
+@ToString
+@EqualsAndHashCode(callSuper = false)
+public class Bandwidth extends Argument implements Attribute {
+
+    private static final Pattern PATTERN = Pattern.compile(
+            "(\\d+(?:\\.\\d+)?)([KMG]?)(?:@(.+))?", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Limit of bytes per second, or {@code null} if unlimited.
+     */
+    @Nullable
+    private Throttle value;
+
+    @Override
+    protected Option getOption() {
+        return Option.builder("w")
+                .longOpt("bandwidth")
+                .desc("Maximum bytes per second to download such as 512K or 2M, optionally during hours like 2M@09-18")
+                .hasArg()
+                .valueSeparator()
+                .argName("rate[@from-to]")
+                .build();
+    }
+
+    @Override
+    protected void validate(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid Bandwidth.value: null");
+        }
+
+        if (value.isEmpty()) {
+            return;
+        }
+
+        try {
+            parse(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid Bandwidth.value: " + value, e);
+        }
+    }
+
+    @Override
+    protected void setValue(String value) {
+        this.value = value.isEmpty() ? null : parse(value);
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static Throttle parse(String value) {
+        Matcher matcher = PATTERN.matcher(value);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Unrecognized format of bandwidth: " + value);
+        }
+
+        // Units are binary: K = 1024, M = 1024^2, G = 1024^3.
+        String unit = matcher.group(2).toUpperCase(Locale.ROOT);
+        int exponent = unit.isEmpty() ? 0 : "KMG".indexOf(unit) + 1;
+        double bytes = Double.parseDouble(matcher.group(1)) * Math.pow(1024, exponent);
+
+        if (bytes < 1) {
+            throw new IllegalArgumentException("Bandwidth must be at least 1 byte per second: " + value);
+        }
+
+        return Throttle.of(bytes, matcher.group(3));
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.argument.impl;
+
+import io.github.imsejin.dl.lezhin.argument.Argument;
+import io.github.imsejin.dl.lezhin.attribute.Attribute;
+import io.github.imsejin.dl.lezhin.exception.ParsingArgumentException;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import org.apache.commons.cli.Option;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * File that lists the contents to download in a run
+ *
+ * <p> Each line has a content name and an optional episode range separated by whitespace.
+ * Blank lines and the text after {@code #} are ignored.
+ *
+ * <pre>
+ *     # Ongoing series
+ *     appetite
+ *     snail 8~
+ *     alpha ~25
+ * </pre>
+ *
+ * @since 3.2.0
+ */
+@Getter
+@ToString
+@EqualsAndHashCode(callSuper = false)
+public class BatchFile extends Argument implements Attribute {
+
+    @Nullable
+    private Path value;
+
+    @Override
+    protected Option getOption() {
+        return Option.builder("b")
+                .longOpt("batch")
+                .desc("File that lists webtoon names and their episode ranges to download in a run")
+                .hasArg()
+                .valueSeparator()
+                .argName("file")
+                .build();
+    }
+
+    @Override
+    protected void validate(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid BatchFile.value: null");
+        }
+
+        if (value.isEmpty()) {
+            return;
+        }
+
+        if (!Files.isRegularFile(Path.of(value))) {
+            throw new IllegalArgumentException("BatchFile.value is not a file: " + value);
+        }
+    }
+
+    @Override
+    protected void setValue(String value) {
+        this.value = value.isEmpty() ? null : Path.of(value);
+    }
+
+    /**
+     * Reads the entries of the file.
+     *
+     * @return entries in order of the lines
+     * @throws IOException              if failed to read the file
+     * @throws ParsingArgumentException if a line is invalid
+     */
+    public List<Entry> readEntries() throws IOException, ParsingArgumentException {
+        List<String> lines = Files.readAllLines(this.value);
+        List<Entry> entries = new ArrayList<>();
+
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+
+            int commentIndex = line.indexOf('#');
+            if (commentIndex >= 0) {
+                line = line.substring(0, commentIndex);
+            }
+
+            line = line.strip();
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            String[] tokens = line.split("\\s+");
+            if (tokens.length > 2) {
+                throw new ParsingArgumentException("Invalid line %d of batch file: %s", i + 1, lines.get(i));
+            }
+
+            try {
+                ContentName contentName = new ContentName();
+                contentName.validate(tokens[0]);
+                contentName.setValue(tokens[0]);
+
+                EpisodeRange episodeRange = new EpisodeRange();
+                String range = tokens.length == 2 ? tokens[1] : "";
+                episodeRange.validate(range);
+                episodeRange.setValue(range);
+
+                entries.add(new Entry(contentName, episodeRange));
+            } catch (IllegalArgumentException e) {
+                throw new ParsingArgumentException(e, "Invalid line %d of batch file: %s", i + 1, lines.get(i));
+            }
+        }
+
+        return entries;
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    /**
+     * Content to download in batch mode
+     */
+    @Getter
+    @ToString
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    public static final class Entry {
+        private final ContentName contentName;
+        private final EpisodeRange episodeRange;
+    }
+
+}
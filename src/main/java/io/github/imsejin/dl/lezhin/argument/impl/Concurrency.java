@@ -0,0 +1,94 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.argument.impl;
+
+import io.github.imsejin.dl.lezhin.argument.Argument;
+import io.github.imsejin.dl.lezhin.attribute.Attribute;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.commons.cli.Option;
+
+import java.util.regex.Pattern;
+
+/**
+ * Maximum number of images downloaded at the same time
+ *
+ * @since 3.2.0
+ */
+@Getter
+@ToString
+@EqualsAndHashCode(callSuper = false)
+public class Concurrency extends Argument implements Attribute {
+
+    public static final int DEFAULT_VALUE = 8;
+
+    public static final int MAX_VALUE = 64;
+
+    private static final Pattern PATTERN = Pattern.compile("[1-9][0-9]*");
+
+    /**
+     * Value that lets the downloader find the concurrency by itself.
+     */
+    public static final String AUTO = "auto";
+
+    private Integer value = DEFAULT_VALUE;
+
+    /**
+     * Whether the concurrency adapts to the network. If so, {@link #value} is the upper bound.
+     */
+    private boolean adaptive;
+
+    @Override
+    protected Option getOption() {
+        return Option.builder("c")
+                .longOpt("concurrency")
+                .desc("Maximum number of images to download concurrently, or '" + AUTO
+                        + "' to adapt it to the network (default: " + DEFAULT_VALUE + ")")
+                .hasArg()
+                .valueSeparator()
+                .argName("number")
+                .build();
+    }
+
+    @Override
+    protected void validate(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid Concurrency.value: null");
+        }
+
+        if (value.isEmpty() || value.equals(AUTO)) {
+            return;
+        }
+
+        if (!PATTERN.matcher(value).matches() || value.length() > 2 || Integer.parseInt(value) > MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid Concurrency.value: " + value);
+        }
+    }
+
+    @Override
+    protected void setValue(String value) {
+        if (value.equals(AUTO)) {
+            this.adaptive = true;
+            this.value = MAX_VALUE;
+            return;
+        }
+
+        this.value = value.isEmpty() ? DEFAULT_VALUE : Integer.parseInt(value);
+    }
+
+}
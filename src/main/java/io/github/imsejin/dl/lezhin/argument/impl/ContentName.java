@@ -43,8 +43,7 @@ public class ContentName extends Argument implements Attribute {
     protected Option getOption() {
         return Option.builder("n")
                 .longOpt("name")
-                .desc("webtoon name you want to download")
-                .required()
+                .desc("webtoon name you want to download (required unless batch file is given)")
                 .hasArg()
                 .valueSeparator()
                 .argName("webtoon_name")
@@ -55,7 +54,15 @@ public class ContentName extends Argument implements Attribute {
     protected void validate(String value) {
         Asserts.that(value)
                 .describedAs("Invalid ContentName.value: {0}", value)
-                .isNotNull()
+                .isNotNull();
+
+        // Content name can be omitted in batch mode.
+        if (value.isEmpty()) {
+            return;
+        }
+
+        Asserts.that(value)
+                .describedAs("Invalid ContentName.value: {0}", value)
                 .hasText();
     }
 
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.argument.impl;
+
+import io.github.imsejin.dl.lezhin.argument.Argument;
+import io.github.imsejin.dl.lezhin.attribute.Attribute;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.commons.cli.Option;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * File to write the summary of metrics to when the run ends
+ *
+ * @since 3.2.0
+ */
+@Getter
+@ToString
+@EqualsAndHashCode(callSuper = false)
+public class MetricsFile extends Argument implements Attribute {
+
+    @Nullable
+    private Path value;
+
+    @Override
+    protected Option getOption() {
+        return Option.builder("m")
+                .longOpt("metrics")
+                .desc("JSON file to write the metrics of the run to, such as durations, retries and bytes")
+                .hasArg()
+                .valueSeparator()
+                .argName("file")
+                .build();
+    }
+
+    @Override
+    protected void validate(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid MetricsFile.value: null");
+        }
+
+        if (value.isEmpty()) {
+            return;
+        }
+
+        Path path = Path.of(value).toAbsolutePath();
+        if (Files.isDirectory(path)) {
+            throw new IllegalArgumentException("MetricsFile.value is a directory: " + value);
+        }
+        if (!Files.isDirectory(path.getParent())) {
+            throw new IllegalArgumentException("MetricsFile.value is in a directory that doesn't exist: " + value);
+        }
+    }
+
+    @Override
+    protected void setValue(String value) {
+        this.value = value.isEmpty() ? null : Path.of(value);
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.argument.impl;
+
+import io.github.imsejin.dl.lezhin.argument.Argument;
+import io.github.imsejin.dl.lezhin.attribute.Attribute;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.commons.cli.Option;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Port of the endpoint that exposes the metrics to Prometheus while running
+ *
+ * @since 3.2.0
+ */
+@Getter
+@ToString
+@EqualsAndHashCode(callSuper = false)
+public class MetricsPort extends Argument implements Attribute {
+
+    /**
+     * Port, or {@code null} if the endpoint is disabled.
+     */
+    @Nullable
+    private Integer value;
+
+    @Override
+    protected Option getOption() {
+        return Option.builder("p")
+                .longOpt("metrics-port")
+                .desc("Port to expose the metrics to Prometheus at /metrics while running")
+                .hasArg()
+                .valueSeparator()
+                .argName("port")
+                .build();
+    }
+
+    @Override
+    protected void validate(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid MetricsPort.value: null");
+        }
+
+        if (value.isEmpty()) {
+            return;
+        }
+
+        int port;
+        try {
+            port = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid MetricsPort.value: " + value, e);
+        }
+
+        if (port < 1 || port > 65535) {
+            throw new IllegalArgumentException("MetricsPort.value must be between 1 and 65535: " + value);
+        }
+    }
+
+    @Override
+    protected void setValue(String value) {
+        this.value = value.isEmpty() ? null : Integer.parseInt(value);
+    }
+
+}
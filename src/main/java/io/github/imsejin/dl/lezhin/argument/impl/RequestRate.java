@@ -0,0 +1,98 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.argument.impl;
+
+import io.github.imsejin.dl.lezhin.argument.Argument;
+import io.github.imsejin.dl.lezhin.attribute.Attribute;
+import io.github.imsejin.dl.lezhin.http.throttle.Throttle;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.commons.cli.Option;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maximum requests per second to the platform, optionally during a time window
+ *
+ * @since 3.2.0
+ */
+@Getter
+@ToString
+@EqualsAndHashCode(callSuper = false)
+public class RequestRate extends Argument implements Attribute {
+
+    private static final Pattern PATTERN = Pattern.compile("(\\d+(?:\\.\\d+)?)(?:@(.+))?");
+
+    /**
+     * Limit of requests per second, or {@code null} if unlimited.
+     */
+    @Nullable
+    private Throttle value;
+
+    @Override
+    protected Option getOption() {
+        return Option.builder("t")
+                .longOpt("request-rate")
+                .desc("Maximum requests per second such as 10 or 0.5, optionally during hours like 10@09-18")
+                .hasArg()
+                .valueSeparator()
+                .argName("rate[@from-to]")
+                .build();
+    }
+
+    @Override
+    protected void validate(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid RequestRate.value: null");
+        }
+
+        if (value.isEmpty()) {
+            return;
+        }
+
+        try {
+            parse(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid RequestRate.value: " + value, e);
+        }
+    }
+
+    @Override
+    protected void setValue(String value) {
+        this.value = value.isEmpty() ? null : parse(value);
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static Throttle parse(String value) {
+        Matcher matcher = PATTERN.matcher(value);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Unrecognized format of request rate: " + value);
+        }
+
+        double rate = Double.parseDouble(matcher.group(1));
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Request rate must be positive: " + value);
+        }
+
+        return Throttle.of(rate, matcher.group(2));
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.argument.impl;
+
+import io.github.imsejin.dl.lezhin.argument.Argument;
+import io.github.imsejin.dl.lezhin.attribute.Attribute;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.commons.cli.Option;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Stitching the cuts of each episode into vertical strips after download
+ *
+ * <pre>
+ *     (absent) : disabled
+ *     -z       : a single strip per episode
+ *     -z=4000  : strips split into the pages of 4000 pixels
+ * </pre>
+ *
+ * @since 3.2.0
+ */
+@Getter
+@ToString
+@EqualsAndHashCode(callSuper = false)
+public class Stitch extends Argument implements Attribute {
+
+    private static final int MIN_PAGE_HEIGHT = 100;
+
+    /**
+     * Height of a page, zero for a single strip, or {@code null} if disabled.
+     */
+    @Nullable
+    private Integer value;
+
+    @Override
+    protected Option getOption() {
+        return Option.builder("z")
+                .longOpt("stitch")
+                .optionalArg(true)
+                .numberOfArgs(1)
+                .valueSeparator()
+                .argName("height")
+                .desc("Stitch the images of each episode into vertical strips, split by the height if given")
+                .build();
+    }
+
+    @Override
+    protected void validate(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid Stitch.value: null");
+        }
+
+        if (value.equals("true") || value.equals("false")) {
+            return;
+        }
+
+        int height;
+        try {
+            height = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid Stitch.value: " + value, e);
+        }
+
+        if (height < MIN_PAGE_HEIGHT) {
+            throw new IllegalArgumentException("Stitch.value must be at least " + MIN_PAGE_HEIGHT + ": " + value);
+        }
+    }
+
+    @Override
+    protected void setValue(String value) {
+        switch (value) {
+            case "false":
+                this.value = null;
+                break;
+            case "true":
+                this.value = 0;
+                break;
+            default:
+                this.value = Integer.parseInt(value);
+                break;
+        }
+    }
+
+}
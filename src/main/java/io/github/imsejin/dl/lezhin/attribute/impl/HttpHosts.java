@@ -60,7 +60,7 @@ public final class HttpHosts implements Attribute {
             url += '/';
         }
 
-        if (url.matches("^https?://[\\w.]+/$")) {
+        if (url.matches("^https?://[\\w.-]+(:[0-9]+)?/$")) {
             return url;
         }
 
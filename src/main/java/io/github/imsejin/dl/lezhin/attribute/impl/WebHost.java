@@ -0,0 +1,52 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.attribute.impl;
+
+import io.github.imsejin.common.assertion.Asserts;
+import io.github.imsejin.dl.lezhin.api.BaseService;
+import io.github.imsejin.dl.lezhin.attribute.Attribute;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Host of the web server, which serves the APIs under {@code /lz-api}
+ *
+ * <p> This is {@link BaseService#WEB_HOST} unless it is replaced, for example with a mock server.
+ *
+ * @since 3.2.0
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class WebHost implements Attribute {
+
+    private final String value;
+
+    public WebHost() {
+        this(BaseService.WEB_HOST);
+    }
+
+    public WebHost(String value) {
+        Asserts.that(value)
+                .isNotNull()
+                .hasText();
+
+        this.value = value;
+    }
+
+}
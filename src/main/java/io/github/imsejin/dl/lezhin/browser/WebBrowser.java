@@ -25,6 +25,7 @@ import io.github.imsejin.dl.lezhin.exception.WebBrowserNotRunningException;
 import io.github.imsejin.dl.lezhin.util.PathUtils;
 import org.jetbrains.annotations.Nullable;
 import org.openqa.selenium.By;
+import org.openqa.selenium.Cookie;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.chrome.ChromeDriver;
@@ -72,6 +73,9 @@ public final class WebBrowser {
 
     private static boolean initialized;
 
+    @Nullable
+    private static volatile CookieRestoration cookieRestoration;
+
     // Preparation -------------------------------------------------------------------------------------
 
     /**
@@ -135,6 +139,46 @@ public final class WebBrowser {
         // Invokes any instance method of driver to initialize this field by classloader.
         // `WebBrowser.initialized` will be updated after the invocation.
         SingletonLazyHolder.DRIVER.hashCode();
+
+        // Cookies can be added to the domain of the current page only.
+        CookieRestoration restoration = WebBrowser.cookieRestoration;
+        if (restoration != null) {
+            WebBrowser.cookieRestoration = null;
+            request(restoration.url);
+            restoration.cookies.forEach(SingletonLazyHolder.DRIVER.manage()::addCookie);
+        }
+    }
+
+    /**
+     * Reserves the cookies to be added as soon as web browser runs.
+     *
+     * <p> This doesn't run web browser, so it isn't launched at all
+     * unless there is a process that needs it.
+     *
+     * @param url     URL of the domain of the cookies
+     * @param cookies cookies
+     * @since 3.2.0
+     */
+    public static void restoreCookies(String url, Set<Cookie> cookies) {
+        if (isRunning()) {
+            request(url);
+            cookies.forEach(SingletonLazyHolder.DRIVER.manage()::addCookie);
+            return;
+        }
+
+        WebBrowser.cookieRestoration = new CookieRestoration(url, cookies);
+    }
+
+    /**
+     * Returns the cookies of the current domain.
+     *
+     * @return cookies
+     * @since 3.2.0
+     */
+    public static Set<Cookie> getCookies() {
+        CHECK_INITIALIZATION.run();
+
+        return SingletonLazyHolder.DRIVER.manage().getCookies();
     }
 
     // -------------------------------------------------------------------------------------------------
@@ -247,4 +291,16 @@ public final class WebBrowser {
         return null;
     }
 
+    // -------------------------------------------------------------------------------------------------
+
+    private static final class CookieRestoration {
+        private final String url;
+        private final Set<Cookie> cookies;
+
+        private CookieRestoration(String url, Set<Cookie> cookies) {
+            this.url = url;
+            this.cookies = cookies;
+        }
+    }
+
 }
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download;
+
+import io.github.imsejin.common.assertion.Asserts;
+import io.github.imsejin.dl.lezhin.common.Loggers;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limiter that adapts the number of images downloaded at the same time, by AIMD
+ * (additive increase, multiplicative decrease)
+ *
+ * <p> While most of the permits are in use and the latency stays flat, the limit grows by about one
+ * per round trip. When the CDN is throttling or failing, or the latency becomes much longer than usual,
+ * the limit shrinks by a quarter, at most once per round trip. So the limit settles around the level
+ * the network can afford.
+ *
+ * <p> The latency is tracked by two exponentially weighted moving averages: a short one for the recent
+ * downloads and a long one for the usual level.
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class AdaptiveConcurrencyLimiter {
+
+    /**
+     * Ratio of the limit kept on decrease.
+     */
+    private static final double BACKOFF_RATIO = 0.75;
+
+    /**
+     * Latency is regarded as a spike when the recent one is longer than the usual one by this ratio.
+     */
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    private static final double SHORT_SMOOTHING = 0.2;
+
+    private static final double LONG_SMOOTHING = 0.02;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final Lock lock = new ReentrantLock();
+
+    private final Condition available = this.lock.newCondition();
+
+    private double limit;
+
+    private int inFlight;
+
+    private double shortLatency;
+
+    private double longLatency;
+
+    /**
+     * Time of the last decrease in {@link System#nanoTime()}, or {@code null} if never decreased.
+     */
+    private Long lastDecreasedAt;
+
+    private int peakLimit;
+
+    /**
+     * @param minLimit     minimum limit
+     * @param maxLimit     maximum limit
+     * @param initialLimit initial limit
+     */
+    public AdaptiveConcurrencyLimiter(int minLimit, int maxLimit, int initialLimit) {
+        Asserts.that(minLimit)
+                .describedAs("AdaptiveConcurrencyLimiter.minLimit must be positive: {0}", minLimit)
+                .isPositive();
+        Asserts.that(initialLimit)
+                .describedAs("AdaptiveConcurrencyLimiter.initialLimit must be between {0} and {1}: {2}",
+                        minLimit, maxLimit, initialLimit)
+                .isGreaterThanOrEqualTo(minLimit)
+                .isLessThanOrEqualTo(maxLimit);
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+        this.peakLimit = initialLimit;
+    }
+
+    /**
+     * Waits until the number of downloads in flight is under the limit.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        this.lock.lock();
+        try {
+            while (this.inFlight >= (int) this.limit) {
+                this.available.await();
+            }
+
+            this.inFlight++;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the permit acquired by {@link #acquire()} and adjusts the limit with the outcome.
+     *
+     * @param outcome      outcome of the download
+     * @param latencyNanos elapsed time of the download
+     */
+    public void release(Outcome outcome, long latencyNanos) {
+        this.lock.lock();
+        try {
+            // Increases the limit only if it is the bottleneck. More than half of the permits in use
+            // is regarded as saturated, because downloads complete one by one rather than all at once.
+            boolean saturated = this.inFlight * 2 >= (int) this.limit;
+            this.inFlight--;
+
+            switch (outcome) {
+                case SUCCESS:
+                    sample(latencyNanos);
+                    if (this.shortLatency > this.longLatency * LATENCY_TOLERANCE) {
+                        decrease("latency spike");
+                    } else if (saturated) {
+                        increase();
+                    }
+                    break;
+                case DROPPED:
+                    decrease("throttled or failed");
+                    break;
+                case IGNORED:
+                default:
+                    break;
+            }
+
+            this.available.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current limit.
+     *
+     * @return limit
+     */
+    public int getLimit() {
+        this.lock.lock();
+        try {
+            return (int) this.limit;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the highest limit reached so far.
+     *
+     * @return peak limit
+     */
+    public int getPeakLimit() {
+        this.lock.lock();
+        try {
+            return this.peakLimit;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @VisibleForTesting
+    int getInFlight() {
+        this.lock.lock();
+        try {
+            return this.inFlight;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private void sample(long latencyNanos) {
+        if (this.longLatency == 0) {
+            this.shortLatency = latencyNanos;
+            this.longLatency = latencyNanos;
+            return;
+        }
+
+        this.shortLatency += SHORT_SMOOTHING * (latencyNanos - this.shortLatency);
+        this.longLatency += LONG_SMOOTHING * (latencyNanos - this.longLatency);
+    }
+
+    private void increase() {
+        int before = (int) this.limit;
+
+        // Grows by one when as many downloads as the limit complete, that is, about once per round trip.
+        this.limit = Math.min(this.maxLimit, this.limit + 1 / this.limit);
+
+        int after = (int) this.limit;
+        if (after != before) {
+            this.peakLimit = Math.max(this.peakLimit, after);
+            Loggers.getLogger().debug("Increase concurrency: {} -> {}", before, after);
+        }
+    }
+
+    private void decrease(String reason) {
+        // Downloads started before the last decrease are likely to fail or delay as well,
+        // so decreases only once per round trip.
+        long now = System.nanoTime();
+        if (this.lastDecreasedAt != null && now - this.lastDecreasedAt < (long) this.longLatency) {
+            return;
+        }
+
+        int before = (int) this.limit;
+        this.limit = Math.max(this.minLimit, this.limit * BACKOFF_RATIO);
+        this.lastDecreasedAt = now;
+
+        // Starts to track the latency over again at the new level.
+        this.shortLatency = this.longLatency;
+
+        Loggers.getLogger().debug("Decrease concurrency by {}: {} -> {}", reason, before, (int) this.limit);
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    /**
+     * Outcome of a download
+     */
+    public enum Outcome {
+        /**
+         * Downloaded successfully; its latency is sampled.
+         */
+        SUCCESS,
+
+        /**
+         * Failed by throttling, server error or network problem, which are signals of congestion.
+         */
+        DROPPED,
+
+        /**
+         * Failed by other problems such as 403 or 404, which don't tell anything about congestion.
+         */
+        IGNORED,
+    }
+
+}
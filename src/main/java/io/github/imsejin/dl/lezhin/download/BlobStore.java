@@ -0,0 +1,279 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download;
+
+import io.github.imsejin.dl.lezhin.common.Loggers;
+import io.github.imsejin.dl.lezhin.metrics.MetricRegistry;
+import lombok.Getter;
+import okio.BufferedSource;
+import okio.HashingSource;
+import okio.Okio;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content-addressed store of images, which keeps the same bytes only once
+ *
+ * <p> An image is stored under its SHA-256 checksum, which is computed while it is downloaded.
+ * Files in the episode directories are links to the stored images; a hard link if the file system
+ * supports it, a symbolic link otherwise, and a copy as a last resort such as on Windows without
+ * the privilege to create a symbolic link. So the notices, title cards and recaps repeated across
+ * the episodes and the same art of the other languages are written to the disk only once.
+ *
+ * <pre>
+ *     .blobs/9f/9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08
+ * </pre>
+ *
+ * <p> A stored image is verified with its checksum once a run before it is reused, because a crash may leave
+ * it truncated or zeroed. A broken one is replaced with the file downloaded again.
+ *
+ * <p> Never modify the images in the episode directories; a hard link shares the bytes with the other episodes.
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class BlobStore {
+
+    public static final String DIRECTORY_NAME = ".blobs";
+
+    private static final int MAX_LINK_ATTEMPTS = 3;
+
+    /**
+     * Reasons of the errors that tell the file system doesn't support the type of link.
+     */
+    private static final List<String> UNSUPPORTED_REASONS = List.of(
+            "cross-device", "not supported", "not permitted", "privilege", "incorrect function");
+
+    @Getter
+    private final Path directory;
+
+    /**
+     * Checksums of the blobs verified by this run.
+     */
+    private final Set<String> verifiedChecksums = ConcurrentHashMap.newKeySet();
+
+    private volatile LinkType linkType = LinkType.HARD_LINK;
+
+    /**
+     * @param basePath directory that has the content directories
+     */
+    public BlobStore(Path basePath) {
+        this.directory = basePath.resolve(DIRECTORY_NAME);
+    }
+
+    /**
+     * Stores the file and replaces it with a link to the stored one. If the same bytes are already stored,
+     * the file is just discarded.
+     *
+     * @param file     file downloaded
+     * @param checksum SHA-256 checksum of the file in hexadecimal
+     * @throws IOException if failed to store or link
+     */
+    public void store(Path file, String checksum) throws IOException {
+        Path blob = getBlobPath(checksum);
+        MetricRegistry registry = MetricRegistry.getDefault();
+        Files.createDirectories(blob.getParent());
+
+        if (publish(file, blob)) {
+            this.verifiedChecksums.add(checksum);
+            registry.counter("lezhin_blob_store_writes_total").increment();
+
+            // The published file is already a hard link to the blob.
+            if (Files.exists(file)) {
+                return;
+            }
+        } else if (isIntact(blob, checksum)) {
+            registry.counter("lezhin_blob_store_hits_total").increment();
+            Files.delete(file);
+        } else {
+            Loggers.getLogger().warn("Replace the broken blob: {}", blob);
+            Files.move(file, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.verifiedChecksums.add(checksum);
+            registry.counter("lezhin_blob_store_writes_total").increment();
+        }
+
+        link(file, blob);
+    }
+
+    Path getBlobPath(String checksum) {
+        return this.directory.resolve(checksum.substring(0, 2)).resolve(checksum);
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    /**
+     * Makes the file the blob unless the blob exists. A hard link is created for the blob if the file system
+     * supports it, which fails atomically if the blob exists; whereas {@link Files#move(Path, Path,
+     * java.nio.file.CopyOption...)} with {@link StandardCopyOption#ATOMIC_MOVE} is {@code rename(2)} on Unix,
+     * which silently replaces the blob and leaves the hard links made to it with their own bytes.
+     *
+     * @return whether the file is published
+     */
+    private boolean publish(Path file, Path blob) throws IOException {
+        if (this.linkType == LinkType.HARD_LINK) {
+            try {
+                Files.createLink(blob, file);
+                return true;
+            } catch (FileAlreadyExistsException e) {
+                return false;
+            } catch (UnsupportedOperationException | IOException e) {
+                if (!isUnsupported(e)) {
+                    throw e;
+                }
+
+                downgrade(LinkType.HARD_LINK, blob, e);
+            }
+        }
+
+        // Other links than hard link are resolved by the path of the blob, so a replaced blob doesn't matter.
+        try {
+            Files.move(file, blob);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        }
+    }
+
+    private boolean isIntact(Path blob, String checksum) throws IOException {
+        if (this.verifiedChecksums.contains(checksum)) {
+            return true;
+        }
+
+        HashingSource hashingSource;
+        try {
+            hashingSource = HashingSource.sha256(Okio.source(blob));
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+
+        try (BufferedSource source = Okio.buffer(hashingSource)) {
+            source.readAll(Okio.blackhole());
+        }
+
+        boolean intact = hashingSource.hash().hex().equals(checksum);
+        if (intact) {
+            this.verifiedChecksums.add(checksum);
+        }
+
+        return intact;
+    }
+
+    /**
+     * Creates a link with the first type the file system supports. Once the file system turns out not to
+     * support a type, it is never tried again. The other errors, such as too many links to the blob,
+     * are retried with the same type, and then only this file falls back to the next type.
+     */
+    private void link(Path link, Path blob) throws IOException {
+        LinkType linkType = this.linkType;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                linkType.create(link, blob);
+                return;
+            } catch (UnsupportedOperationException | IOException e) {
+                if (e instanceof FileAlreadyExistsException) {
+                    throw e;
+                }
+
+                if (linkType != LinkType.COPY && isUnsupported(e)) {
+                    linkType = downgrade(linkType, blob, e);
+                    attempt = 0;
+                } else if (attempt < MAX_LINK_ATTEMPTS) {
+                    Loggers.getLogger().debug("Failed to create {} to {}, try again: {}", linkType, blob, e.toString());
+                } else if (linkType != LinkType.COPY) {
+                    LinkType next = LinkType.values()[linkType.ordinal() + 1];
+                    Loggers.getLogger().debug("Failed to create {} to {}, try {} for {}: {}",
+                            linkType, blob, next, link, e.toString());
+                    linkType = next;
+                    attempt = 0;
+                } else {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops trying the type of link which the file system doesn't support, and returns the next one.
+     */
+    private LinkType downgrade(LinkType linkType, Path blob, Exception e) {
+        LinkType next = LinkType.values()[linkType.ordinal() + 1];
+        Loggers.getLogger().debug("Failed to create {} to {}, try {} instead: {}", linkType, blob, next, e.toString());
+
+        // Doesn't go back to the type that another worker has already given up.
+        if (this.linkType.ordinal() < next.ordinal()) {
+            this.linkType = next;
+        }
+
+        return next;
+    }
+
+    private static boolean isUnsupported(Exception e) {
+        if (e instanceof UnsupportedOperationException) {
+            return true;
+        }
+        if (!(e instanceof FileSystemException)) {
+            return false;
+        }
+
+        String reason = ((FileSystemException) e).getReason();
+        if (reason == null) {
+            return false;
+        }
+
+        String lowerCase = reason.toLowerCase(Locale.ROOT);
+        return UNSUPPORTED_REASONS.stream().anyMatch(lowerCase::contains);
+    }
+
+    private enum LinkType {
+        HARD_LINK {
+            @Override
+            void create(Path link, Path blob) throws IOException {
+                Files.createLink(link, blob);
+            }
+        },
+
+        SYMBOLIC_LINK {
+            @Override
+            void create(Path link, Path blob) throws IOException {
+                // Relative target keeps the library valid even if it is moved or mounted elsewhere.
+                Files.createSymbolicLink(link, link.toAbsolutePath().getParent().relativize(blob.toAbsolutePath()));
+            }
+        },
+
+        COPY {
+            @Override
+            void create(Path link, Path blob) throws IOException {
+                Files.copy(blob, link);
+            }
+        };
+
+        abstract void create(Path link, Path blob) throws IOException;
+    }
+
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import io.github.imsejin.dl.lezhin.common.Loggers;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import okio.BufferedSource;
+import okio.HashingSource;
+import okio.Okio;
+import org.jetbrains.annotations.Nullable;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Comparator.comparing;
+
+/**
+ * Manifest of the images downloaded into a content directory
+ *
+ * <p> Each image is recorded with its episode, number, size, modification time, checksum and state.
+ * When the content is downloaded again, an image recorded as completed is skipped as long as its file
+ * still has the same size and checksum, so that only the missing or corrupt images are requested.
+ * The checksum is computed only if the modification time of the file has changed, so that the intact
+ * images are not read at all.
+ *
+ * <p> The number of images probed on the CDN is recorded by episode as well, because it costs
+ * several requests while the number never changes; see {@link ImageCountProber}.
+ *
+ * <pre>{@code
+ *     {
+ *       "version": 1,
+ *       "images": [
+ *         {
+ *           "path": "0001 - Prologue/001.webp",
+ *           "episodeId": 5402479112798208,
+ *           "number": 1,
+ *           "size": 182345,
+ *           "modifiedAt": 1666051200000,
+ *           "checksum": "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08",
+ *           "state": "COMPLETED"
+ *         },
+ *         ...
+ *       ],
+ *       "imageCounts": {
+ *         "5402479112798208": 88
+ *       }
+ *     }
+ * }</pre>
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class DownloadManifest {
+
+    public static final String FILE_NAME = ".manifest.json";
+
+    private static final int VERSION = 1;
+
+    /**
+     * Minimum interval of {@link #saveIfDue()}.
+     */
+    private static final Duration SAVE_INTERVAL = Duration.ofSeconds(10);
+
+    private static final Gson gson = new GsonBuilder()
+            .disableJdkUnsafe()
+            .disableHtmlEscaping()
+            .create();
+
+    private final Path directory;
+
+    private final Map<String, Image> images;
+
+    private final Map<Long, Integer> imageCounts;
+
+    private volatile long savedAtNanos;
+
+    private DownloadManifest(Path directory, Map<String, Image> images, Map<Long, Integer> imageCounts) {
+        this.directory = directory;
+        this.images = images;
+        this.imageCounts = imageCounts;
+        this.savedAtNanos = System.nanoTime();
+    }
+
+    /**
+     * Loads the manifest in the directory. If there is no manifest or it is broken, returns an empty one.
+     *
+     * @param directory content directory
+     * @return manifest
+     */
+    public static DownloadManifest load(Path directory) {
+        Path file = directory.resolve(FILE_NAME);
+        Map<String, Image> images = new ConcurrentHashMap<>();
+        Map<Long, Integer> imageCounts = new ConcurrentHashMap<>();
+
+        if (Files.isRegularFile(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                Document document = gson.fromJson(reader, Document.class);
+                if (document != null && document.images != null) {
+                    document.images.forEach(it -> images.put(it.path, it));
+                }
+                if (document != null && document.imageCounts != null) {
+                    imageCounts.putAll(document.imageCounts);
+                }
+            } catch (IOException | JsonParseException e) {
+                Loggers.getLogger().warn("Ignore the broken manifest; all images will be verified again: {}", file);
+            }
+        }
+
+        return new DownloadManifest(directory, images, imageCounts);
+    }
+
+    /**
+     * Checks if the image was downloaded completely and its file is still intact.
+     *
+     * <p> The file is regarded as intact without being read if its size and modification time are
+     * the same as when it was completed. Otherwise, its checksum is compared, and the modification time
+     * is recorded again if the file is intact.
+     *
+     * @param imagePath path of image file
+     * @return whether the image doesn't need to be downloaded again
+     */
+    public boolean isCompleted(Path imagePath) {
+        String key = toKey(imagePath);
+        Image image = this.images.get(key);
+        if (image == null || image.state != State.COMPLETED) {
+            return false;
+        }
+
+        try {
+            if (Files.size(imagePath) != image.size) {
+                return false;
+            }
+
+            long modifiedAt = Files.getLastModifiedTime(imagePath).toMillis();
+            if (image.modifiedAt != null && image.modifiedAt == modifiedAt) {
+                return true;
+            }
+
+            if (!image.checksum.equals(checksum(imagePath))) {
+                return false;
+            }
+
+            this.images.replace(key, image, new Image(key, image.episodeId, image.number, image.size,
+                    modifiedAt, image.checksum, State.COMPLETED));
+            return true;
+        } catch (IOException e) {
+            // When the file is deleted or not readable.
+            return false;
+        }
+    }
+
+    /**
+     * Records the image that is going to be downloaded.
+     *
+     * @param episodeId episode id
+     * @param number    image number in the episode
+     * @param imagePath path of image file
+     */
+    public void begin(Long episodeId, int number, Path imagePath) {
+        String key = toKey(imagePath);
+        this.images.put(key, new Image(key, episodeId, number, 0, null, null, State.PENDING));
+    }
+
+    /**
+     * Records the image that has been downloaded.
+     *
+     * @param episodeId episode id
+     * @param number    image number in the episode
+     * @param imagePath path of image file
+     * @param image     downloaded image
+     */
+    public void complete(Long episodeId, int number, Path imagePath, DownloadedImage image) {
+        String key = toKey(imagePath);
+        this.images.put(key, new Image(key, episodeId, number, image.getSize(), getModifiedAt(imagePath),
+                image.getChecksum(), State.COMPLETED));
+    }
+
+    /**
+     * Returns the number of images of the episode recorded by {@link #putImageCount(Long, int)}.
+     *
+     * @param episodeId episode id
+     * @return number of images, or {@code null} if not recorded
+     */
+    @Nullable
+    public Integer getImageCount(Long episodeId) {
+        return this.imageCounts.get(episodeId);
+    }
+
+    /**
+     * Records the number of images of the episode.
+     *
+     * @param episodeId  episode id
+     * @param imageCount number of images
+     */
+    public void putImageCount(Long episodeId, int imageCount) {
+        this.imageCounts.put(episodeId, imageCount);
+    }
+
+    /**
+     * Writes the manifest to the directory if {@link #save()} has not been called for a while.
+     * Writing the whole manifest after every episode costs too much for a long series,
+     * so the records since the last save may be lost by a crash; their images are verified again.
+     */
+    public void saveIfDue() {
+        if (System.nanoTime() - this.savedAtNanos >= SAVE_INTERVAL.toNanos()) {
+            save();
+        }
+    }
+
+    /**
+     * Writes the manifest to the directory.
+     *
+     * <p> The manifest is written to a temporary file and synced to the disk first, and then replaces
+     * the old one, whose directory entry is synced as well. So a crash never leaves a half-written manifest.
+     */
+    public synchronized void save() {
+        List<Image> snapshot = new ArrayList<>(this.images.values());
+        snapshot.sort(comparing(it -> it.path));
+
+        Path file = this.directory.resolve(FILE_NAME);
+        Path tempFile = this.directory.resolve(FILE_NAME + ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+                gson.toJson(new Document(VERSION, snapshot, new TreeMap<>(this.imageCounts)), writer);
+                writer.flush();
+                channel.force(true);
+            }
+
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            new FileSyncBatch(this.directory).sync();
+
+            this.savedAtNanos = System.nanoTime();
+        } catch (IOException e) {
+            Loggers.getLogger().warn("Failed to save the manifest: {}", file, e);
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private String toKey(Path imagePath) {
+        return this.directory.relativize(imagePath).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Returns the modification time of the file, or {@code null} if failed to read it,
+     * in which case the file is verified with its checksum by the next run.
+     */
+    @Nullable
+    private static Long getModifiedAt(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String checksum(Path path) throws IOException {
+        HashingSource hashingSource = HashingSource.sha256(Okio.source(path));
+
+        try (BufferedSource source = Okio.buffer(hashingSource)) {
+            source.readAll(Okio.blackhole());
+        }
+
+        return hashingSource.hash().hex();
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    public enum State {
+        /**
+         * Image is going to be downloaded, its file may be missing or incomplete.
+         */
+        PENDING,
+
+        /**
+         * Image has been written to its file completely.
+         */
+        COMPLETED
+    }
+
+    @ToString
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class Document {
+        private int version;
+        private List<Image> images;
+        @Nullable
+        private Map<Long, Integer> imageCounts;
+    }
+
+    @Getter
+    @ToString
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class Image {
+        private String path;
+        private Long episodeId;
+        private int number;
+        private long size;
+        @Nullable
+        private Long modifiedAt;
+        @Nullable
+        private String checksum;
+        private State state;
+    }
+
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download;
+
+import io.github.imsejin.dl.lezhin.common.Loggers;
+import me.tongfei.progressbar.InteractiveConsoleProgressBarConsumer;
+import me.tongfei.progressbar.ProgressBar;
+import me.tongfei.progressbar.ProgressBarBuilder;
+import me.tongfei.progressbar.ProgressBarStyle;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.text.DecimalFormat;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Progress of all the episodes downloaded by a run
+ *
+ * <pre>
+ *     i_have_a_baby  14% [==>        ] 120/840 imgs (0:00:41 / 0:04:06) | 2.9 imgs/s ep 3/12, 12.3 MiB, 2.1 MiB/s
+ * </pre>
+ *
+ * <p> The workers only increment the counters, which never contend with each other however many they are.
+ * A single thread reads the counters periodically and renders them: on a progress bar if the standard output
+ * is a terminal, or on a log line otherwise, such as under cron.
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class DownloadProgress implements AutoCloseable {
+
+    private static final Duration RENDER_INTERVAL = Duration.ofMillis(250);
+
+    private static final Duration LOG_INTERVAL = Duration.ofSeconds(10);
+
+    /**
+     * Throughput is averaged over about this, so it follows the changes but doesn't flicker.
+     */
+    private static final Duration THROUGHPUT_WINDOW = Duration.ofSeconds(10);
+
+    private static final double MEBIBYTE = 1024 * 1024;
+
+    private final String taskName;
+
+    private final long startedAt = System.nanoTime();
+
+    private final LongAdder totalEpisodes = new LongAdder();
+
+    private final LongAdder completedEpisodes = new LongAdder();
+
+    private final LongAdder totalImages = new LongAdder();
+
+    private final LongAdder downloadedImages = new LongAdder();
+
+    private final LongAdder failedImages = new LongAdder();
+
+    private final LongAdder bytes = new LongAdder();
+
+    @Nullable
+    private final ProgressBar progressBar;
+
+    private final ScheduledExecutorService renderer;
+
+    private long lastRenderedAt = this.startedAt;
+
+    private long lastBytes;
+
+    private long lastImages;
+
+    private double bytesPerSecond = -1;
+
+    private double imagesPerSecond = -1;
+
+    @VisibleForTesting
+    DownloadProgress(String taskName, boolean interactive) {
+        this.taskName = taskName;
+        this.progressBar = interactive ? createProgressBar(taskName) : null;
+        this.renderer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "download-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long intervalMillis = (interactive ? RENDER_INTERVAL : LOG_INTERVAL).toMillis();
+        this.renderer.scheduleAtFixedRate(this::render, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts to show the progress, on a progress bar if the standard output is a terminal or on log lines.
+     *
+     * @param taskName name of task
+     * @return progress
+     */
+    public static DownloadProgress start(String taskName) {
+        return new DownloadProgress(taskName, System.console() != null);
+    }
+
+    /**
+     * Adds an episode to download.
+     *
+     * @param imageCount number of the images to download
+     */
+    public void addEpisode(int imageCount) {
+        this.totalEpisodes.increment();
+        this.totalImages.add(imageCount);
+    }
+
+    public void completeEpisode() {
+        this.completedEpisodes.increment();
+    }
+
+    /**
+     * @param size number of bytes of the image
+     */
+    public void onDownloaded(long size) {
+        this.downloadedImages.increment();
+        this.bytes.add(size);
+    }
+
+    public void onFailed() {
+        this.failedImages.increment();
+    }
+
+    /**
+     * Renders the last progress and stops.
+     */
+    @Override
+    public void close() {
+        this.renderer.shutdownNow();
+
+        if (this.progressBar == null) {
+            // Nothing to tell, if all the episodes are skipped.
+            if (this.totalEpisodes.sum() == 0) {
+                return;
+            }
+
+            synchronized (this) {
+                updateThroughput();
+                Loggers.getLogger().info("Downloaded {}: {} in {}", this.taskName, getSummary(),
+                        formatDuration(Duration.ofNanos(System.nanoTime() - this.startedAt)));
+            }
+        } else {
+            render();
+            this.progressBar.close();
+        }
+    }
+
+    /**
+     * Returns the progress like {@code ep 3/12, 120/840 imgs (14.3%), 12.3 MiB, 2.1 MiB/s, ETA 0:05:12}.
+     *
+     * @return summary of the progress
+     */
+    @VisibleForTesting
+    synchronized String getSummary() {
+        long total = this.totalImages.sum();
+        long done = this.downloadedImages.sum() + this.failedImages.sum();
+
+        StringBuilder sb = new StringBuilder(96)
+                .append("ep ").append(this.completedEpisodes.sum()).append('/').append(this.totalEpisodes.sum())
+                .append(", ").append(done).append('/').append(total).append(" imgs")
+                .append(String.format(" (%.1f%%)", total == 0 ? 0 : done * 100.0 / total))
+                .append(String.format(", %.1f MiB", this.bytes.sum() / MEBIBYTE))
+                .append(String.format(", %.1f MiB/s", Math.max(this.bytesPerSecond, 0) / MEBIBYTE));
+
+        long failed = this.failedImages.sum();
+        if (failed > 0) {
+            sb.append(", ").append(failed).append(" failed");
+        }
+
+        if (done < total) {
+            sb.append(", ETA ").append(this.imagesPerSecond > 0
+                    ? formatDuration(Duration.ofSeconds((long) Math.ceil((total - done) / this.imagesPerSecond)))
+                    : "?");
+        }
+
+        return sb.toString();
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    @VisibleForTesting
+    synchronized void render() {
+        updateThroughput();
+
+        if (this.progressBar == null) {
+            Loggers.getLogger().info("Downloading {}: {}", this.taskName, getSummary());
+            return;
+        }
+
+        long total = this.totalImages.sum();
+        this.progressBar.maxHint(total);
+        this.progressBar.stepTo(this.downloadedImages.sum() + this.failedImages.sum());
+        this.progressBar.setExtraMessage(String.format("ep %d/%d, %.1f MiB, %.1f MiB/s",
+                this.completedEpisodes.sum(), this.totalEpisodes.sum(),
+                this.bytes.sum() / MEBIBYTE, Math.max(this.bytesPerSecond, 0) / MEBIBYTE));
+    }
+
+    /**
+     * Updates the throughput with the exponentially weighted moving average of the last interval.
+     */
+    private void updateThroughput() {
+        long now = System.nanoTime();
+        long elapsedNanos = now - this.lastRenderedAt;
+        if (elapsedNanos <= 0) {
+            return;
+        }
+
+        long bytes = this.bytes.sum();
+        long images = this.downloadedImages.sum() + this.failedImages.sum();
+        double seconds = elapsedNanos / 1e9;
+        double bytesPerSecond = (bytes - this.lastBytes) / seconds;
+        double imagesPerSecond = (images - this.lastImages) / seconds;
+
+        if (this.bytesPerSecond < 0) {
+            this.bytesPerSecond = bytesPerSecond;
+            this.imagesPerSecond = imagesPerSecond;
+        } else {
+            // The weight depends on the interval, so the average spans the same time either way.
+            double weight = 1 - Math.exp(-(double) elapsedNanos / THROUGHPUT_WINDOW.toNanos());
+            this.bytesPerSecond += weight * (bytesPerSecond - this.bytesPerSecond);
+            this.imagesPerSecond += weight * (imagesPerSecond - this.imagesPerSecond);
+        }
+
+        this.lastRenderedAt = now;
+        this.lastBytes = bytes;
+        this.lastImages = images;
+    }
+
+    private static String formatDuration(Duration duration) {
+        return String.format("%d:%02d:%02d", duration.toHours(), duration.toMinutesPart(), duration.toSecondsPart());
+    }
+
+    private static ProgressBar createProgressBar(String taskName) {
+        ProgressBarBuilder builder = new ProgressBarBuilder();
+        builder.setTaskName(taskName);
+        // Unknown until the first episode is added.
+        builder.setInitialMax(-1);
+        builder.setUpdateIntervalMillis((int) RENDER_INTERVAL.toMillis());
+        builder.setConsumer(new InteractiveConsoleProgressBarConsumer(System.out));
+        builder.setStyle(ProgressBarStyle.ASCII);
+        builder.setUnit(" imgs", 1);
+        builder.showSpeed(new DecimalFormat("| #.0"));
+        builder.setSpeedUnit(ChronoUnit.SECONDS);
+
+        return builder.build();
+    }
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download;
+
+import io.github.imsejin.common.assertion.Asserts;
+import io.github.imsejin.dl.lezhin.common.Loggers;
+import io.github.imsejin.dl.lezhin.metrics.MetricRegistry;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scheduler that runs download tasks on a bounded number of workers
+ *
+ * <p> Tasks of several episodes can be in flight at once, so an episode boundary is not a barrier.
+ * The number of queued and running tasks is bounded as well; when the bound is reached,
+ * {@link #submit(Callable)} blocks the caller until one of the tasks completes. This keeps the producer,
+ * which resolves the next episodes, just a little ahead of the workers.
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class DownloadScheduler implements AutoCloseable {
+
+    @Getter
+    private final int concurrency;
+
+    private final Semaphore permits;
+
+    private final ExecutorService executor;
+
+    /**
+     * Number of the tasks submitted but not started yet.
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * Number of the workers running a task.
+     */
+    private final AtomicInteger active = new AtomicInteger();
+
+    private DownloadScheduler(int concurrency, int permits, ExecutorService executor) {
+        this.concurrency = concurrency;
+        this.permits = new Semaphore(permits);
+        this.executor = executor;
+
+        MetricRegistry registry = MetricRegistry.getDefault();
+        registry.gauge("lezhin_download_queue_depth", this.queued::get);
+        registry.gauge("lezhin_download_active_workers", this.active::get);
+    }
+
+    /**
+     * Creates a scheduler that runs tasks on a fixed number of platform threads.
+     *
+     * @param concurrency number of workers
+     * @return scheduler
+     */
+    public static DownloadScheduler ofPlatformThreads(int concurrency) {
+        validate(concurrency);
+
+        // Allows as many tasks as workers to wait in the queue, so that workers don't starve
+        // while the producer is preparing the next episode.
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, new WorkerThreadFactory());
+        return new DownloadScheduler(concurrency, concurrency * 2, executor);
+    }
+
+    /**
+     * Creates a scheduler that runs each task on its own virtual thread.
+     *
+     * <p> Blocking I/O doesn't occupy a carrier thread, so the number of tasks in flight
+     * is limited only by the concurrency. If the runtime doesn't support virtual threads,
+     * this falls back to {@link #ofPlatformThreads(int)}.
+     *
+     * @param concurrency maximum number of tasks in flight
+     * @return scheduler
+     */
+    public static DownloadScheduler ofVirtualThreads(int concurrency) {
+        validate(concurrency);
+
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        if (executor == null) {
+            Loggers.getLogger().info("Virtual threads are not available on Java {}; use platform threads instead",
+                    Runtime.version().feature());
+            return ofPlatformThreads(concurrency);
+        }
+
+        // There is no queue, every submitted task starts on a new thread.
+        return new DownloadScheduler(concurrency, concurrency, executor);
+    }
+
+    /**
+     * Submits a task. If the scheduler has too many tasks to run, this waits for a task to complete.
+     *
+     * @param task task to run on worker
+     * @param <T>  type of result
+     * @return future of the result
+     * @throws IllegalStateException if the current thread is interrupted while waiting
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        try {
+            this.permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a worker", e);
+        }
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        this.queued.incrementAndGet();
+
+        try {
+            this.executor.execute(() -> {
+                this.queued.decrementAndGet();
+                this.active.incrementAndGet();
+
+                try {
+                    future.complete(task.call());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    this.active.decrementAndGet();
+                    this.permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            this.queued.decrementAndGet();
+            this.permits.release();
+            throw e;
+        }
+
+        return future;
+    }
+
+    /**
+     * Waits for all the submitted tasks to complete and releases the workers.
+     */
+    @Override
+    public void close() {
+        this.executor.shutdown();
+
+        try {
+            while (!this.executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // Keeps waiting, downloading a long series can take a while.
+            }
+        } catch (InterruptedException e) {
+            this.executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static void validate(int concurrency) {
+        Asserts.that(concurrency)
+                .describedAs("DownloadScheduler.concurrency must be positive: {0}", concurrency)
+                .isPositive();
+    }
+
+    /**
+     * Returns {@code Executors.newVirtualThreadPerTaskExecutor()} or {@code null} if not supported.
+     *
+     * <p> This is invoked reflectively to keep compatibility with Java 17.
+     */
+    @Nullable
+    @VisibleForTesting
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Java 17 doesn't have the method, Java 19 and 20 throw UnsupportedOperationException
+            // wrapped in InvocationTargetException without '--enable-preview'.
+            return null;
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "download-" + this.sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
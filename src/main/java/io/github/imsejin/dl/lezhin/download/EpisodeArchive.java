@@ -0,0 +1,257 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download;
+
+import io.github.imsejin.dl.lezhin.common.Loggers;
+import lombok.Getter;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * CBZ archive of an episode, which is written while its images are downloaded
+ *
+ * <p> Workers download the images to the staging files next to the archive, in any order.
+ * As soon as the next image in order arrives, it and the following ones already arrived are
+ * appended to the archive and their staging files are deleted. So the entries are always in order
+ * of their numbers, and at most the images downloaded ahead of a slow one are staged.
+ * Only one worker appends at a time, outside the lock, so the other workers just mark their images
+ * as staged and go on to download the next ones.
+ *
+ * <p> The archive is written to a hidden part file, which is renamed to the archive after
+ * the central directory is written and synced. A part file left by an interrupted run is resumed:
+ * its intact entries are kept and only the rest of the images are downloaded.
+ *
+ * <pre>
+ *     0001 - Prologue.cbz              : completed archive
+ *     .0001 - Prologue.cbz.part        : archive being written
+ *     .0001 - Prologue.cbz.007.webp    : image downloaded ahead of its turn
+ * </pre>
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class EpisodeArchive implements Closeable {
+
+    /**
+     * Extension of the archive, which is a ZIP file of images.
+     */
+    public static final String EXTENSION = "cbz";
+
+    private static final String PART_FILE_SUFFIX = ".part";
+
+    private final Path path;
+
+    private final Path partFile;
+
+    private final int imageCount;
+
+    private final IntFunction<String> entryNames;
+
+    private final StoredZipWriter writer;
+
+    /**
+     * Numbers of the images staged but not appended yet.
+     */
+    private final BitSet staged = new BitSet();
+
+    /**
+     * Number of the image to append next; all the images before it are in the archive.
+     */
+    @Getter
+    private int nextNumber;
+
+    /**
+     * Whether a worker is appending the staged images.
+     */
+    private boolean appending;
+
+    private boolean closed;
+
+    /**
+     * Opens the archive of an episode, resuming the part file if it exists.
+     *
+     * @param path       archive file
+     * @param imageCount number of the images of the episode
+     * @param entryNames names of the entries by the number of image, starting with 1
+     * @throws IOException if failed to open the part file
+     */
+    public EpisodeArchive(Path path, int imageCount, IntFunction<String> entryNames) throws IOException {
+        this.path = path;
+        this.partFile = path.resolveSibling("." + path.getFileName() + PART_FILE_SUFFIX);
+        this.imageCount = imageCount;
+        this.entryNames = entryNames;
+
+        // Entries which are not the images of this episode in order can't be resumed.
+        StoredZipWriter writer = StoredZipWriter.open(this.partFile);
+        List<String> names = writer.getEntryNames();
+        int resumed = 0;
+        int max = Math.min(names.size(), imageCount);
+        while (resumed < max && names.get(resumed).equals(entryNames.apply(resumed + 1))) {
+            resumed++;
+        }
+
+        if (resumed < names.size()) {
+            Loggers.getLogger().debug("Start over {}: it has unexpected entries {}",
+                    this.partFile, names.subList(resumed, names.size()));
+            writer.close();
+            Files.delete(this.partFile);
+
+            writer = StoredZipWriter.open(this.partFile);
+            resumed = 0;
+        }
+
+        this.writer = writer;
+        this.nextNumber = resumed + 1;
+    }
+
+    /**
+     * Returns whether the archive of the episode is completed.
+     *
+     * @param path archive file
+     * @return whether the archive exists
+     */
+    public static boolean isCompleted(Path path) {
+        return Files.isRegularFile(path);
+    }
+
+    /**
+     * Returns the file to download the image to.
+     *
+     * @param number number of the image
+     * @return staging file
+     */
+    public Path getStagingFile(int number) {
+        return this.path.resolveSibling("." + this.path.getFileName() + "." + this.entryNames.apply(number));
+    }
+
+    /**
+     * Appends the image downloaded to its staging file, if it is the next in order.
+     * Otherwise, it waits for the images before it.
+     *
+     * <p> If another worker is appending, the image is left to it.
+     *
+     * @param number number of the image
+     * @throws IOException if failed to append
+     */
+    public void add(int number) throws IOException {
+        synchronized (this) {
+            if (this.closed || number < this.nextNumber) {
+                return;
+            }
+
+            this.staged.set(number);
+
+            if (this.appending || !this.staged.get(this.nextNumber)) {
+                return;
+            }
+            this.appending = true;
+        }
+
+        try {
+            int next;
+            while ((next = pollNextNumber()) > 0) {
+                Path stagingFile = getStagingFile(next);
+                this.writer.add(this.entryNames.apply(next), stagingFile);
+                Files.delete(stagingFile);
+
+                synchronized (this) {
+                    this.staged.clear(next);
+                    this.nextNumber++;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // The image failed to append is still staged, so the next worker tries it again.
+            synchronized (this) {
+                this.appending = false;
+                notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns whether all the images are in the archive.
+     *
+     * @return whether completed
+     */
+    public synchronized boolean isFull() {
+        return this.nextNumber > this.imageCount;
+    }
+
+    /**
+     * Completes the archive if all the images are in it. Otherwise, keeps the part file to resume
+     * and deletes the images staged after a missing one, which will be downloaded again.
+     *
+     * @throws IOException if failed to complete the archive
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        while (this.appending) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the images to be appended");
+            }
+        }
+
+        try (StoredZipWriter writer = this.writer) {
+            if (isFull()) {
+                writer.finish();
+            }
+        } finally {
+            for (int n = this.staged.nextSetBit(0); n >= 0; n = this.staged.nextSetBit(n + 1)) {
+                Files.deleteIfExists(getStagingFile(n));
+            }
+        }
+
+        if (isFull()) {
+            Files.move(this.partFile, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            new FileSyncBatch(this.path.getParent()).sync();
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the number of the image to append next if it is staged. Otherwise, stops appending and returns 0.
+     */
+    private synchronized int pollNextNumber() {
+        if (this.staged.get(this.nextNumber)) {
+            return this.nextNumber;
+        }
+
+        this.appending = false;
+        notifyAll();
+        return 0;
+    }
+
+}
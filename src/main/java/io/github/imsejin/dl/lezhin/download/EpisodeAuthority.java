@@ -0,0 +1,111 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download;
+
+import io.github.imsejin.dl.lezhin.api.auth.model.Authority;
+import io.github.imsejin.dl.lezhin.common.Loggers;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Authority for viewing an episode, shared by the workers downloading its images
+ *
+ * <p> A long episode on a slow link can outlive the signature of its authority. When the authority
+ * is about to expire, or the CDN rejects it, the first worker requests a new one and the other workers
+ * reuse it, so an episode requests the authority only once per expiration.
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class EpisodeAuthority {
+
+    /**
+     * Authority is refreshed this much earlier than it expires, so that an image request
+     * never reaches the CDN with an expired signature.
+     */
+    @VisibleForTesting
+    static final Duration EXPIRATION_MARGIN = Duration.ofSeconds(15);
+
+    /**
+     * Maximum number of refreshes, which prevents requesting the authority over and over
+     * when the CDN rejects it for other reasons.
+     */
+    @VisibleForTesting
+    static final int MAX_REFRESH_COUNT = 3;
+
+    private final Supplier<Authority> requester;
+
+    private volatile Authority authority;
+
+    private int refreshCount;
+
+    /**
+     * @param authority initial authority
+     * @param requester function that requests a new authority for the episode
+     */
+    public EpisodeAuthority(Authority authority, Supplier<Authority> requester) {
+        this.authority = authority;
+        this.requester = requester;
+    }
+
+    /**
+     * Returns the authority, which is refreshed if it is about to expire.
+     *
+     * @return authority
+     */
+    public Authority get() {
+        Authority current = this.authority;
+        if (!current.isExpired(EXPIRATION_MARGIN)) {
+            return current;
+        }
+
+        Authority refreshed = refresh(current);
+        return refreshed == null ? current : refreshed;
+    }
+
+    /**
+     * Replaces the stale authority with a new one. If another worker has already replaced it,
+     * returns that one without requesting.
+     *
+     * @param stale authority rejected or about to expire
+     * @return new authority or {@code null} if refreshed too many times
+     */
+    @Nullable
+    public synchronized Authority refresh(Authority stale) {
+        if (this.authority != stale) {
+            return this.authority;
+        }
+
+        if (this.refreshCount >= MAX_REFRESH_COUNT) {
+            return null;
+        }
+
+        this.refreshCount++;
+        Loggers.getLogger().debug("Refresh authority of episode[{}] ({}/{})",
+                stale.getEpisodeId(), this.refreshCount, MAX_REFRESH_COUNT);
+
+        Authority refreshed = this.requester.get();
+        this.authority = refreshed;
+
+        return refreshed;
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download;
+
+import org.jetbrains.annotations.VisibleForTesting;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Files of a directory to be synced to the disk at once
+ *
+ * <p> Syncing every image as soon as it is written costs a disk flush per image, which is slow
+ * especially on spinning disks. Instead, the images of an episode are collected and synced together
+ * with their directory when the episode is done, so that their names survive a crash as well.
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class FileSyncBatch {
+
+    private final Path directory;
+
+    private final Forcer forcer;
+
+    private final Queue<Path> files = new ConcurrentLinkedQueue<>();
+
+    public FileSyncBatch(Path directory) {
+        this(directory, FileSyncBatch::force);
+    }
+
+    @VisibleForTesting
+    FileSyncBatch(Path directory, Forcer forcer) {
+        this.directory = directory;
+        this.forcer = forcer;
+    }
+
+    /**
+     * Adds a file written in the directory.
+     *
+     * @param file file to be synced
+     */
+    public void add(Path file) {
+        this.files.add(file);
+    }
+
+    /**
+     * Syncs the added files and then the directory.
+     *
+     * @throws IOException if failed to sync a file
+     */
+    public void sync() throws IOException {
+        Path file;
+        while ((file = this.files.poll()) != null) {
+            this.forcer.force(file, StandardOpenOption.WRITE);
+        }
+
+        // Syncs the directory entries that are changed by moving the files.
+        try {
+            this.forcer.force(this.directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            // Windows doesn't allow a directory to be opened as a file,
+            // but NTFS journals the directory entries by itself.
+        }
+    }
+
+    private static void force(Path path, OpenOption option) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, option)) {
+            channel.force(true);
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    /**
+     * Forces the content of a path to the disk.
+     */
+    @FunctionalInterface
+    interface Forcer {
+        void force(Path path, OpenOption option) throws IOException;
+    }
+
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download;
+
+import io.github.imsejin.common.assertion.Asserts;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prober that finds the number of images of an episode by asking the CDN whether the images exist
+ *
+ * <p> The images of an episode are numbered from 1 without a gap, so the number of images is the last
+ * existing number. This probes the numbers in rounds, each of which requests several numbers at the same
+ * time. It gallops with the powers of two until a number is missing, and then splits the range between
+ * the last existing and the first missing number evenly until they are adjacent. An episode of about
+ * a hundred images takes three or four rounds.
+ *
+ * <pre>
+ *     round 1: 1, 2, 4, 8, 16, 32, 64, 128  ->  64 exists, 128 is missing
+ *     round 2: 71, 78, 85, 92, 99, 106, 113, 120  ->  85 exists, 92 is missing
+ *     round 3: 86, 87, 88, 89, 90, 91  ->  88 exists, 89 is missing
+ * </pre>
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class ImageCountProber {
+
+    /**
+     * Upper bound of the number of images, which stops galloping on a broken CDN that says everything exists.
+     */
+    @VisibleForTesting
+    static final int MAX_IMAGE_COUNT = 1 << 14;
+
+    private final int concurrency;
+
+    /**
+     * @param concurrency number of images probed at the same time
+     */
+    public ImageCountProber(int concurrency) {
+        Asserts.that(concurrency)
+                .describedAs("ImageCountProber.concurrency must be positive: {0}", concurrency)
+                .isPositive();
+
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Finds the number of images.
+     *
+     * @param probe probe of an image
+     * @return number of images, or zero if the first image doesn't exist
+     * @throws IOException if failed to probe an image
+     */
+    public int probe(Probe probe) throws IOException {
+        AtomicInteger sequence = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(this.concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "image-probe-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            return search(probe, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private int search(Probe probe, ExecutorService executor) throws IOException {
+        // The last number known to exist, and the first number known to be missing.
+        int lo = 0;
+        int hi = -1;
+
+        // Gallops until a missing number is found.
+        for (long next = 1; hi < 0; ) {
+            if (next > MAX_IMAGE_COUNT) {
+                throw new IOException("Too many images, more than " + MAX_IMAGE_COUNT);
+            }
+
+            List<Integer> numbers = new ArrayList<>(this.concurrency);
+            for (int i = 0; i < this.concurrency && next <= MAX_IMAGE_COUNT; i++, next *= 2) {
+                numbers.add((int) next);
+            }
+
+            boolean[] exists = probeAll(probe, numbers, executor);
+            for (int i = 0; i < numbers.size(); i++) {
+                if (!exists[i]) {
+                    hi = numbers.get(i);
+                    break;
+                }
+
+                lo = numbers.get(i);
+            }
+        }
+
+        // Splits the range until the last existing number is adjacent to the first missing number.
+        while (hi - lo > 1) {
+            TreeSet<Integer> candidates = new TreeSet<>();
+            for (int i = 1; i <= this.concurrency; i++) {
+                int number = lo + (int) ((long) (hi - lo) * i / (this.concurrency + 1));
+                if (number > lo && number < hi) {
+                    candidates.add(number);
+                }
+            }
+
+            List<Integer> numbers = new ArrayList<>(candidates);
+            boolean[] exists = probeAll(probe, numbers, executor);
+
+            for (int i = 0; i < numbers.size(); i++) {
+                if (!exists[i]) {
+                    hi = Math.min(hi, numbers.get(i));
+                }
+            }
+
+            // The images are expected to have no gap; an existing number after a missing one is ignored.
+            for (int i = 0; i < numbers.size(); i++) {
+                if (exists[i] && numbers.get(i) < hi) {
+                    lo = Math.max(lo, numbers.get(i));
+                }
+            }
+        }
+
+        return lo;
+    }
+
+    private static boolean[] probeAll(Probe probe, List<Integer> numbers, ExecutorService executor)
+            throws IOException {
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>(numbers.size());
+        for (int number : numbers) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return probe.exists(number);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor));
+        }
+
+        boolean[] exists = new boolean[numbers.size()];
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                exists[i] = futures.get(i).join();
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+
+            throw e;
+        }
+
+        return exists;
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    /**
+     * Probe of an image
+     */
+    @FunctionalInterface
+    public interface Probe {
+        /**
+         * Checks if the image exists.
+         *
+         * @param number number of image, starting with 1
+         * @return whether the image exists
+         * @throws IOException if failed to check
+         */
+        boolean exists(int number) throws IOException;
+    }
+
+}
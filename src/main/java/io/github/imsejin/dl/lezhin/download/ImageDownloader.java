@@ -0,0 +1,329 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download;
+
+import io.github.imsejin.dl.lezhin.argument.impl.Concurrency;
+import io.github.imsejin.dl.lezhin.download.AdaptiveConcurrencyLimiter.Outcome;
+import io.github.imsejin.dl.lezhin.exception.HttpResponseException;
+import io.github.imsejin.dl.lezhin.http.interceptor.RetryInterceptor;
+import io.github.imsejin.dl.lezhin.http.interceptor.ThrottleInterceptor;
+import io.github.imsejin.dl.lezhin.metrics.MetricRegistry;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSource;
+import okio.HashingSink;
+import okio.Okio;
+import okio.Source;
+import org.jetbrains.annotations.Nullable;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Downloader of episode images
+ *
+ * <p> Images are fetched by the HTTP client dedicated to the CDN of contents, not by the one of
+ * {@link io.github.imsejin.dl.lezhin.api.BaseService} that sends the access token to the API server.
+ * All the images are requested to the same host, so the client keeps the connections alive and
+ * multiplexes requests on a connection with HTTP/2. It saves a TLS handshake per image.
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class ImageDownloader {
+
+    private static final String TEMP_FILE_PREFIX = ".";
+
+    private static final String TEMP_FILE_SUFFIX = ".part";
+
+    private static final RetryInterceptor retryInterceptor = new RetryInterceptor();
+
+    private static final OkHttpClient httpClient;
+
+    static {
+        // This is applied to asynchronous calls only;
+        // synchronous calls are bounded by the workers of DownloadScheduler.
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(Concurrency.MAX_VALUE);
+        dispatcher.setMaxRequestsPerHost(Concurrency.MAX_VALUE);
+
+        httpClient = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                // Keeps an idle connection per worker for 5 minutes,
+                // which is long enough to prepare the next episode.
+                .connectionPool(new ConnectionPool(Concurrency.MAX_VALUE, 5, TimeUnit.MINUTES))
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                // Pauses all the workers while the CDN is rate-limiting, instead of losing images.
+                .addInterceptor(retryInterceptor)
+                .addInterceptor(new ThrottleInterceptor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .readTimeout(Duration.ofSeconds(15))
+                .build();
+    }
+
+    @Nullable
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    @Nullable
+    private final BlobStore blobStore;
+
+    public ImageDownloader() {
+        this(null, null);
+    }
+
+    /**
+     * @param limiter limiter of the images downloaded at the same time, or {@code null} if not limited
+     */
+    public ImageDownloader(@Nullable AdaptiveConcurrencyLimiter limiter) {
+        this(limiter, null);
+    }
+
+    /**
+     * @param limiter   limiter of the images downloaded at the same time, or {@code null} if not limited
+     * @param blobStore store to keep the same images once, or {@code null} if not deduplicated
+     */
+    public ImageDownloader(@Nullable AdaptiveConcurrencyLimiter limiter, @Nullable BlobStore blobStore) {
+        this.limiter = limiter;
+        this.blobStore = blobStore;
+    }
+
+    /**
+     * Downloads an image and writes it to the destination.
+     *
+     * <p> Response body is streamed to a temporary file, so the whole image is never held in memory.
+     * The checksum is computed on the way. After the whole body is written, the temporary file is
+     * atomically moved to the destination. The file is not synced to the disk here;
+     * see {@link FileSyncBatch}. If this has a blob store, the destination is a link to the stored image.
+     * If reading the body fails with a transient problem, the temporary file is deleted and the image is
+     * requested again, with the backoff and the circuit breaker of the CDN.
+     *
+     * <p> If this has a limiter, waits for its permit and lets it know how the download went.
+     *
+     * @param url  image URL
+     * @param dest file to write
+     * @return written image
+     * @throws HttpResponseException if server responds with unsuccessful status code
+     * @throws IOException           if failed to request or write the image
+     */
+    public DownloadedImage download(URL url, Path dest) throws IOException {
+        if (this.limiter == null) {
+            return request(url, dest);
+        }
+
+        try {
+            this.limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a permit to download");
+        }
+
+        long startedAt = System.nanoTime();
+        Outcome outcome = Outcome.DROPPED;
+
+        try {
+            DownloadedImage image = request(url, dest);
+            outcome = Outcome.SUCCESS;
+
+            return image;
+        } catch (HttpResponseException e) {
+            // Throttling and server errors are signals of congestion, but the others are not.
+            int code = e.getCode();
+            outcome = code == 429 || code >= 500 ? Outcome.DROPPED : Outcome.IGNORED;
+            throw e;
+        } finally {
+            this.limiter.release(outcome, System.nanoTime() - startedAt);
+        }
+    }
+
+    /**
+     * Checks if the image exists, requesting only its headers.
+     *
+     * <p> The CDN responds to a missing image with 403 as well as 404, because it doesn't reveal
+     * which objects exist; so both are regarded as missing.
+     *
+     * @param url image URL
+     * @return whether the image exists
+     * @throws HttpResponseException if server responds with other unsuccessful status code
+     * @throws IOException           if failed to request
+     */
+    public boolean exists(URL url) throws IOException {
+        return checkPresence(url) == Presence.PRESENT;
+    }
+
+    /**
+     * Checks the presence of the image, requesting only its headers.
+     *
+     * @param url image URL
+     * @return presence of the image
+     * @throws HttpResponseException if server responds with other unsuccessful status code
+     * @throws IOException           if failed to request
+     */
+    public Presence checkPresence(URL url) throws IOException {
+        Request request = new Request.Builder().url(url).head().build();
+
+        try (Response response = httpClient.newCall(request).execute()) {
+            MetricRegistry.getDefault().counter("lezhin_image_probes_total").increment();
+
+            int code = response.code();
+            if (response.isSuccessful()) {
+                return Presence.PRESENT;
+            }
+            if (code == 404) {
+                return Presence.MISSING;
+            }
+            if (code == 403) {
+                return Presence.FORBIDDEN;
+            }
+
+            throw new HttpResponseException(code, "Unexpected response of image: %d %s", code, url.getPath());
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private DownloadedImage request(URL url, Path dest) throws IOException {
+        MetricRegistry registry = MetricRegistry.getDefault();
+        long startedAt = System.nanoTime();
+
+        try {
+            DownloadedImage image = transfer(url, dest);
+
+            registry.histogram("lezhin_image_download_duration_seconds").recordSince(startedAt);
+            registry.counter("lezhin_image_download_bytes_total").add(image.getSize());
+            registry.counter("lezhin_image_downloads_total", "outcome", "success").increment();
+
+            return image;
+        } catch (IOException e) {
+            registry.counter("lezhin_image_downloads_total", "outcome", "failure").increment();
+            throw e;
+        }
+    }
+
+    private DownloadedImage transfer(URL url, Path dest) throws IOException {
+        Request request = new Request.Builder().url(url).get().build();
+
+        // The interceptor retries the request until the response headers, but not the failures of the body.
+        return retryInterceptor.retry(request, () -> transfer(request, dest), BodyReadException.class::isInstance);
+    }
+
+    private DownloadedImage transfer(Request request, Path dest) throws IOException {
+        try (Response response = httpClient.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new HttpResponseException(response.code(), "Unexpected response of image: %d %s",
+                        response.code(), request.url().encodedPath());
+            }
+
+            // Writes to a temporary file next to the destination, so the destination never has a truncated image.
+            Path tempFile = dest.resolveSibling(TEMP_FILE_PREFIX + dest.getFileName() + TEMP_FILE_SUFFIX);
+
+            try {
+                HashingSink hashingSink = HashingSink.sha256(Okio.sink(tempFile));
+
+                long size;
+                try (BufferedSink sink = Okio.buffer(hashingSink)) {
+                    size = sink.writeAll(new BodySource(body.source()));
+                }
+
+                String checksum = hashingSink.hash().hex();
+                if (this.blobStore != null) {
+                    this.blobStore.store(tempFile, checksum);
+                }
+
+                Files.move(tempFile, dest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                return new DownloadedImage(size, checksum);
+            } catch (IOException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    /**
+     * Source of response body, which tells the failures of reading it from the ones of writing the file.
+     */
+    private static final class BodySource extends ForwardingSource {
+        private BodySource(Source delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            try {
+                return super.read(sink, byteCount);
+            } catch (IOException e) {
+                // Retrying an interrupted download would ignore the cancellation, but a timeout is transient.
+                if (e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException)) {
+                    throw e;
+                }
+
+                throw new BodyReadException(e);
+            }
+        }
+    }
+
+    /**
+     * Exception thrown when reading response body fails, such as a read timeout or a connection reset.
+     */
+    private static final class BodyReadException extends IOException {
+        private BodyReadException(IOException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    /**
+     * Presence of an image on the CDN
+     */
+    public enum Presence {
+        /**
+         * The image exists.
+         */
+        PRESENT,
+
+        /**
+         * The image doesn't exist.
+         */
+        MISSING,
+
+        /**
+         * The image doesn't exist, or the URL is not signed by a valid authority.
+         */
+        FORBIDDEN
+    }
+
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download;
+
+import io.github.imsejin.common.assertion.Asserts;
+import lombok.Getter;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Writer of a ZIP file whose entries are stored without compression
+ *
+ * <p> Images such as webp and jpg are already compressed, so deflating them only costs CPU.
+ * Each entry is written with its size and CRC-32 in the local header, which makes the file readable
+ * from the beginning even before the central directory is written at {@link #finish()}. So a file
+ * left by an interrupted run is recovered by scanning the entries, and more entries are appended to it.
+ *
+ * <p> All the entries have the same timestamp, so the same images always make the same file.
+ *
+ * @since 3.2.0
+ */
+@NotThreadSafe
+public final class StoredZipWriter implements Closeable {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    private static final int LOCAL_HEADER_SIZE = 30;
+
+    /**
+     * Version 1.0 is enough for stored entries.
+     */
+    private static final short VERSION = 10;
+
+    /**
+     * Names of the entries are encoded in UTF-8.
+     */
+    private static final short UTF8_FLAG = 0x0800;
+
+    /**
+     * 1980-01-01 00:00:00 in MS-DOS format, which is the earliest time of ZIP.
+     */
+    private static final short DOS_DATE = 0x0021;
+
+    private static final short DOS_TIME = 0;
+
+    /**
+     * Without ZIP64, a file can't have more entries than this.
+     */
+    private static final int MAX_ENTRIES = 0xFFFF;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+
+    private final List<Entry> entries;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    private StoredZipWriter(FileChannel channel, List<Entry> entries) {
+        this.channel = channel;
+        this.entries = entries;
+    }
+
+    /**
+     * Opens the file to write. If the file has entries written before, keeps the intact ones
+     * and discards the rest, such as a truncated entry or a central directory.
+     *
+     * @param path ZIP file
+     * @return writer positioned after the last intact entry
+     * @throws IOException if failed to open or read the file
+     */
+    public static StoredZipWriter open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        try {
+            List<Entry> entries = recover(channel);
+            long end = entries.isEmpty() ? 0 : entries.get(entries.size() - 1).getEnd();
+            channel.truncate(end);
+            channel.position(end);
+
+            return new StoredZipWriter(channel, entries);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the names of the entries in the order they are written.
+     *
+     * @return names of the entries
+     */
+    public List<String> getEntryNames() {
+        List<String> names = new ArrayList<>(this.entries.size());
+        for (Entry entry : this.entries) {
+            names.add(entry.getName());
+        }
+
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Appends the file as an entry.
+     *
+     * @param name name of the entry
+     * @param file file to store
+     * @throws IOException if failed to read the file or write the entry
+     */
+    public void add(String name, Path file) throws IOException {
+        Asserts.that(this.entries.size())
+                .describedAs("StoredZipWriter can't have more than {0} entries", MAX_ENTRIES)
+                .isLessThan(MAX_ENTRIES);
+
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        long offset = this.channel.position();
+
+        try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = source.size();
+            Asserts.that(size)
+                    .describedAs("StoredZipWriter can't store a file larger than 4 GiB: {0}", file)
+                    .isLessThan(0xFFFFFFFFL);
+
+            // The local header needs CRC-32, so reads the file twice; the second read is from the page cache.
+            CRC32 crc = new CRC32();
+            ByteBuffer chunk = ByteBuffer.allocate(BUFFER_SIZE);
+            while (source.read(chunk) > 0) {
+                chunk.flip();
+                crc.update(chunk);
+                chunk.clear();
+            }
+
+            Entry entry = new Entry(name, offset, (int) crc.getValue(), size, nameBytes.length);
+            writeLocalHeader(entry, nameBytes);
+
+            long transferred = 0;
+            while (transferred < size) {
+                transferred += source.transferTo(transferred, size - transferred, this.channel);
+            }
+            this.channel.position(offset + LOCAL_HEADER_SIZE + nameBytes.length + size);
+
+            this.entries.add(entry);
+        } catch (IOException e) {
+            // Discards the partial entry.
+            this.channel.truncate(offset);
+            this.channel.position(offset);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the central directory and syncs the file to the disk. No entry can be added after this.
+     *
+     * @throws IOException if failed to write
+     */
+    public void finish() throws IOException {
+        long offset = this.channel.position();
+
+        for (Entry entry : this.entries) {
+            byte[] nameBytes = entry.getName().getBytes(StandardCharsets.UTF_8);
+            this.buffer.clear();
+            this.buffer.putInt(CENTRAL_HEADER_SIGNATURE)
+                    .putShort(VERSION)
+                    .putShort(VERSION)
+                    .putShort(UTF8_FLAG)
+                    .putShort((short) 0)
+                    .putShort(DOS_TIME)
+                    .putShort(DOS_DATE)
+                    .putInt(entry.getCrc())
+                    .putInt((int) entry.getSize())
+                    .putInt((int) entry.getSize())
+                    .putShort((short) nameBytes.length)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putInt(0)
+                    .putInt((int) entry.getOffset())
+                    .put(nameBytes);
+            flushBuffer();
+        }
+
+        long size = this.channel.position() - offset;
+
+        this.buffer.clear();
+        this.buffer.putInt(END_SIGNATURE)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) this.entries.size())
+                .putShort((short) this.entries.size())
+                .putInt((int) size)
+                .putInt((int) offset)
+                .putShort((short) 0);
+        flushBuffer();
+
+        this.channel.force(true);
+    }
+
+    /**
+     * Syncs the entries written so far to the disk and closes the file.
+     *
+     * @throws IOException if failed to sync or close
+     */
+    @Override
+    public void close() throws IOException {
+        try (FileChannel channel = this.channel) {
+            if (channel.isOpen()) {
+                channel.force(true);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private void writeLocalHeader(Entry entry, byte[] nameBytes) throws IOException {
+        this.buffer.clear();
+        this.buffer.putInt(LOCAL_HEADER_SIGNATURE)
+                .putShort(VERSION)
+                .putShort(UTF8_FLAG)
+                .putShort((short) 0)
+                .putShort(DOS_TIME)
+                .putShort(DOS_DATE)
+                .putInt(entry.getCrc())
+                .putInt((int) entry.getSize())
+                .putInt((int) entry.getSize())
+                .putShort((short) nameBytes.length)
+                .putShort((short) 0)
+                .put(nameBytes);
+        flushBuffer();
+    }
+
+    private void flushBuffer() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+    }
+
+    /**
+     * Scans the entries from the beginning, until an entry is truncated or corrupted.
+     */
+    private static List<Entry> recover(FileChannel channel) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        long fileSize = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer chunk = ByteBuffer.allocate(BUFFER_SIZE);
+
+        long offset = 0;
+        while (offset + LOCAL_HEADER_SIZE <= fileSize) {
+            header.clear();
+            readFully(channel, header, offset);
+            if (header.getInt(0) != LOCAL_HEADER_SIGNATURE || header.getShort(8) != 0) {
+                break;
+            }
+
+            int crc = header.getInt(14);
+            long size = Integer.toUnsignedLong(header.getInt(22));
+            int nameLength = Short.toUnsignedInt(header.getShort(26));
+            int extraLength = Short.toUnsignedInt(header.getShort(28));
+            long dataOffset = offset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+            if (extraLength != 0 || dataOffset + size > fileSize) {
+                break;
+            }
+
+            ByteBuffer name = ByteBuffer.allocate(nameLength);
+            readFully(channel, name, offset + LOCAL_HEADER_SIZE);
+
+            CRC32 actual = new CRC32();
+            for (long position = dataOffset; position < dataOffset + size; ) {
+                chunk.clear();
+                chunk.limit((int) Math.min(chunk.capacity(), dataOffset + size - position));
+                readFully(channel, chunk, position);
+                position += chunk.limit();
+                chunk.flip();
+                actual.update(chunk);
+            }
+            if ((int) actual.getValue() != crc) {
+                break;
+            }
+
+            entries.add(new Entry(new String(name.array(), StandardCharsets.UTF_8), offset, crc, size, nameLength));
+            offset = dataOffset + size;
+        }
+
+        return entries;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    @Getter
+    private static final class Entry {
+        private final String name;
+        private final long offset;
+        private final int crc;
+        private final long size;
+        private final long end;
+
+        private Entry(String name, long offset, int crc, long size, int nameLength) {
+            this.name = name;
+            this.offset = offset;
+            this.crc = crc;
+            this.size = size;
+            this.end = offset + LOCAL_HEADER_SIZE + nameLength + size;
+        }
+    }
+
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import io.github.imsejin.dl.lezhin.attribute.impl.Content.Episode;
+import io.github.imsejin.dl.lezhin.common.Loggers;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * History of the episodes synced of each content
+ *
+ * <p> Each episode is recorded with the version and the purchase state it was synced with,
+ * so that an episode out of the range of the last sync or purchased after it is synced next time.
+ *
+ * <pre>{@code
+ *     {
+ *       "en:appetite": {
+ *         "syncedAt": 1666051200000,
+ *         "episodes": {
+ *           "1000": {
+ *             "version": 1665964800000,
+ *             "purchased": true
+ *           },
+ *           ...
+ *         }
+ *       },
+ *       ...
+ *     }
+ * }</pre>
+ *
+ * @since 3.2.0
+ */
+public final class SyncHistory {
+
+    public static final String FILE_NAME = ".sync-history.json";
+
+    private static final Type TYPE = new TypeToken<TreeMap<String, Entry>>() {
+    }.getType();
+
+    private static final Gson gson = new GsonBuilder()
+            .disableJdkUnsafe()
+            .disableHtmlEscaping()
+            .setPrettyPrinting()
+            .create();
+
+    private final Path file;
+
+    private final Map<String, Entry> entries;
+
+    private SyncHistory(Path file, Map<String, Entry> entries) {
+        this.file = file;
+        this.entries = entries;
+    }
+
+    /**
+     * Loads the history in the directory. If there is no history or it is broken, returns an empty one.
+     *
+     * @param directory directory of history file
+     * @return history
+     */
+    public static SyncHistory load(Path directory) {
+        Path file = directory.resolve(FILE_NAME);
+        Map<String, Entry> entries = new TreeMap<>();
+
+        if (Files.isRegularFile(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                Map<String, Entry> loaded = gson.fromJson(reader, TYPE);
+                if (loaded != null) {
+                    entries.putAll(loaded);
+                }
+            } catch (IOException | JsonParseException e) {
+                Loggers.getLogger().warn("Ignore the broken sync history; all episodes will be synced: {}", file);
+            }
+        }
+
+        return new SyncHistory(file, entries);
+    }
+
+    /**
+     * Returns the sync of the content.
+     *
+     * @param locale       locale of platform
+     * @param contentAlias content alias
+     * @return sync or {@code null} if the content has never been synced
+     */
+    @Nullable
+    public Entry get(Locale locale, String contentAlias) {
+        return this.entries.get(toKey(locale, contentAlias));
+    }
+
+    /**
+     * Records the episodes synced, keeping the episodes recorded by the previous syncs.
+     *
+     * @param locale       locale of platform
+     * @param contentAlias content alias
+     * @param syncedAt     when the sync started
+     * @param episodes     episodes whose images are all downloaded
+     * @param purchased    whether the episode was downloaded as purchased
+     */
+    public void put(Locale locale, String contentAlias, long syncedAt, Collection<Episode> episodes,
+            Predicate<Episode> purchased) {
+        Entry entry = this.entries.computeIfAbsent(toKey(locale, contentAlias), k -> new Entry());
+        entry.syncedAt = syncedAt;
+        if (entry.episodes == null) {
+            entry.episodes = new TreeMap<>();
+        }
+
+        for (Episode episode : episodes) {
+            entry.episodes.put(episode.getId(), new SyncedEpisode(getVersion(episode), purchased.test(episode)));
+        }
+    }
+
+    /**
+     * Writes the history to the file atomically.
+     */
+    public void save() {
+        Path tempFile = this.file.resolveSibling(FILE_NAME + ".tmp");
+
+        try {
+            try (Writer writer = Files.newBufferedWriter(tempFile)) {
+                gson.toJson(this.entries, TYPE, writer);
+            }
+
+            Files.move(tempFile, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Loggers.getLogger().warn("Failed to save the sync history: {}", this.file, e);
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static String toKey(Locale locale, String contentAlias) {
+        return locale.getLanguage() + ':' + contentAlias;
+    }
+
+    /**
+     * Returns the latest of upload and publish times of the episode, on the server clock.
+     */
+    private static long getVersion(Episode episode) {
+        return Stream.of(episode.getUpdatedAt(), episode.getPublishedAt())
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .max().orElse(0);
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    @Getter
+    @ToString
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    public static final class Entry {
+        /**
+         * When the last sync started, on the local clock.
+         */
+        private long syncedAt;
+
+        /**
+         * Episodes synced, by their id.
+         */
+        @Getter(AccessLevel.NONE)
+        private Map<Long, SyncedEpisode> episodes;
+
+        /**
+         * Checks if the episode is never synced, updated or purchased since it was synced.
+         *
+         * <p> The version of the episode is compared with the one it was synced with,
+         * so the difference between the local clock and the server clock doesn't matter.
+         * An episode which was not accessible, for example before it was freed, has never been synced.
+         *
+         * @param episode   episode
+         * @param purchased whether the episode is purchased now
+         * @return whether the episode should be synced
+         */
+        public boolean isChanged(Episode episode, boolean purchased) {
+            SyncedEpisode synced = this.episodes == null ? null : this.episodes.get(episode.getId());
+            if (synced == null) {
+                return true;
+            }
+
+            // Purchased episode has images of higher resolution.
+            return getVersion(episode) > synced.version || (purchased && !synced.purchased);
+        }
+    }
+
+    @ToString
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class SyncedEpisode {
+        /**
+         * The latest of upload and publish times of the episode, on the server clock.
+         */
+        private long version;
+
+        private boolean purchased;
+    }
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.exception;
+
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown when server responds with unsuccessful status code.
+ *
+ * @since 3.2.0
+ */
+@Getter
+public class HttpResponseException extends IOException {
+
+    private final int code;
+
+    public HttpResponseException(int code, String format, Object... args) {
+        super(String.format(format, args));
+        this.code = code;
+    }
+
+}
@@ -18,6 +18,10 @@ package io.github.imsejin.dl.lezhin.exception;
 
 public class ParsingArgumentException extends LezhinComicsDownloaderException {
 
+    public ParsingArgumentException(String format, Object... args) {
+        super(format, args);
+    }
+
     public ParsingArgumentException(Throwable cause, String format, Object... args) {
         super(cause, format, args);
     }
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.http.interceptor;
+
+import io.github.imsejin.dl.lezhin.common.Loggers;
+import org.jetbrains.annotations.Nullable;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Circuit breaker for a host
+ *
+ * <p> When the host starts rate-limiting or keeps failing, the circuit opens and every request
+ * to the host waits until the pause ends, instead of hammering the host. Then the circuit is half-open:
+ * only one request goes through as a probe, and the others keep waiting until it returns.
+ * The probe closes the circuit if it is successful, or opens it again.
+ *
+ * <p> This waits with {@link ReentrantLock}, not with a monitor, so that a virtual thread waiting for
+ * the circuit doesn't pin its carrier thread.
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+final class CircuitBreaker {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled when the circuit is closed, opened again or the probe is given up.
+     */
+    private final Condition changed = this.lock.newCondition();
+
+    private final String host;
+
+    private final int failureThreshold;
+
+    private final Duration openDuration;
+
+    private int consecutiveFailures;
+
+    /**
+     * Whether the circuit has opened and not been closed by a successful probe.
+     */
+    private boolean tripped;
+
+    private long openUntilNanos;
+
+    /**
+     * Thread whose request is the probe of the half-open circuit, or {@code null} if there is no probe.
+     */
+    @Nullable
+    private Thread prober;
+
+    CircuitBreaker(String host, int failureThreshold, Duration openDuration) {
+        this.host = host;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.openUntilNanos = System.nanoTime();
+    }
+
+    /**
+     * Waits until the request can go through. If the circuit is half-open, the first caller becomes the probe
+     * and the others wait until it returns; the probe must report its result with {@link #onSuccess()},
+     * {@link #onFailure(boolean, Duration)} or {@link #onAbort()}.
+     *
+     * @throws InterruptedIOException if interrupted while waiting
+     */
+    void await() throws InterruptedIOException {
+        this.lock.lock();
+        try {
+            while (true) {
+                long remainingNanos = this.openUntilNanos - System.nanoTime();
+                if (remainingNanos > 0) {
+                    this.changed.awaitNanos(remainingNanos);
+                    continue;
+                }
+
+                if (!this.tripped) {
+                    return;
+                }
+
+                if (this.prober == null) {
+                    this.prober = Thread.currentThread();
+                    Loggers.getLogger().debug("Probe {} after the pause", this.host);
+                    return;
+                }
+
+                this.changed.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for circuit of " + this.host);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    boolean isOpen() {
+        this.lock.lock();
+        try {
+            return this.openUntilNanos - System.nanoTime() > 0;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Records a success. If it is the probe, the circuit closes and all the waiting requests go through.
+     */
+    void onSuccess() {
+        this.lock.lock();
+        try {
+            this.consecutiveFailures = 0;
+
+            // A response of the request sent before the circuit opened doesn't tell that the host has recovered.
+            if (this.prober == Thread.currentThread()) {
+                this.prober = null;
+                this.tripped = false;
+                this.changed.signalAll();
+                Loggers.getLogger().info("Resume requests to {}", this.host);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Records a failure. The circuit opens right away if the host is throttling,
+     * if the host has failed too many times in a row or if the probe has failed.
+     *
+     * @param throttled  whether the host responded that it is throttling requests
+     * @param retryAfter delay the host asked for
+     */
+    void onFailure(boolean throttled, @Nullable Duration retryAfter) {
+        this.lock.lock();
+        try {
+            this.consecutiveFailures++;
+
+            boolean probeFailed = this.prober == Thread.currentThread();
+            if (probeFailed) {
+                this.prober = null;
+            }
+
+            if (throttled || probeFailed || this.consecutiveFailures >= this.failureThreshold) {
+                open(retryAfter == null ? this.openDuration : retryAfter);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Gives up the probe without its result, such as when the request is canceled;
+     * one of the waiting requests becomes the next probe.
+     */
+    void onAbort() {
+        this.lock.lock();
+        try {
+            if (this.prober == Thread.currentThread()) {
+                this.prober = null;
+                this.changed.signalAll();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private void open(Duration duration) {
+        long openUntilNanos = System.nanoTime() + duration.toNanos();
+        this.tripped = true;
+        this.changed.signalAll();
+
+        // Doesn't shorten the pause that other workers are already waiting for.
+        if (openUntilNanos - this.openUntilNanos > 0) {
+            this.openUntilNanos = openUntilNanos;
+            Loggers.getLogger().warn("Pause requests to {} for {} ms: {} failure(s) in a row",
+                    this.host, duration.toMillis(), this.consecutiveFailures);
+        }
+    }
+
+}
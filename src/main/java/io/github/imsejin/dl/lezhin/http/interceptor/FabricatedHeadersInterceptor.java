@@ -77,7 +77,13 @@ public class FabricatedHeadersInterceptor implements Interceptor {
 
     // -------------------------------------------------------------------------------------------------
 
-    private static String randomizeUserAgent() {
+    /**
+     * Returns a user agent of chrome browser with a random version and platform.
+     *
+     * @return user agent
+     * @since 3.2.0
+     */
+    public static String randomizeUserAgent() {
         Random random = ThreadLocalRandom.current();
         Period period = Period.between(LocalDate.of(2005, 1, 1), LocalDate.now().withDayOfMonth(1));
 
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.http.interceptor;
+
+import io.github.imsejin.dl.lezhin.common.Loggers;
+import io.github.imsejin.dl.lezhin.metrics.MetricRegistry;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Interceptor that retries a request failed by a transient problem
+ *
+ * <p> Failures are classified into transient and permanent ones. Connection failures, timeouts and
+ * the status codes below are transient, so the request is retried after a delay that grows exponentially
+ * with full jitter. The other status codes, such as 403 and 404, are permanent, so the response is returned
+ * as it is. Only idempotent requests are retried.
+ *
+ * <ul>
+ *     <li>408 Request Timeout</li>
+ *     <li>429 Too Many Requests</li>
+ *     <li>500 Internal Server Error</li>
+ *     <li>502 Bad Gateway</li>
+ *     <li>503 Service Unavailable</li>
+ *     <li>504 Gateway Timeout</li>
+ * </ul>
+ *
+ * <p> Each host has its own {@link CircuitBreaker}. When the host is throttling or keeps failing,
+ * all the requests to the host are paused for a while, honoring {@code Retry-After} header.
+ * After the pause, a single request probes the host before the others resume.
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public class RetryInterceptor implements Interceptor {
+
+    private static final Set<Integer> TRANSIENT_STATUS_CODES = Set.of(408, 429, 500, 502, 503, 504);
+
+    private static final Set<Integer> THROTTLING_STATUS_CODES = Set.of(429, 503);
+
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD");
+
+    private static final Duration MAX_RETRY_AFTER = Duration.ofMinutes(2);
+
+    private final int maxAttempts;
+
+    private final Duration baseDelay;
+
+    private final Duration maxDelay;
+
+    private final int failureThreshold;
+
+    private final Duration openDuration;
+
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    private final LongAdder retryCount = new LongAdder();
+
+    /**
+     * Number of requests given up after all the attempts.
+     */
+    private final LongAdder failureCount = new LongAdder();
+
+    public RetryInterceptor() {
+        this(4, Duration.ofMillis(500), Duration.ofSeconds(10), 5, Duration.ofSeconds(10));
+    }
+
+    @VisibleForTesting
+    RetryInterceptor(int maxAttempts, Duration baseDelay, Duration maxDelay, int failureThreshold,
+                     Duration openDuration) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String host = request.url().host();
+        CircuitBreaker circuitBreaker = getCircuitBreaker(host);
+
+        int maxAttempts = IDEMPOTENT_METHODS.contains(request.method()) ? this.maxAttempts : 1;
+
+        for (int attempt = 1; ; attempt++) {
+            circuitBreaker.await();
+
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                if (!isTransient(e) || chain.call().isCanceled()) {
+                    circuitBreaker.onAbort();
+                    onGiveUp(host);
+                    throw e;
+                }
+
+                circuitBreaker.onFailure(false, null);
+                if (attempt >= maxAttempts) {
+                    onGiveUp(host);
+                    throw e;
+                }
+
+                sleepBeforeRetry(request, attempt, e.toString(), null);
+                continue;
+            } catch (RuntimeException e) {
+                circuitBreaker.onAbort();
+                throw e;
+            }
+
+            int code = response.code();
+            if (!TRANSIENT_STATUS_CODES.contains(code)) {
+                circuitBreaker.onSuccess();
+                return response;
+            }
+
+            Duration retryAfter = parseRetryAfter(response.header("Retry-After"));
+            circuitBreaker.onFailure(THROTTLING_STATUS_CODES.contains(code), retryAfter);
+
+            if (attempt >= maxAttempts) {
+                onGiveUp(host);
+                return response;
+            }
+
+            response.close();
+            sleepBeforeRetry(request, attempt, "status " + code, retryAfter);
+        }
+    }
+
+    /**
+     * Runs the task that sends the request and reads its response, retrying it with the same backoff
+     * while it fails with a transient problem.
+     *
+     * <p> This interceptor returns the response as soon as its headers arrive, so it can't retry the failures
+     * while the body is read, such as a read timeout or a connection reset. The task covers them instead;
+     * each retry waits for the circuit of the host when the task sends the request again.
+     *
+     * @param request     request that the task sends
+     * @param task        task to run
+     * @param isTransient whether the failure of the task is transient
+     * @param <T>         type of result
+     * @return result of the task
+     * @throws IOException if the task fails with a permanent problem, or after all the attempts
+     */
+    public <T> T retry(Request request, Task<T> task, Predicate<IOException> isTransient) throws IOException {
+        String host = request.url().host();
+        int maxAttempts = IDEMPOTENT_METHODS.contains(request.method()) ? this.maxAttempts : 1;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return task.run();
+            } catch (IOException e) {
+                if (!isTransient.test(e)) {
+                    throw e;
+                }
+
+                getCircuitBreaker(host).onFailure(false, null);
+                if (attempt >= maxAttempts) {
+                    onGiveUp(host);
+                    throw e;
+                }
+
+                sleepBeforeRetry(request, attempt, e.toString(), null);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of retries.
+     *
+     * @return number of retries
+     */
+    public long getRetryCount() {
+        return this.retryCount.sum();
+    }
+
+    /**
+     * Returns the number of requests given up after all the attempts.
+     *
+     * @return number of failures
+     */
+    public long getFailureCount() {
+        return this.failureCount.sum();
+    }
+
+    /**
+     * Returns the delay before the attempt, which is a random value between zero and
+     * the exponentially growing cap; so-called full jitter. It spreads the retries of many workers.
+     *
+     * @param attempt number of the failed attempt, starting with 1
+     * @return delay
+     */
+    @VisibleForTesting
+    Duration getBackoff(int attempt) {
+        long capMillis = this.baseDelay.toMillis() << Math.min(attempt - 1, 20);
+        capMillis = Math.min(capMillis, this.maxDelay.toMillis());
+
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(capMillis + 1));
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private CircuitBreaker getCircuitBreaker(String host) {
+        return this.circuitBreakers.computeIfAbsent(host,
+                it -> new CircuitBreaker(it, this.failureThreshold, this.openDuration));
+    }
+
+    private static boolean isTransient(IOException e) {
+        // Retrying an interrupted request would ignore the cancellation,
+        // but a timeout is transient though it extends InterruptedIOException.
+        if (e instanceof InterruptedIOException) {
+            return e instanceof SocketTimeoutException;
+        }
+
+        // Malformed response is never fixed by retrying.
+        return !(e instanceof ProtocolException);
+    }
+
+    private void onGiveUp(String host) {
+        this.failureCount.increment();
+        MetricRegistry.getDefault().counter("lezhin_http_failures_total", "host", host).increment();
+    }
+
+    private void sleepBeforeRetry(Request request, int attempt, String reason, @Nullable Duration retryAfter)
+            throws InterruptedIOException {
+        Duration delay = retryAfter == null ? getBackoff(attempt) : retryAfter;
+        Loggers.getLogger().debug("Retry {} {} after {} ms ({}/{}): {}", request.method(), request.url().encodedPath(),
+                delay.toMillis(), attempt, this.maxAttempts - 1, reason);
+        this.retryCount.increment();
+        MetricRegistry.getDefault().counter("lezhin_http_retries_total", "host", request.url().host()).increment();
+
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for retry");
+        }
+    }
+
+    /**
+     * Parses the value of {@code Retry-After} header, which is either seconds or HTTP date.
+     */
+    @Nullable
+    @VisibleForTesting
+    static Duration parseRetryAfter(@Nullable String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+
+        Duration duration;
+        try {
+            duration = Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime dateTime = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                duration = Duration.between(ZonedDateTime.now(dateTime.getZone()), dateTime);
+            } catch (DateTimeParseException ex) {
+                return null;
+            }
+        }
+
+        if (duration.isNegative()) {
+            return Duration.ZERO;
+        }
+
+        // Doesn't wait too long for a wrong value.
+        return duration.compareTo(MAX_RETRY_AFTER) > 0 ? MAX_RETRY_AFTER : duration;
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    /**
+     * Task that may fail with {@link IOException}
+     *
+     * @param <T> type of result
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+        T run() throws IOException;
+    }
+
+}
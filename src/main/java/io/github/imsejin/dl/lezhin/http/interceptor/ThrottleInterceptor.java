@@ -0,0 +1,141 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.http.interceptor;
+
+import io.github.imsejin.dl.lezhin.http.throttle.Throttle;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+import org.jetbrains.annotations.Nullable;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Interceptor that limits the requests per second and the bytes per second
+ *
+ * <p> The limits are global; all the HTTP clients with this interceptor share them,
+ * so the API services and the image downloader together never exceed them.
+ * Response body is throttled while it is read, so the workers stream the images as fast as the limit allows.
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public class ThrottleInterceptor implements Interceptor {
+
+    /**
+     * Maximum bytes read from the response body at once, which keeps the throttled stream smooth.
+     */
+    private static final long CHUNK_SIZE = 16 * 1024;
+
+    private static final AtomicReference<Throttle> requestRate = new AtomicReference<>();
+
+    private static final AtomicReference<Throttle> bandwidth = new AtomicReference<>();
+
+    /**
+     * Sets the global limits.
+     *
+     * @param requestRate limit of requests per second, or {@code null} if unlimited
+     * @param bandwidth   limit of bytes per second, or {@code null} if unlimited
+     */
+    public static void configure(@Nullable Throttle requestRate, @Nullable Throttle bandwidth) {
+        ThrottleInterceptor.requestRate.set(requestRate);
+        ThrottleInterceptor.bandwidth.set(bandwidth);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Throttle requestRate = ThrottleInterceptor.requestRate.get();
+        if (requestRate != null) {
+            requestRate.acquire(1);
+        }
+
+        Response response = chain.proceed(chain.request());
+
+        Throttle bandwidth = ThrottleInterceptor.bandwidth.get();
+        ResponseBody body = response.body();
+        if (bandwidth == null || body == null) {
+            return response;
+        }
+
+        return response.newBuilder()
+                .body(new ThrottledResponseBody(body, bandwidth))
+                .build();
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static final class ThrottledResponseBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        private ThrottledResponseBody(ResponseBody delegate, Throttle bandwidth) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new ThrottledSource(delegate.source(), bandwidth));
+        }
+
+        @Nullable
+        @Override
+        public MediaType contentType() {
+            return this.delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return this.delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return this.source;
+        }
+
+        @Override
+        public void close() {
+            this.delegate.close();
+        }
+    }
+
+    private static final class ThrottledSource extends ForwardingSource {
+        private final Throttle bandwidth;
+
+        private ThrottledSource(Source delegate, Throttle bandwidth) {
+            super(delegate);
+            this.bandwidth = bandwidth;
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            long read = super.read(sink, Math.min(byteCount, CHUNK_SIZE));
+
+            // Pays for the bytes after reading them, because it is unknown how many bytes are available.
+            if (read > 0) {
+                this.bandwidth.acquire(read);
+            }
+
+            return read;
+        }
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.http.page;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import io.github.imsejin.common.assertion.Asserts;
+import io.github.imsejin.dl.lezhin.common.Loggers;
+import io.github.imsejin.dl.lezhin.http.page.WebPageClient.Page;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reader of the number of images from the episode pages, without rendering them
+ *
+ * <p> The episode page has the episode in its inline script, which has the number of the images.
+ * Only the head of the page is read until the end of the object, see {@link InlineScriptExtractor}.
+ * The pages of many episodes are requested at the same time, so it takes about as long as a single page,
+ * while web browser renders the pages one by one.
+ *
+ * <pre>{@code
+ *     <script>
+ *     __LZ_DATA__ = {
+ *         episode: {"id": 5188119508828160, "name": "1", "scroll": 48, "cut": 0, ...},
+ *         ...
+ *     };
+ *     </script>
+ * }</pre>
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class EpisodeImageCountReader {
+
+    private static final String VARIABLE_NAME = "__LZ_DATA__";
+
+    private final WebPageClient webPageClient;
+
+    private final int concurrency;
+
+    /**
+     * @param webPageClient client for pages
+     * @param concurrency   number of pages requested at the same time
+     */
+    public EpisodeImageCountReader(WebPageClient webPageClient, int concurrency) {
+        Asserts.that(concurrency)
+                .describedAs("EpisodeImageCountReader.concurrency must be positive: {0}", concurrency)
+                .isPositive();
+
+        this.webPageClient = webPageClient;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Reads the number of images from the pages at the same time.
+     *
+     * @param paths paths of the episode pages by episode name
+     * @return number of images by episode name, which doesn't have the episodes failed to read
+     */
+    public Map<String, Integer> readAll(Map<String, String> paths) {
+        if (paths.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        AtomicInteger sequence = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.concurrency, paths.size()), runnable -> {
+            Thread thread = new Thread(runnable, "episode-page-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            Map<String, CompletableFuture<Integer>> futures = new HashMap<>();
+            paths.forEach((name, path) -> futures.put(name, CompletableFuture.supplyAsync(() -> read(path), executor)));
+
+            Map<String, Integer> imageCounts = new HashMap<>();
+            futures.forEach((name, future) -> {
+                Integer imageCount = future.join();
+                if (imageCount != null) {
+                    imageCounts.put(name, imageCount);
+                }
+            });
+
+            return Collections.unmodifiableMap(imageCounts);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads the number of images from the page.
+     *
+     * @param path path of the episode page
+     * @return number of images, or {@code null} if failed to read
+     */
+    @Nullable
+    public Integer read(String path) {
+        try {
+            Page page = this.webPageClient.extract(path, VARIABLE_NAME);
+
+            String objectLiteral = page.getObjectLiteral();
+            Integer imageCount = objectLiteral == null ? null : parse(objectLiteral);
+            if (imageCount == null) {
+                Loggers.getLogger().debug("No number of images in the page: {}", page.getUrl());
+            }
+
+            return imageCount;
+        } catch (IOException | RuntimeException e) {
+            Loggers.getLogger().debug("Failed to read episode page over HTTP: {} ({})", path, e.toString());
+            return null;
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the number of the scroll images of the episode, or the number of the cuts for the episode
+     * that is not a scroll.
+     */
+    @Nullable
+    @VisibleForTesting
+    static Integer parse(String objectLiteral) {
+        // Object literal in script is not always a strict JSON, for example its keys may not be quoted.
+        JsonReader reader = new JsonReader(new StringReader(objectLiteral));
+        reader.setLenient(true);
+
+        JsonElement episode = JsonParser.parseReader(reader).getAsJsonObject().get("episode");
+        if (episode == null || !episode.isJsonObject()) {
+            return null;
+        }
+
+        for (String key : new String[]{"scroll", "cut"}) {
+            JsonElement value = episode.getAsJsonObject().get(key);
+            if (value != null && value.isJsonPrimitive() && value.getAsJsonPrimitive().isNumber()
+                    && value.getAsInt() > 0) {
+                return value.getAsInt();
+            }
+        }
+
+        return null;
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.http.page;
+
+import io.github.imsejin.common.annotation.ExcludeFromGeneratedJacocoReport;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Extractor of an object literal assigned to a variable in inline script
+ *
+ * <p> This reads the page only until the end of the object, so the rest of the page is never downloaded.
+ * The object literal is found by counting braces out of string literals, without parsing the page.
+ *
+ * <pre>{@code
+ *     <script>
+ *     __LZ_PRODUCT__ = {
+ *         product: {"id": 5402479112798208, "alias": "appetite", ...},
+ *         ...
+ *     };
+ *     </script>
+ * }</pre>
+ *
+ * @since 3.2.0
+ */
+public final class InlineScriptExtractor {
+
+    @ExcludeFromGeneratedJacocoReport
+    private InlineScriptExtractor() {
+        throw new UnsupportedOperationException(getClass().getName() + " is not allowed to instantiate");
+    }
+
+    /**
+     * Extracts the object literal assigned to the variable.
+     *
+     * @param reader       reader of page
+     * @param variableName variable name
+     * @return object literal or {@code null} if not found
+     * @throws IOException if failed to read the page
+     */
+    @Nullable
+    public static String extract(Reader reader, String variableName) throws IOException {
+        char[] name = variableName.toCharArray();
+        int[] failures = computeFailures(name);
+
+        int matched = 0;
+        int c;
+        while ((c = reader.read()) != -1) {
+            // Finds the variable name by KMP algorithm, the page is read only once.
+            while (matched > 0 && c != name[matched]) {
+                matched = failures[matched - 1];
+            }
+            if (c == name[matched]) {
+                matched++;
+            }
+            if (matched < name.length) {
+                continue;
+            }
+            matched = 0;
+
+            String literal = readAssignedObject(reader);
+            if (literal != null) {
+                return literal;
+            }
+        }
+
+        return null;
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static int[] computeFailures(char[] pattern) {
+        int[] failures = new int[pattern.length];
+
+        for (int i = 1, j = 0; i < pattern.length; i++) {
+            while (j > 0 && pattern[i] != pattern[j]) {
+                j = failures[j - 1];
+            }
+            if (pattern[i] == pattern[j]) {
+                failures[i] = ++j;
+            }
+        }
+
+        return failures;
+    }
+
+    /**
+     * Reads {@code = {...}} right after the variable name. If the variable is not assigned an object,
+     * for example {@code __LZ_PRODUCT__.product}, returns {@code null}.
+     */
+    @Nullable
+    private static String readAssignedObject(Reader reader) throws IOException {
+        int c = skipWhitespaces(reader);
+        if (c != '=') {
+            return null;
+        }
+
+        c = skipWhitespaces(reader);
+        if (c != '{') {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder().append('{');
+        int depth = 1;
+        char quote = 0;
+        boolean escaped = false;
+
+        while (depth > 0 && (c = reader.read()) != -1) {
+            sb.append((char) c);
+
+            if (quote != 0) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '"':
+                case '\'':
+                case '`':
+                    quote = (char) c;
+                    break;
+                case '{':
+                    depth++;
+                    break;
+                case '}':
+                    depth--;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        // When the page ends before the object does.
+        return depth == 0 ? sb.toString() : null;
+    }
+
+    private static int skipWhitespaces(Reader reader) throws IOException {
+        int c;
+        do {
+            c = reader.read();
+        } while (c != -1 && Character.isWhitespace(c));
+
+        return c;
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.http.page;
+
+import io.github.imsejin.dl.lezhin.api.BaseService;
+import io.github.imsejin.dl.lezhin.common.Loggers;
+import io.github.imsejin.dl.lezhin.exception.HttpResponseException;
+import io.github.imsejin.dl.lezhin.http.interceptor.FabricatedHeadersInterceptor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import okhttp3.Cookie;
+import okhttp3.CookieJar;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.jetbrains.annotations.Nullable;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.util.stream.Collectors.toUnmodifiableList;
+
+/**
+ * Client that requests web pages of the platform without web browser
+ *
+ * <p> Pages are requested with the cookies of the logged-in session, and inline scripts
+ * of the page are read instead of being evaluated. Scripts are not executed at all,
+ * so it takes a fraction of the time and memory of web browser.
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class WebPageClient {
+
+    private final HttpUrl baseUrl;
+
+    private final String userAgent = FabricatedHeadersInterceptor.randomizeUserAgent();
+
+    private final OkHttpClient httpClient;
+
+    /**
+     * @param baseUrl URL of the platform
+     * @param cookies cookies of web browser in the logged-in session
+     */
+    public WebPageClient(String baseUrl, Collection<org.openqa.selenium.Cookie> cookies) {
+        this.baseUrl = HttpUrl.get(baseUrl);
+        this.httpClient = BaseService.newHttpClientBuilder()
+                .cookieJar(new SessionCookieJar(cookies))
+                .build();
+    }
+
+    /**
+     * Requests the page, ignoring its content. This is used to let server set the cookies.
+     *
+     * @param path absolute or relative path
+     * @throws IOException if failed to request the page
+     */
+    public void request(String path) throws IOException {
+        try (Response response = execute(path)) {
+            Loggers.getLogger().debug("Requested page over HTTP: {}", response.request().url());
+        }
+    }
+
+    /**
+     * Requests the page and extracts the object literal assigned to the variable in its inline script.
+     *
+     * @param path         absolute or relative path
+     * @param variableName variable name in inline script
+     * @return page
+     * @throws IOException if failed to request the page
+     */
+    public Page extract(String path, String variableName) throws IOException {
+        try (Response response = execute(path)) {
+            ResponseBody body = response.body();
+            String objectLiteral = null;
+
+            if (body != null) {
+                try (Reader reader = body.charStream()) {
+                    objectLiteral = InlineScriptExtractor.extract(reader, variableName);
+                }
+            }
+
+            // Redirections are followed, so this may differ from the requested URL.
+            String url = response.request().url().toString();
+            return new Page(url, objectLiteral);
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private Response execute(String path) throws IOException {
+        HttpUrl url = this.baseUrl.resolve(path);
+        if (url == null) {
+            throw new IllegalArgumentException("Invalid path of page: " + path);
+        }
+
+        Request request = new Request.Builder().url(url).get()
+                .header("accept", "text/html,application/xhtml+xml")
+                .header("user-agent", this.userAgent)
+                .build();
+
+        Response response = this.httpClient.newCall(request).execute();
+        if (!response.isSuccessful()) {
+            response.close();
+            throw new HttpResponseException(response.code(), "Unexpected response of page: %d %s",
+                    response.code(), url);
+        }
+
+        return response;
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    /**
+     * Web page requested over HTTP
+     */
+    @Getter
+    @ToString
+    @RequiredArgsConstructor
+    public static final class Page {
+        /**
+         * Final URL of the page after redirections.
+         */
+        private final String url;
+
+        /**
+         * Object literal extracted from inline script, or {@code null} if not found.
+         */
+        @Nullable
+        private final String objectLiteral;
+    }
+
+    private static final class SessionCookieJar implements CookieJar {
+        private final List<Cookie> cookies = new CopyOnWriteArrayList<>();
+
+        private SessionCookieJar(Collection<org.openqa.selenium.Cookie> cookies) {
+            cookies.stream().map(SessionCookieJar::toCookie).forEach(this.cookies::add);
+        }
+
+        @Override
+        public void saveFromResponse(HttpUrl url, List<Cookie> cookies) {
+            for (Cookie cookie : cookies) {
+                // Replaces the cookie with the same name, domain and path.
+                this.cookies.removeIf(it -> it.name().equals(cookie.name()) && it.domain().equals(cookie.domain())
+                        && it.path().equals(cookie.path()));
+                this.cookies.add(cookie);
+            }
+        }
+
+        @Override
+        public List<Cookie> loadForRequest(HttpUrl url) {
+            long now = System.currentTimeMillis();
+            return this.cookies.stream()
+                    .filter(it -> it.expiresAt() > now && it.matches(url))
+                    .collect(toUnmodifiableList());
+        }
+
+        private static Cookie toCookie(org.openqa.selenium.Cookie cookie) {
+            Cookie.Builder builder = new Cookie.Builder()
+                    .name(cookie.getName())
+                    .value(cookie.getValue())
+                    .path(cookie.getPath() == null ? "/" : cookie.getPath());
+
+            // Browser marks a cookie for the domain and its subdomains with leading dot.
+            String domain = cookie.getDomain();
+            if (domain.startsWith(".")) {
+                builder.domain(domain.substring(1));
+            } else {
+                builder.hostOnlyDomain(domain);
+            }
+
+            if (cookie.getExpiry() != null) {
+                builder.expiresAt(cookie.getExpiry().getTime());
+            }
+            if (cookie.isSecure()) {
+                builder.secure();
+            }
+            if (cookie.isHttpOnly()) {
+                builder.httpOnly();
+            }
+
+            return builder.build();
+        }
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.http.throttle;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.jetbrains.annotations.Nullable;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.InterruptedIOException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Limit of rate, which is applied all day or only during the time window
+ *
+ * <pre>
+ *     2M            : 2 MiB per second all day
+ *     2M@09-18      : 2 MiB per second from 09:00 to 18:00, unlimited at the other times
+ *     5@22:30-06:00 : 5 per second from 22:30 to 06:00 of the next day
+ * </pre>
+ *
+ * @since 3.2.0
+ */
+@Getter
+@ThreadSafe
+@ToString
+@EqualsAndHashCode(exclude = "bucket")
+public final class Throttle {
+
+    private static final Pattern WINDOW_PATTERN = Pattern.compile("(\\d{1,2}(?::\\d{2})?)-(\\d{1,2}(?::\\d{2})?)");
+
+    /**
+     * Tokens can be taken at once up to this, which keeps the rate smooth.
+     */
+    private static final Duration BURST = Duration.ofMillis(100);
+
+    private final double rate;
+
+    @Nullable
+    private final LocalTime from;
+
+    @Nullable
+    private final LocalTime to;
+
+    @ToString.Exclude
+    private final TokenBucket bucket;
+
+    private Throttle(double rate, @Nullable LocalTime from, @Nullable LocalTime to) {
+        this.rate = rate;
+        this.from = from;
+        this.to = to;
+        this.bucket = new TokenBucket(rate, BURST);
+    }
+
+    /**
+     * Parses the limit.
+     *
+     * @param rate   tokens per second
+     * @param window time window such as {@code 09-18} or {@code 22:30-06:00}, or {@code null} for all day
+     * @return throttle
+     * @throws IllegalArgumentException if the window is invalid
+     */
+    public static Throttle of(double rate, @Nullable String window) {
+        if (window == null) {
+            return new Throttle(rate, null, null);
+        }
+
+        Matcher matcher = WINDOW_PATTERN.matcher(window);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid time window of throttle: " + window);
+        }
+
+        LocalTime from = parseTime(matcher.group(1));
+        LocalTime to = parseTime(matcher.group(2));
+        if (from.equals(to)) {
+            throw new IllegalArgumentException("Time window of throttle is empty: " + window);
+        }
+
+        return new Throttle(rate, from, to);
+    }
+
+    /**
+     * Takes the tokens if the limit is active now, waiting until they are available.
+     *
+     * @param tokens number of tokens
+     * @throws InterruptedIOException if interrupted while waiting
+     */
+    public void acquire(long tokens) throws InterruptedIOException {
+        if (isActiveAt(LocalTime.now())) {
+            this.bucket.acquire(tokens);
+        }
+    }
+
+    /**
+     * Returns whether the limit is applied at the time.
+     *
+     * @param time local time
+     * @return whether the limit is active
+     */
+    public boolean isActiveAt(LocalTime time) {
+        if (this.from == null || this.to == null) {
+            return true;
+        }
+
+        // The window like 22:00-06:00 passes midnight.
+        if (this.from.isBefore(this.to)) {
+            return !time.isBefore(this.from) && time.isBefore(this.to);
+        } else {
+            return !time.isBefore(this.from) || time.isBefore(this.to);
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static LocalTime parseTime(String value) {
+        String[] parts = value.split(":");
+        int hour = Integer.parseInt(parts[0]);
+        int minute = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+
+        // Allows 24 as the end of a day.
+        if (hour == 24 && minute == 0) {
+            return LocalTime.MAX;
+        }
+
+        try {
+            return LocalTime.of(hour, minute);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid time of throttle: " + value, e);
+        }
+    }
+
+}
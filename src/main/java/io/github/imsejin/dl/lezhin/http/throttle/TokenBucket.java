@@ -0,0 +1,120 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.http.throttle;
+
+import io.github.imsejin.common.assertion.Asserts;
+import lombok.Getter;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Token bucket shared by the workers, which never holds a lock
+ *
+ * <p> This keeps the time when the bucket becomes full again, instead of the number of tokens;
+ * so-called generic cell rate algorithm. A worker reserves tokens by advancing that time with
+ * a compare-and-set, and then sleeps outside of any critical section until its tokens are available.
+ * Reservations are serialized by the compare-and-set, so the rate is never exceeded however many
+ * workers take tokens at the same time.
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class TokenBucket {
+
+    /**
+     * Tokens per second.
+     */
+    @Getter
+    private final double rate;
+
+    private final double nanosPerToken;
+
+    /**
+     * Capacity of the bucket in time; tokens up to this can be taken without waiting.
+     */
+    private final long burstNanos;
+
+    /**
+     * Time when the bucket becomes full again, in {@link System#nanoTime()}.
+     */
+    private final AtomicLong fullAt;
+
+    /**
+     * @param rate  tokens per second
+     * @param burst duration of tokens that can be taken at once
+     */
+    public TokenBucket(double rate, Duration burst) {
+        Asserts.that(rate)
+                .describedAs("TokenBucket.rate must be positive: {0}", rate)
+                .isPositive();
+
+        this.rate = rate;
+        this.nanosPerToken = 1_000_000_000 / rate;
+        // A token can always be taken at once.
+        this.burstNanos = Math.max(burst.toNanos(), (long) Math.ceil(this.nanosPerToken));
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes the tokens, waiting until they are available.
+     *
+     * @param tokens number of tokens
+     * @throws InterruptedIOException if interrupted while waiting
+     */
+    public void acquire(long tokens) throws InterruptedIOException {
+        long waitNanos = reserve(tokens);
+
+        long deadline = System.nanoTime() + waitNanos;
+        while (waitNanos > 0) {
+            LockSupport.parkNanos(this, waitNanos);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for tokens");
+            }
+
+            waitNanos = deadline - System.nanoTime();
+        }
+    }
+
+    /**
+     * Reserves the tokens and returns how long to wait for them.
+     *
+     * @param tokens number of tokens
+     * @return nanoseconds to wait
+     */
+    long reserve(long tokens) {
+        long costNanos = (long) Math.ceil(tokens * this.nanosPerToken);
+
+        while (true) {
+            long now = System.nanoTime();
+            long fullAt = this.fullAt.get();
+
+            // The bucket doesn't hold more than its capacity, however long it has been idle.
+            long base = fullAt - now > 0 ? fullAt : now;
+            long next = base + costNanos;
+
+            if (this.fullAt.compareAndSet(fullAt, next)) {
+                return next - this.burstNanos - now;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.http.url;
+
+import io.github.imsejin.dl.lezhin.api.auth.model.Authority;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.net.MalformedURLException;
+import java.net.URL;
+
+/**
+ * Factory of the image URLs of an episode
+ *
+ * <p> All the image URLs of an episode are the same except the number of image, so the parts before
+ * and after the number are rendered once per authority. Then an image URL is just three appends.
+ *
+ * <pre>{@code
+ *     https://rcdn.lezhin.com/v2/comics/{contentId}/episodes/{episodeId}/contents/scrolls/ + {num} + .webp?purchased=...
+ * }</pre>
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class EpisodeImageUrls {
+
+    private static final String NUMBER_VARIABLE = "num";
+
+    private final String host;
+
+    private final long contentId;
+
+    private final long episodeId;
+
+    private final String imageFormat;
+
+    private final boolean purchased;
+
+    /**
+     * Parts rendered with the last authority; an episode usually has only one authority.
+     */
+    private volatile Parts parts;
+
+    /**
+     * @param host        host of the contents CDN such as {@code https://rcdn.lezhin.com}
+     * @param contentId   id of the content
+     * @param episodeId   id of the episode
+     * @param imageFormat image format
+     * @param purchased   whether the episode is purchased
+     */
+    public EpisodeImageUrls(String host, long contentId, long episodeId, String imageFormat, boolean purchased) {
+        // Path of the template is absolute, which replaces the path of the host.
+        int pathIndex = host.indexOf('/', host.indexOf("//") + 2);
+        this.host = pathIndex < 0 ? host : host.substring(0, pathIndex);
+
+        this.contentId = contentId;
+        this.episodeId = episodeId;
+        this.imageFormat = imageFormat;
+        this.purchased = purchased;
+    }
+
+    /**
+     * Returns the URL of the image signed by the authority.
+     *
+     * @param authority authority for viewing the episode
+     * @param num       number of the image
+     * @return image URL
+     */
+    public URL get(Authority authority, int num) {
+        Parts parts = this.parts;
+        if (parts == null || parts.authority != authority) {
+            parts = new Parts(authority);
+            this.parts = parts;
+        }
+
+        String url = new StringBuilder(parts.prefix.length() + parts.suffix.length() + 4)
+                .append(parts.prefix).append(num).append(parts.suffix).toString();
+
+        try {
+            return new URL(url);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private final class Parts {
+        private final Authority authority;
+        private final String prefix;
+        private final String suffix;
+
+        private Parts(Authority authority) {
+            String[] parts = URIs.EPISODE_IMAGE.split(NUMBER_VARIABLE, contentId, episodeId, imageFormat, purchased,
+                    authority.getPolicy(), authority.getSignature(), authority.getKeyPairId());
+
+            this.authority = authority;
+            this.prefix = host + parts[0];
+            this.suffix = parts[1];
+        }
+    }
+
+}
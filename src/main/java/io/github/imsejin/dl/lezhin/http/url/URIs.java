@@ -18,15 +18,15 @@ package io.github.imsejin.dl.lezhin.http.url;
 
 import io.github.imsejin.common.assertion.Asserts;
 import io.github.imsejin.common.util.ArrayUtils;
-import lombok.RequiredArgsConstructor;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * @since 2.5.0
  */
-@RequiredArgsConstructor
 public enum URIs {
 
     /**
@@ -75,10 +75,35 @@ public enum URIs {
     EPISODE_IMAGE("/v2/comics/{contentId}/episodes/{episodeId}/contents/scrolls/{num}.{imageFormat}" +
             "?purchased={purchased}&q=30&Policy={policy}&Signature={signature}&Key-Pair-Id={keyPairId}");
 
-    private static final Pattern PATTERN = Pattern.compile("\\{(.+?)}", Pattern.MULTILINE);
-
     private final String template;
 
+    /**
+     * Literal parts of the template; the variable {@code i} is placed between {@code literals[i]}
+     * and {@code literals[i + 1]}.
+     */
+    private final String[] literals;
+
+    private final String[] variables;
+
+    URIs(String template) {
+        this.template = template;
+
+        // Compiles the template once, so that rendering is just appending.
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        Matcher matcher = VariablePattern.INSTANCE.matcher(template);
+        int position = 0;
+        while (matcher.find()) {
+            literals.add(template.substring(position, matcher.start()));
+            variables.add(matcher.group(1));
+            position = matcher.end();
+        }
+        literals.add(template.substring(position));
+
+        this.literals = literals.toArray(String[]::new);
+        this.variables = variables.toArray(String[]::new);
+    }
+
     /**
      * Returns a URI string.
      *
@@ -90,21 +115,81 @@ public enum URIs {
             return this.template;
         }
 
-        Matcher matcher = PATTERN.matcher(this.template);
+        return render(new StringBuilder(this.template.length() + 16 * params.length), params).toString();
+    }
 
-        // Converts all variables to parameters.
-        String uri = this.template;
-        for (int i = 0; i < params.length && matcher.find(); i++) {
-            String param = String.valueOf(params[i]);
-            uri = uri.replaceAll("\\{" + matcher.group(1) + '}', param);
+    /**
+     * Appends a URI string to the builder.
+     *
+     * @param builder string builder
+     * @param params  parameters
+     * @return the builder
+     * @since 3.2.0
+     */
+    public StringBuilder render(StringBuilder builder, Object... params) {
+        // Validates all variables in URI are converted to parameters.
+        Asserts.that(params.length)
+                .describedAs("Template URI has not matched variable(s): '{0}'", this.template)
+                .isGreaterThanOrEqualTo(this.variables.length);
+
+        builder.append(this.literals[0]);
+        for (int i = 0; i < this.variables.length; i++) {
+            builder.append(params[i]).append(this.literals[i + 1]);
         }
 
-        // Validates all variables in URI are converted to parameters.
-        Asserts.that(PATTERN.matcher(uri).find())
-                .describedAs("Template URI has not matched variable(s): '{0}'", uri)
-                .isFalse();
+        return builder;
+    }
 
-        return uri;
+    /**
+     * Renders the template with the parameters except the variable, and returns the part before the variable
+     * and the part after it.
+     *
+     * <pre>{@code
+     *     EPISODE("/{language}/comic/{comicName}/{episodeName}").split("comicName", "ko", "e1")
+     *     => ["/ko/comic/", "/e1"]
+     * }</pre>
+     *
+     * @param variable name of the variable left unbound
+     * @param params   parameters of the other variables
+     * @return the part before the variable and the part after it
+     * @since 3.2.0
+     */
+    public String[] split(String variable, Object... params) {
+        int index = -1;
+        for (int i = 0; i < this.variables.length; i++) {
+            if (this.variables[i].equals(variable)) {
+                index = i;
+                break;
+            }
+        }
+
+        Asserts.that(index)
+                .describedAs("Template URI has no variable '{0}': '{1}'", variable, this.template)
+                .isGreaterThanOrEqualTo(0);
+        Asserts.that(params.length)
+                .describedAs("Template URI has not matched variable(s): '{0}'", this.template)
+                .isGreaterThanOrEqualTo(this.variables.length - 1);
+
+        StringBuilder before = new StringBuilder(this.literals[0]);
+        for (int i = 0; i < index; i++) {
+            before.append(params[i]).append(this.literals[i + 1]);
+        }
+
+        StringBuilder after = new StringBuilder(this.literals[index + 1]);
+        for (int i = index + 1; i < this.variables.length; i++) {
+            after.append(params[i - 1]).append(this.literals[i + 1]);
+        }
+
+        return new String[]{before.toString(), after.toString()};
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    /**
+     * Holder of the pattern, because the constructor of enum can't refer to its static fields.
+     */
+    private static final class VariablePattern {
+        private static final Pattern INSTANCE = Pattern.compile("\\{(.+?)}", Pattern.MULTILINE);
     }
 
 }
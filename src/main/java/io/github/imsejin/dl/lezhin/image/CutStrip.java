@@ -0,0 +1,340 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.image;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * Image of the cuts stacked vertically, whose pixels are decoded only when they are requested
+ *
+ * <p> This holds a band of rows at a time instead of the whole bitmap. When a row out of the band is
+ * requested, the next band is decoded from the cut having the row. An encoder that reads rows from top
+ * to bottom, such as the one of PNG, decodes each band once; so the memory is bounded by the width
+ * and the band, however tall the strip is.
+ *
+ * <p> Cuts narrower than the strip are centered on white background.
+ *
+ * @since 3.2.0
+ */
+@NotThreadSafe
+final class CutStrip implements RenderedImage, Closeable {
+
+    private final List<Path> cuts;
+
+    /**
+     * Row of the strip where each cut starts, and the height of the strip at the end.
+     */
+    private final long[] offsets;
+
+    private final int[] widths;
+
+    private final int width;
+
+    /**
+     * Row of the strip where this image starts, which is not zero for the pages after the first.
+     */
+    private final long fromRow;
+
+    private final int height;
+
+    private final int bandHeight;
+
+    private final BufferedImage band;
+
+    /**
+     * Row of the strip where the band starts, and the number of rows decoded in the band.
+     */
+    private long bandRow = -1;
+
+    private int bandRows;
+
+    private int readerIndex = -1;
+
+    private ImageReader reader;
+
+    private ImageInputStream input;
+
+    /**
+     * @param cuts       image files from top to bottom
+     * @param widths     widths of the cuts
+     * @param heights    heights of the cuts
+     * @param fromRow    row of the whole strip where this image starts
+     * @param height     height of this image
+     * @param bandHeight maximum number of rows decoded at a time
+     */
+    CutStrip(List<Path> cuts, int[] widths, int[] heights, long fromRow, int height, int bandHeight) {
+        this.cuts = cuts;
+        this.widths = widths;
+        this.offsets = new long[heights.length + 1];
+        for (int i = 0; i < heights.length; i++) {
+            this.offsets[i + 1] = this.offsets[i] + heights[i];
+        }
+
+        int width = 0;
+        for (int w : widths) {
+            width = Math.max(width, w);
+        }
+
+        this.width = width;
+        this.fromRow = fromRow;
+        this.height = height;
+        this.bandHeight = bandHeight;
+        this.band = new BufferedImage(width, bandHeight, BufferedImage.TYPE_INT_RGB);
+    }
+
+    @Override
+    public Raster getData(Rectangle rect) {
+        WritableRaster raster = this.band.getColorModel().createCompatibleWritableRaster(this.width, rect.height)
+                .createWritableTranslatedChild(0, rect.y);
+
+        for (int y = rect.y; y < rect.y + rect.height; ) {
+            long row = this.fromRow + y;
+            ensureBand(row);
+
+            int bandY = (int) (row - this.bandRow);
+            int rows = Math.min(this.bandRows - bandY, rect.y + rect.height - y);
+            raster.setRect(0, y - bandY, this.band.getRaster().createChild(0, bandY, this.width, rows, 0, bandY, null));
+            y += rows;
+        }
+
+        return raster.createChild(rect.x, rect.y, rect.width, rect.height, rect.x, rect.y, null);
+    }
+
+    @Override
+    public Raster getData() {
+        return getData(new Rectangle(0, 0, this.width, this.height));
+    }
+
+    @Override
+    public WritableRaster copyData(WritableRaster raster) {
+        Rectangle rect = raster == null ? new Rectangle(0, 0, this.width, this.height) : raster.getBounds();
+        Raster data = getData(rect);
+        if (raster == null) {
+            WritableRaster copy = data.createCompatibleWritableRaster(rect.x, rect.y, rect.width, rect.height);
+            copy.setRect(data);
+            return copy;
+        }
+
+        raster.setRect(data);
+        return raster;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeReader();
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    /**
+     * Decodes the band which starts with the row, if the row is not in the current band.
+     */
+    private void ensureBand(long row) {
+        if (this.bandRow >= 0 && row >= this.bandRow && row < this.bandRow + this.bandRows) {
+            return;
+        }
+
+        int index = findCut(row);
+        int cutRow = (int) (row - this.offsets[index]);
+        int cutHeight = (int) (this.offsets[index + 1] - this.offsets[index]);
+        int rows = Math.min(this.bandHeight, cutHeight - cutRow);
+
+        try {
+            ImageReader reader = openReader(index);
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceRegion(new Rectangle(0, cutRow, this.widths[index], rows));
+            BufferedImage decoded = reader.read(0, param);
+
+            Graphics2D graphics = this.band.createGraphics();
+            try {
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, this.width, this.bandHeight);
+                graphics.drawImage(decoded, (this.width - this.widths[index]) / 2, 0, null);
+            } finally {
+                graphics.dispose();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode image: " + this.cuts.get(index), e);
+        }
+
+        this.bandRow = row;
+        this.bandRows = rows;
+    }
+
+    private int findCut(long row) {
+        // Rows are requested from top to bottom, so the cut is usually the current or the next one.
+        int index = Math.max(this.readerIndex, 0);
+        if (row < this.offsets[index]) {
+            index = 0;
+        }
+        while (row >= this.offsets[index + 1]) {
+            index++;
+        }
+
+        return index;
+    }
+
+    private ImageReader openReader(int index) throws IOException {
+        if (index == this.readerIndex) {
+            return this.reader;
+        }
+
+        closeReader();
+
+        ImageInputStream input = ImageIO.createImageInputStream(this.cuts.get(index).toFile());
+        if (input == null) {
+            throw new IOException("Failed to open image: " + this.cuts.get(index));
+        }
+
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            input.close();
+            throw new IOException("Unsupported image format: " + this.cuts.get(index));
+        }
+
+        this.reader = readers.next();
+        this.reader.setInput(input, true, true);
+        this.input = input;
+        this.readerIndex = index;
+
+        return this.reader;
+    }
+
+    private void closeReader() throws IOException {
+        if (this.reader != null) {
+            this.reader.dispose();
+            this.input.close();
+            this.reader = null;
+            this.input = null;
+            this.readerIndex = -1;
+        }
+    }
+
+    // RenderedImage -----------------------------------------------------------------------------------
+
+    @Override
+    public Vector<RenderedImage> getSources() {
+        return null;
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        return java.awt.Image.UndefinedProperty;
+    }
+
+    @Override
+    public String[] getPropertyNames() {
+        return null;
+    }
+
+    @Override
+    public ColorModel getColorModel() {
+        return this.band.getColorModel();
+    }
+
+    @Override
+    public SampleModel getSampleModel() {
+        return this.band.getSampleModel().createCompatibleSampleModel(this.width, this.bandHeight);
+    }
+
+    @Override
+    public int getWidth() {
+        return this.width;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.height;
+    }
+
+    @Override
+    public int getMinX() {
+        return 0;
+    }
+
+    @Override
+    public int getMinY() {
+        return 0;
+    }
+
+    @Override
+    public int getNumXTiles() {
+        return 1;
+    }
+
+    @Override
+    public int getNumYTiles() {
+        return (this.height + this.bandHeight - 1) / this.bandHeight;
+    }
+
+    @Override
+    public int getMinTileX() {
+        return 0;
+    }
+
+    @Override
+    public int getMinTileY() {
+        return 0;
+    }
+
+    @Override
+    public int getTileWidth() {
+        return this.width;
+    }
+
+    @Override
+    public int getTileHeight() {
+        return this.bandHeight;
+    }
+
+    @Override
+    public int getTileGridXOffset() {
+        return 0;
+    }
+
+    @Override
+    public int getTileGridYOffset() {
+        return 0;
+    }
+
+    @Override
+    public Raster getTile(int tileX, int tileY) {
+        int y = tileY * this.bandHeight;
+        return getData(new Rectangle(0, y, this.width, Math.min(this.bandHeight, this.height - y)));
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.image;
+
+import io.github.imsejin.common.assertion.Asserts;
+import io.github.imsejin.dl.lezhin.common.Loggers;
+import io.github.imsejin.dl.lezhin.metrics.MetricRegistry;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scheduler that stitches the episodes on a pool of its own
+ *
+ * <p> Stitching is bound by CPU while downloading is bound by network, so they run on separate pools;
+ * an episode is stitched while the images of the next episodes are downloaded. The pool has half of
+ * the processors by default, which leaves the rest to the download workers and hashing.
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class StitchScheduler implements AutoCloseable {
+
+    private final StripStitcher stitcher;
+
+    private final ExecutorService executor;
+
+    /**
+     * @param stitcher stitcher
+     * @param threads  number of threads
+     */
+    public StitchScheduler(StripStitcher stitcher, int threads) {
+        Asserts.that(threads)
+                .describedAs("StitchScheduler.threads must be positive: {0}", threads)
+                .isPositive();
+
+        this.stitcher = stitcher;
+        this.executor = Executors.newFixedThreadPool(threads, new StitcherThreadFactory());
+    }
+
+    /**
+     * Creates a scheduler with half of the available processors.
+     *
+     * @param stitcher stitcher
+     * @return scheduler
+     */
+    public static StitchScheduler create(StripStitcher stitcher) {
+        return new StitchScheduler(stitcher, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * Submits the cuts to be stitched. Failure is logged rather than propagated,
+     * because the images are downloaded anyway.
+     *
+     * @param cuts      image files from top to bottom
+     * @param directory directory where the strips are written
+     * @param name      name of the episode for logging
+     * @return future completed when the strips are written or failed
+     */
+    public CompletableFuture<Void> submit(List<Path> cuts, Path directory, String name) {
+        return CompletableFuture.runAsync(() -> {
+            long startedAt = System.nanoTime();
+
+            List<Path> strips;
+            try {
+                strips = this.stitcher.stitch(cuts, directory);
+            } catch (IOException | RuntimeException e) {
+                MetricRegistry.getDefault().counter("lezhin_stitch_failures_total").increment();
+                Loggers.getLogger().warn("Failed to stitch images of episode[{}]: {}", name, e.getMessage());
+                return;
+            }
+
+            if (!strips.isEmpty()) {
+                MetricRegistry.getDefault().histogram("lezhin_stitch_duration_seconds").recordSince(startedAt);
+                Loggers.getLogger().debug("Stitch {} images of episode[{}] into {} strip(s) in {} ms",
+                        cuts.size(), name, strips.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            }
+        }, this.executor);
+    }
+
+    /**
+     * Waits for all the submitted episodes to be stitched and releases the threads.
+     */
+    @Override
+    public void close() {
+        this.executor.shutdown();
+
+        try {
+            while (!this.executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // Keeps waiting, stitching a long series can take a while.
+            }
+        } catch (InterruptedException e) {
+            this.executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static final class StitcherThreadFactory implements ThreadFactory {
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "stitch-" + this.sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
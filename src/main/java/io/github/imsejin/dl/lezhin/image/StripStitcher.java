@@ -0,0 +1,202 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.image;
+
+import io.github.imsejin.common.assertion.Asserts;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Stitcher that stacks the cuts of an episode vertically into PNG strips
+ *
+ * <p> The cuts are decoded in bands of rows and the strip is encoded row by row, so the memory doesn't
+ * grow with the height of the strip; see {@link CutStrip}. The output is PNG, because its writer streams
+ * the rows while the other writers of ImageIO take the whole bitmap, and JPEG is limited to 65535 pixels.
+ *
+ * <p> When the page height is given, the strip is split into the pages of that height, named
+ * {@code strip-01.png}, {@code strip-02.png} and so on; otherwise a single {@code strip.png} is written.
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class StripStitcher {
+
+    public static final String FILE_NAME = "strip";
+
+    public static final String EXTENSION = "png";
+
+    private static final int DEFAULT_BAND_HEIGHT = 512;
+
+    /**
+     * Height of a page, or zero for a single strip.
+     */
+    private final int pageHeight;
+
+    private final int bandHeight;
+
+    /**
+     * @param pageHeight height of a page, or zero for a single strip
+     */
+    public StripStitcher(int pageHeight) {
+        this(pageHeight, DEFAULT_BAND_HEIGHT);
+    }
+
+    @VisibleForTesting
+    StripStitcher(int pageHeight, int bandHeight) {
+        Asserts.that(pageHeight)
+                .describedAs("StripStitcher.pageHeight must not be negative: {0}", pageHeight)
+                .isGreaterThanOrEqualTo(0);
+        Asserts.that(bandHeight)
+                .describedAs("StripStitcher.bandHeight must be positive: {0}", bandHeight)
+                .isPositive();
+
+        this.pageHeight = pageHeight;
+        this.bandHeight = bandHeight;
+    }
+
+    /**
+     * Stitches the cuts into the strips in the directory, unless they already exist.
+     *
+     * @param cuts      image files from top to bottom
+     * @param directory directory where the strips are written
+     * @return strips written, or empty list if they already exist
+     * @throws IOException if failed to read the cuts or write the strips
+     */
+    public List<Path> stitch(List<Path> cuts, Path directory) throws IOException {
+        if (cuts.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        int[] widths = new int[cuts.size()];
+        int[] heights = new int[cuts.size()];
+        long totalHeight = 0;
+        for (int i = 0; i < cuts.size(); i++) {
+            readSize(cuts.get(i), widths, heights, i);
+            totalHeight += heights[i];
+        }
+
+        List<Path> pages = getPages(directory, totalHeight);
+        if (pages.stream().allMatch(Files::isRegularFile)) {
+            return Collections.emptyList();
+        }
+
+        long fromRow = 0;
+        for (Path page : pages) {
+            int height = (int) Math.min(this.pageHeight == 0 ? totalHeight : this.pageHeight, totalHeight - fromRow);
+            try (CutStrip image = new CutStrip(cuts, widths, heights, fromRow, height, this.bandHeight)) {
+                write(image, page);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            fromRow += height;
+        }
+
+        return pages;
+    }
+
+    /**
+     * Returns the paths of the pages for the strip of the height.
+     *
+     * @param directory   directory where the strips are written
+     * @param totalHeight height of the whole strip
+     * @return paths of the pages
+     */
+    @VisibleForTesting
+    List<Path> getPages(Path directory, long totalHeight) {
+        if (this.pageHeight == 0) {
+            if (totalHeight > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Strip is too tall to be a single image: " + totalHeight);
+            }
+
+            return List.of(directory.resolve(FILE_NAME + '.' + EXTENSION));
+        }
+
+        int count = (int) ((totalHeight + this.pageHeight - 1) / this.pageHeight);
+        int digits = Math.max(2, String.valueOf(count).length());
+
+        List<Path> pages = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            pages.add(directory.resolve(String.format("%s-%0" + digits + "d.%s", FILE_NAME, i, EXTENSION)));
+        }
+
+        return pages;
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    /**
+     * Reads the size from the header, without decoding the pixels.
+     */
+    private static void readSize(Path cut, int[] widths, int[] heights, int index) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(cut.toFile())) {
+            Iterator<ImageReader> readers = input == null
+                    ? Collections.emptyIterator()
+                    : ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format: " + cut);
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                widths[index] = reader.getWidth(0);
+                heights[index] = reader.getHeight(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Writes the image into a temporary file and then moves it, so a strip is never seen half written.
+     */
+    private static void write(CutStrip image, Path page) throws IOException {
+        Path tempFile = page.resolveSibling('.' + page.getFileName().toString() + ".part");
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(EXTENSION).next();
+        try {
+            Files.deleteIfExists(tempFile);
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(tempFile.toFile())) {
+                writer.setOutput(output);
+                writer.write(null, new IIOImage(image, null, null), writer.getDefaultWriteParam());
+            }
+
+            Files.move(tempFile, page, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            writer.dispose();
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+}
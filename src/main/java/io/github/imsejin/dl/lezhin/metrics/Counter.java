@@ -0,0 +1,50 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.metrics;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonically increasing count, such as the number of retries or the bytes downloaded
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class Counter {
+
+    private final LongAdder adder = new LongAdder();
+
+    Counter() {
+    }
+
+    public void increment() {
+        this.adder.increment();
+    }
+
+    /**
+     * @param amount amount to add, which must not be negative
+     */
+    public void add(long amount) {
+        this.adder.add(amount);
+    }
+
+    public long get() {
+        return this.adder.sum();
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.metrics;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of durations in fixed buckets
+ *
+ * <p> Recording is just an increment of a bucket, so workers never contend on a lock.
+ * Quantiles are estimated as the upper bound of the bucket where they fall.
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class Histogram {
+
+    /**
+     * Upper bounds of the buckets in seconds, from a quick API call to a slow image on a throttled link.
+     */
+    static final double[] BOUNDS = {
+            0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300,
+    };
+
+    private static final long[] BOUND_NANOS = new long[BOUNDS.length];
+
+    static {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            BOUND_NANOS[i] = (long) (BOUNDS[i] * 1_000_000_000);
+        }
+    }
+
+    /**
+     * Counts of the buckets; the last one is for the values over the largest bound.
+     */
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+
+    private final LongAdder sumNanos = new LongAdder();
+
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    Histogram() {
+        for (int i = 0; i < this.buckets.length; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the elapsed time.
+     *
+     * @param nanos elapsed time in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+
+        int index = 0;
+        while (index < BOUND_NANOS.length && value > BOUND_NANOS[index]) {
+            index++;
+        }
+
+        this.buckets[index].increment();
+        this.sumNanos.add(value);
+        this.maxNanos.accumulate(value);
+    }
+
+    public void record(Duration duration) {
+        record(duration.toNanos());
+    }
+
+    /**
+     * Records the time elapsed since the start.
+     *
+     * @param startedAt start time in {@link System#nanoTime()}
+     */
+    public void recordSince(long startedAt) {
+        record(System.nanoTime() - startedAt);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : this.buckets) {
+            count += bucket.sum();
+        }
+
+        return count;
+    }
+
+    public double getSumSeconds() {
+        return this.sumNanos.sum() / 1e9;
+    }
+
+    public double getMaxSeconds() {
+        return this.maxNanos.get() / 1e9;
+    }
+
+    /**
+     * Returns the cumulative counts of the buckets, whose last one is the total count.
+     *
+     * @return cumulative counts
+     */
+    long[] getCumulativeCounts() {
+        long[] counts = new long[this.buckets.length];
+        long cumulative = 0;
+        for (int i = 0; i < this.buckets.length; i++) {
+            cumulative += this.buckets[i].sum();
+            counts[i] = cumulative;
+        }
+
+        return counts;
+    }
+
+    /**
+     * Estimates the quantile.
+     *
+     * @param quantile quantile between 0 and 1, such as 0.99
+     * @return upper bound of the bucket where the quantile falls in seconds, or zero if nothing is recorded
+     */
+    public double getQuantileSeconds(double quantile) {
+        long[] counts = getCumulativeCounts();
+        long total = counts[counts.length - 1];
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(quantile * total);
+        for (int i = 0; i < BOUNDS.length; i++) {
+            if (counts[i] >= rank) {
+                // The bound can't be larger than the largest value.
+                return Math.min(BOUNDS[i], getMaxSeconds());
+            }
+        }
+
+        return getMaxSeconds();
+    }
+
+}
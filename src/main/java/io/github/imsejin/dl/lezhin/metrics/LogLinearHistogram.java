@@ -0,0 +1,119 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.metrics;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Distribution of values in buckets which get wider in proportion to the values
+ *
+ * <p> Each power of two is split into {@value #SUB_BUCKET_COUNT} buckets, so a quantile is estimated
+ * within 0.4% of the value however many values are recorded, in a fixed size of memory.
+ * Recording is just an increment of a bucket, so workers never contend on a lock.
+ *
+ * <pre>
+ *     0, 1, ..., 127            : a bucket per value
+ *     128, 130, ..., 254        : a bucket per 2 values
+ *     256, 260, ..., 508        : a bucket per 4 values
+ *     ...
+ * </pre>
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+final class LogLinearHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray((Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT);
+
+    /**
+     * Records the value.
+     *
+     * @param value value, which is regarded as zero if negative
+     */
+    void record(long value) {
+        this.counts.incrementAndGet(toIndex(Math.max(value, 0)));
+    }
+
+    long getCount() {
+        long count = 0;
+        for (int i = 0; i < this.counts.length(); i++) {
+            count += this.counts.get(i);
+        }
+
+        return count;
+    }
+
+    /**
+     * Estimates the quantile by the nearest rank.
+     *
+     * @param quantile quantile between 0 and 1, such as 0.99
+     * @return middle of the bucket where the quantile falls, or zero if nothing is recorded
+     */
+    long getQuantile(double quantile) {
+        long[] snapshot = new long[this.counts.length()];
+        long total = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = this.counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max((long) Math.ceil(quantile * total), 1);
+        long cumulative = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            cumulative += snapshot[i];
+            if (cumulative >= rank) {
+                return toValue(i);
+            }
+        }
+
+        throw new AssertionError("Never happened");
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static int toIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        // The highest bits of the value, which are between SUB_BUCKET_COUNT and twice of it.
+        int shift = Long.SIZE - SUB_BUCKET_BITS - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> shift);
+
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket - SUB_BUCKET_COUNT;
+    }
+
+    private static long toValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lowerBound = (long) (index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT) << shift;
+
+        return lowerBound + ((1L << shift) >>> 1);
+    }
+
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.metrics;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import io.github.imsejin.common.assertion.Asserts;
+import lombok.EqualsAndHashCode;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Registry of the metrics of a run
+ *
+ * <p> A metric is identified by its name and labels, which are given as pairs of a name and a value.
+ * The same metric is returned for the same name and labels, so the callers don't need to keep it.
+ *
+ * <pre>{@code
+ *     MetricRegistry.getDefault().counter("lezhin_http_retries_total", "host", "rcdn.lezhin.com").increment();
+ * }</pre>
+ *
+ * <p> The metrics are exported as a JSON summary or in the text format of Prometheus.
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class MetricRegistry {
+
+    private static final MetricRegistry DEFAULT = new MetricRegistry();
+
+    private final long startedAt = System.currentTimeMillis();
+
+    private final long startedAtNanos = System.nanoTime();
+
+    private final Map<Key, Counter> counters = new ConcurrentSkipListMap<>();
+
+    private final Map<Key, Histogram> histograms = new ConcurrentSkipListMap<>();
+
+    private final Map<Key, Gauge> gauges = new ConcurrentSkipListMap<>();
+
+    @VisibleForTesting
+    MetricRegistry() {
+    }
+
+    /**
+     * Returns the registry shared by the whole application.
+     *
+     * @return default registry
+     */
+    public static MetricRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    public Counter counter(String name, String... labels) {
+        return this.counters.computeIfAbsent(new Key(name, labels), it -> new Counter());
+    }
+
+    public Histogram histogram(String name, String... labels) {
+        return this.histograms.computeIfAbsent(new Key(name, labels), it -> new Histogram());
+    }
+
+    /**
+     * Registers a gauge, replacing the one registered with the same name and labels.
+     *
+     * @param name     name of the metric
+     * @param supplier supplier of the value
+     * @param labels   pairs of label name and value
+     */
+    public void gauge(String name, LongSupplier supplier, String... labels) {
+        this.gauges.put(new Key(name, labels), new Gauge(supplier));
+    }
+
+    /**
+     * Returns the summary of the metrics. Counters have their average per second over the run as well.
+     *
+     * @return summary in JSON
+     */
+    public JsonObject toJson() {
+        double elapsedSeconds = (System.nanoTime() - this.startedAtNanos) / 1e9;
+
+        JsonObject counters = new JsonObject();
+        this.counters.forEach((key, counter) -> {
+            JsonObject json = new JsonObject();
+            json.addProperty("value", counter.get());
+            json.addProperty("perSecond", elapsedSeconds > 0 ? counter.get() / elapsedSeconds : 0);
+            counters.add(key.toString(), json);
+        });
+
+        JsonObject histograms = new JsonObject();
+        this.histograms.forEach((key, histogram) -> {
+            long count = histogram.getCount();
+            JsonObject json = new JsonObject();
+            json.addProperty("count", count);
+            json.addProperty("sumSeconds", histogram.getSumSeconds());
+            json.addProperty("meanSeconds", count > 0 ? histogram.getSumSeconds() / count : 0);
+            json.addProperty("p50Seconds", histogram.getQuantileSeconds(0.5));
+            json.addProperty("p90Seconds", histogram.getQuantileSeconds(0.9));
+            json.addProperty("p99Seconds", histogram.getQuantileSeconds(0.99));
+            json.addProperty("maxSeconds", histogram.getMaxSeconds());
+            histograms.add(key.toString(), json);
+        });
+
+        JsonObject gauges = new JsonObject();
+        this.gauges.forEach((key, gauge) -> gauges.addProperty(key.toString(), gauge.get()));
+
+        JsonObject summary = new JsonObject();
+        summary.addProperty("startedAt", Instant.ofEpochMilli(this.startedAt).toString());
+        summary.addProperty("elapsedSeconds", elapsedSeconds);
+        summary.add("counters", counters);
+        summary.add("histograms", histograms);
+        summary.add("gauges", gauges);
+
+        return summary;
+    }
+
+    /**
+     * Writes the summary of the metrics to the file.
+     *
+     * @param path JSON file
+     * @throws IOException if failed to write
+     */
+    public void writeJson(Path path) throws IOException {
+        String json = new GsonBuilder().setPrettyPrinting().create().toJson(toJson());
+        Files.writeString(path, json, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the metrics in the text exposition format of Prometheus.
+     *
+     * @return metrics in text
+     */
+    public String toPrometheus() {
+        StringBuilder sb = new StringBuilder(4096);
+        List<String> declared = new ArrayList<>();
+
+        this.counters.forEach((key, counter) -> {
+            declareType(sb, declared, key.name, "counter");
+            sb.append(key).append(' ').append(counter.get()).append('\n');
+        });
+
+        this.gauges.forEach((key, gauge) -> {
+            declareType(sb, declared, key.name, "gauge");
+            sb.append(key).append(' ').append(gauge.get()).append('\n');
+        });
+
+        this.histograms.forEach((key, histogram) -> {
+            declareType(sb, declared, key.name, "histogram");
+
+            long[] counts = histogram.getCumulativeCounts();
+            for (int i = 0; i < Histogram.BOUNDS.length; i++) {
+                sb.append(key.withSuffix("_bucket", "le", String.valueOf(Histogram.BOUNDS[i])))
+                        .append(' ').append(counts[i]).append('\n');
+            }
+            sb.append(key.withSuffix("_bucket", "le", "+Inf")).append(' ').append(counts[counts.length - 1]).append('\n');
+            sb.append(key.withSuffix("_sum")).append(' ').append(histogram.getSumSeconds()).append('\n');
+            sb.append(key.withSuffix("_count")).append(' ').append(counts[counts.length - 1]).append('\n');
+        });
+
+        return sb.toString();
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static void declareType(StringBuilder sb, List<String> declared, String name, String type) {
+        if (!declared.contains(name)) {
+            declared.add(name);
+            sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        }
+    }
+
+    /**
+     * Name and labels of a metric, which is rendered like {@code name{label="value"}}.
+     */
+    @EqualsAndHashCode
+    private static final class Key implements Comparable<Key> {
+        private final String name;
+        private final List<String> labels;
+
+        private Key(String name, String... labels) {
+            Asserts.that(labels.length % 2)
+                    .describedAs("Labels of metric must be pairs of name and value: {0}", Arrays.toString(labels))
+                    .isEqualTo(0);
+
+            this.name = name;
+            this.labels = List.of(labels);
+        }
+
+        private Key withSuffix(String suffix, String... labels) {
+            String[] merged = new String[this.labels.size() + labels.length];
+            this.labels.toArray(merged);
+            System.arraycopy(labels, 0, merged, this.labels.size(), labels.length);
+
+            return new Key(this.name + suffix, merged);
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            return toString().compareTo(other.toString());
+        }
+
+        @Override
+        public String toString() {
+            if (this.labels.isEmpty()) {
+                return this.name;
+            }
+
+            StringBuilder sb = new StringBuilder(this.name).append('{');
+            for (int i = 0; i < this.labels.size(); i += 2) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+
+                String value = this.labels.get(i + 1).replace("\\", "\\\\").replace("\"", "\\\"");
+                sb.append(this.labels.get(i)).append("=\"").append(value).append('"');
+            }
+
+            return sb.append('}').toString();
+        }
+    }
+
+}
@@ -18,19 +18,34 @@ package io.github.imsejin.dl.lezhin.process;
 
 import io.github.imsejin.common.util.ArrayUtils;
 import io.github.imsejin.common.util.ReflectionUtils;
+import io.github.imsejin.dl.lezhin.argument.impl.ArchiveMode;
+import io.github.imsejin.dl.lezhin.argument.impl.Bandwidth;
+import io.github.imsejin.dl.lezhin.argument.impl.BatchFile;
+import io.github.imsejin.dl.lezhin.argument.impl.Browserless;
+import io.github.imsejin.dl.lezhin.argument.impl.Concurrency;
 import io.github.imsejin.dl.lezhin.argument.impl.ContentName;
 import io.github.imsejin.dl.lezhin.argument.impl.DebugMode;
+import io.github.imsejin.dl.lezhin.argument.impl.DedupMode;
 import io.github.imsejin.dl.lezhin.argument.impl.EpisodeRange;
 import io.github.imsejin.dl.lezhin.argument.impl.ImageFormat;
 import io.github.imsejin.dl.lezhin.argument.impl.Language;
+import io.github.imsejin.dl.lezhin.argument.impl.MetricsFile;
+import io.github.imsejin.dl.lezhin.argument.impl.MetricsPort;
+import io.github.imsejin.dl.lezhin.argument.impl.RequestRate;
 import io.github.imsejin.dl.lezhin.argument.impl.SingleThreading;
+import io.github.imsejin.dl.lezhin.argument.impl.Stitch;
+import io.github.imsejin.dl.lezhin.argument.impl.SyncMode;
+import io.github.imsejin.dl.lezhin.argument.impl.VirtualThreading;
 import io.github.imsejin.dl.lezhin.attribute.Attribute;
 import io.github.imsejin.dl.lezhin.attribute.impl.AccessToken;
 import io.github.imsejin.dl.lezhin.attribute.impl.Authentication;
 import io.github.imsejin.dl.lezhin.attribute.impl.Content;
 import io.github.imsejin.dl.lezhin.attribute.impl.DirectoryPath;
 import io.github.imsejin.dl.lezhin.attribute.impl.HttpHosts;
+import io.github.imsejin.dl.lezhin.attribute.impl.PageSession;
 import io.github.imsejin.dl.lezhin.attribute.impl.PurchasedEpisodes;
+import io.github.imsejin.dl.lezhin.attribute.impl.SessionCache;
+import io.github.imsejin.dl.lezhin.attribute.impl.WebHost;
 import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -76,16 +91,46 @@ public final class ProcessContext {
 
     private EpisodeRange episodeRange;
 
+    private BatchFile batchFile;
+
     private ImageFormat imageFormat;
 
     private DebugMode debugMode;
 
     private SingleThreading singleThreading;
 
+    private VirtualThreading virtualThreading;
+
+    private Concurrency concurrency;
+
+    private SyncMode syncMode;
+
+    private ArchiveMode archiveMode;
+
+    private DedupMode dedupMode;
+
+    private Stitch stitch;
+
+    private Browserless browserless;
+
+    private Bandwidth bandwidth;
+
+    private RequestRate requestRate;
+
+    private MetricsFile metricsFile;
+
+    private MetricsPort metricsPort;
+
     // From processors ---------------------------------------------------------------------------------
 
     private Authentication authentication;
 
+    private SessionCache sessionCache;
+
+    private PageSession pageSession;
+
+    private WebHost webHost;
+
     private HttpHosts httpHosts;
 
     private AccessToken accessToken;
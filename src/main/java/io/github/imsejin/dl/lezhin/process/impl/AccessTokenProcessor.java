@@ -18,11 +18,13 @@ package io.github.imsejin.dl.lezhin.process.impl;
 
 import io.github.imsejin.dl.lezhin.annotation.ProcessSpecification;
 import io.github.imsejin.dl.lezhin.attribute.impl.AccessToken;
+import io.github.imsejin.dl.lezhin.attribute.impl.SessionCache;
 import io.github.imsejin.dl.lezhin.browser.WebBrowser;
 import io.github.imsejin.dl.lezhin.common.Loggers;
 import io.github.imsejin.dl.lezhin.exception.AccessTokenNotFoundException;
 import io.github.imsejin.dl.lezhin.process.ProcessContext;
 import io.github.imsejin.dl.lezhin.process.Processor;
+import io.github.imsejin.dl.lezhin.session.Session;
 import org.openqa.selenium.By;
 import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.TimeoutException;
@@ -81,6 +83,11 @@ public class AccessTokenProcessor implements Processor {
      */
     @Override
     public AccessToken process(ProcessContext context) throws AccessTokenNotFoundException {
+        SessionCache sessionCache = context.getSessionCache();
+        if (sessionCache != null && sessionCache.isHit()) {
+            return sessionCache.getSession().toAccessToken();
+        }
+
         try {
             // Finds a script tag that has access token.
             WebBrowser.waitForPresenceOfElement(By.xpath("//script[not(@src) and contains(text(), '__LZ_ME__')]"));
@@ -98,6 +105,12 @@ public class AccessTokenProcessor implements Processor {
         AccessToken accessToken = new AccessToken(token);
         Loggers.getLogger().info("Successfully logged in: access token({})", token);
 
+        // Caches the session to skip login next time.
+        if (sessionCache != null) {
+            Session session = Session.of(accessToken, context.getHttpHosts(), WebBrowser.getCookies());
+            sessionCache.getStore().save(session);
+        }
+
         return accessToken;
     }
 
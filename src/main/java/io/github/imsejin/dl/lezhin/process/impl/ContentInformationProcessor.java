@@ -16,19 +16,29 @@
 
 package io.github.imsejin.dl.lezhin.process.impl;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 import io.github.imsejin.common.assertion.Asserts;
 import io.github.imsejin.common.util.JsonUtils;
 import io.github.imsejin.dl.lezhin.annotation.ProcessSpecification;
 import io.github.imsejin.dl.lezhin.argument.impl.Language;
 import io.github.imsejin.dl.lezhin.attribute.impl.Content;
+import io.github.imsejin.dl.lezhin.attribute.impl.PageSession;
 import io.github.imsejin.dl.lezhin.browser.WebBrowser;
 import io.github.imsejin.dl.lezhin.common.Loggers;
 import io.github.imsejin.dl.lezhin.exception.LezhinComicsDownloaderException;
+import io.github.imsejin.dl.lezhin.http.page.WebPageClient;
+import io.github.imsejin.dl.lezhin.http.page.WebPageClient.Page;
 import io.github.imsejin.dl.lezhin.http.url.URIs;
 import io.github.imsejin.dl.lezhin.process.ProcessContext;
 import io.github.imsejin.dl.lezhin.process.Processor;
+import org.jetbrains.annotations.Nullable;
 import org.openqa.selenium.By;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URI;
 import java.util.Locale;
 
 /**
@@ -41,6 +51,19 @@ public class ContentInformationProcessor implements Processor {
 
     @Override
     public Content process(ProcessContext context) throws LezhinComicsDownloaderException {
+        // Reads the content from the page without web browser if possible.
+        PageSession pageSession = context.getPageSession();
+        if (pageSession != null) {
+            Content content = requestOverHttp(context, pageSession.getClient());
+            if (content != null) {
+                return content;
+            }
+
+            if (!WebBrowser.isRunning()) {
+                LocaleSelectionProcessor.runWebBrowser(context);
+            }
+        }
+
         Locale locale = context.getLanguage().getValue();
 
         // Goes to page of the content.
@@ -65,6 +88,12 @@ public class ContentInformationProcessor implements Processor {
             jsonString = WebBrowser.evaluate("JSON.stringify(window.__LZ_PRODUCT__.product)", String.class);
         }
 
+        return toContent(jsonString, expired);
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static Content toContent(String jsonString, boolean expired) {
         Content content = JsonUtils.toObject(jsonString, Content.class);
         Asserts.that(content)
                 .isNotNull()
@@ -74,7 +103,48 @@ public class ContentInformationProcessor implements Processor {
         return content;
     }
 
-    // -------------------------------------------------------------------------------------------------
+    /**
+     * Reads the content from inline script of the page, not from the rendered page.
+     *
+     * @return content or {@code null} if failed to read it
+     * @since 3.2.0
+     */
+    @Nullable
+    private static Content requestOverHttp(ProcessContext context, WebPageClient webPageClient) {
+        Language language = context.getLanguage();
+        String lang = language.getValue().getLanguage();
+        String contentName = context.getContentName().getValue();
+
+        try {
+            String contentPath = URIs.CONTENT.get(lang, contentName);
+            Loggers.getLogger().info("Request comic page over HTTP: {}", contentPath);
+            Page page = webPageClient.extract(contentPath, "__LZ_PRODUCT__");
+
+            // Checks expiration of the content.
+            boolean expired = URI.create(page.getUrl()).getPath().endsWith(URIs.EXPIRATION.get(lang));
+            if (expired) {
+                Loggers.getLogger().info("Comic is expired -> try to find it in 'My Library'");
+                String libraryContentPath = URIs.LIBRARY_CONTENT.get(lang, language.asLocaleString(), contentName);
+                page = webPageClient.extract(libraryContentPath, "__LZ_PRODUCT__");
+            }
+
+            String objectLiteral = page.getObjectLiteral();
+            if (objectLiteral == null) {
+                Loggers.getLogger().info("No information of comic in the page -> use web browser: {}", page.getUrl());
+                return null;
+            }
+
+            // Object literal in script is not always a strict JSON, for example its keys may not be quoted.
+            JsonReader reader = new JsonReader(new StringReader(objectLiteral));
+            reader.setLenient(true);
+            JsonElement product = JsonParser.parseReader(reader).getAsJsonObject().get("product");
+
+            return toContent(product.toString(), expired);
+        } catch (IOException | RuntimeException e) {
+            Loggers.getLogger().info("Failed to read comic over HTTP -> use web browser: {}", e.toString());
+            return null;
+        }
+    }
 
     /**
      * @since 2.6.0
@@ -17,44 +17,74 @@
 package io.github.imsejin.dl.lezhin.process.impl;
 
 import io.github.imsejin.common.assertion.Asserts;
-import io.github.imsejin.common.util.FileUtils;
 import io.github.imsejin.dl.lezhin.annotation.ProcessSpecification;
 import io.github.imsejin.dl.lezhin.api.auth.model.Authority;
 import io.github.imsejin.dl.lezhin.api.auth.model.ServiceRequest;
+import io.github.imsejin.dl.lezhin.api.auth.service.AuthorityCache;
 import io.github.imsejin.dl.lezhin.api.auth.service.AuthorityService;
 import io.github.imsejin.dl.lezhin.api.image.service.EpisodeImageCountService;
+import io.github.imsejin.dl.lezhin.argument.impl.Concurrency;
 import io.github.imsejin.dl.lezhin.argument.impl.EpisodeRange;
 import io.github.imsejin.dl.lezhin.argument.impl.Language;
 import io.github.imsejin.dl.lezhin.attribute.impl.Content.Episode;
+import io.github.imsejin.dl.lezhin.attribute.impl.PageSession;
 import io.github.imsejin.dl.lezhin.browser.WebBrowser;
 import io.github.imsejin.dl.lezhin.common.Loggers;
 import io.github.imsejin.dl.lezhin.common.PropertyBinder;
+import io.github.imsejin.dl.lezhin.download.AdaptiveConcurrencyLimiter;
+import io.github.imsejin.dl.lezhin.download.BlobStore;
+import io.github.imsejin.dl.lezhin.download.DownloadManifest;
+import io.github.imsejin.dl.lezhin.download.DownloadProgress;
+import io.github.imsejin.dl.lezhin.download.DownloadScheduler;
+import io.github.imsejin.dl.lezhin.download.DownloadedImage;
+import io.github.imsejin.dl.lezhin.download.EpisodeArchive;
+import io.github.imsejin.dl.lezhin.download.EpisodeAuthority;
+import io.github.imsejin.dl.lezhin.download.FileSyncBatch;
+import io.github.imsejin.dl.lezhin.download.ImageCountProber;
+import io.github.imsejin.dl.lezhin.download.ImageDownloader;
+import io.github.imsejin.dl.lezhin.download.ImageDownloader.Presence;
+import io.github.imsejin.dl.lezhin.download.SyncHistory;
 import io.github.imsejin.dl.lezhin.exception.DirectoryCreationException;
+import io.github.imsejin.dl.lezhin.exception.HttpResponseException;
 import io.github.imsejin.dl.lezhin.exception.ImageCountNotFoundException;
+import io.github.imsejin.dl.lezhin.http.page.EpisodeImageCountReader;
+import io.github.imsejin.dl.lezhin.http.page.WebPageClient;
+import io.github.imsejin.dl.lezhin.http.url.EpisodeImageUrls;
 import io.github.imsejin.dl.lezhin.http.url.URIs;
+import io.github.imsejin.dl.lezhin.image.StitchScheduler;
+import io.github.imsejin.dl.lezhin.image.StripStitcher;
+import io.github.imsejin.dl.lezhin.metrics.MetricRegistry;
+import io.github.imsejin.dl.lezhin.metrics.RunReport;
+import io.github.imsejin.dl.lezhin.metrics.RunReport.EpisodeReport;
+import io.github.imsejin.dl.lezhin.metrics.RunReport.SkipReason;
 import io.github.imsejin.dl.lezhin.process.ProcessContext;
 import io.github.imsejin.dl.lezhin.process.Processor;
 import io.github.imsejin.dl.lezhin.util.FileNameUtils;
 import io.github.imsejin.dl.lezhin.util.PathUtils;
-import me.tongfei.progressbar.ConsoleProgressBarConsumer;
-import me.tongfei.progressbar.ProgressBar;
-import me.tongfei.progressbar.ProgressBarBuilder;
-import me.tongfei.progressbar.ProgressBarStyle;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
 import org.openqa.selenium.By;
 import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.WebElement;
 
-import java.net.MalformedURLException;
+import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
 import java.nio.file.Path;
-import java.text.DecimalFormat;
-import java.time.Duration;
-import java.time.temporal.ChronoUnit;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.IntStream;
 
 import static java.util.Comparator.comparingInt;
@@ -65,6 +95,7 @@ import static java.util.stream.Collectors.toUnmodifiableList;
  *
  * @since 3.0.0
  */
+@RequiredArgsConstructor
 @ProcessSpecification(dependsOn = DirectoryCreationProcessor.class)
 public class DownloadProcessor implements Processor {
 
@@ -73,94 +104,263 @@ public class DownloadProcessor implements Processor {
      */
     private static final Map<Locale, ImageCountResolver> IMPLEMENTATION_MAP = Map.ofEntries(
             Map.entry(Locale.KOREA, new UsingService()),
-            Map.entry(Locale.US, new VisitingPage()),
-            Map.entry(Locale.JAPAN, new VisitingPage())
+            Map.entry(Locale.US, new ReadingPage()),
+            Map.entry(Locale.JAPAN, new ReadingPage())
     );
 
+    /**
+     * Last resort of the other resolvers, which renders the episode pages on web browser one by one.
+     */
+    private static final ImageCountResolver VISITING_PAGE = new VisitingPage();
+
+    /**
+     * Number of the next episodes whose authorities are requested in advance.
+     */
+    private static final int AUTHORITY_PREFETCH_COUNT = 3;
+
+    private final Path basePath;
+
     @Override
     public Void process(ProcessContext context) throws DirectoryCreationException {
+        long startedAt = System.currentTimeMillis();
         Locale locale = context.getLanguage().getValue();
+        String contentAlias = context.getContent().getAlias();
 
         ImageCountResolver imageCountResolver = IMPLEMENTATION_MAP.get(locale);
-        imageCountResolver.prepare(context);
 
-        AuthorityService service = new AuthorityService(locale, context.getAccessToken().getValue());
+        AuthorityService service = new AuthorityService(locale, context.getAccessToken().getValue(),
+                context.getWebHost().getValue());
 
         List<Episode> episodes = context.getContent().getEpisodes().stream()
                 .sorted(comparingInt(Episode::getSeq)).collect(toUnmodifiableList());
 
-        int[] range = calculateRange(context.getEpisodeRange(), episodes.size());
-        for (int i : range) {
-            Episode episode = episodes.get(i);
+        // Skips the episodes which are not changed since the last sync.
+        SyncHistory syncHistory = context.getSyncMode().getValue() ? SyncHistory.load(this.basePath) : null;
+        SyncHistory.Entry lastSync = syncHistory == null ? null : syncHistory.get(locale, contentAlias);
+        if (lastSync != null) {
+            Loggers.getLogger().info("Sync episodes changed since {}", Instant.ofEpochMilli(lastSync.getSyncedAt()));
+        }
+        Queue<Episode> syncedEpisodes = new ConcurrentLinkedQueue<>();
 
-            // You can access episode you bought and free episode only.
-            // If you didn't buy it when accessing an expired content, you can't access even free episode.
-            boolean purchased = context.getPurchasedEpisodes().contains(episode.getId());
-            if (!(purchased || (episode.isFree() && !context.getContent().getProperties().isExpired()))) {
-                continue;
-            }
+        int concurrency = getConcurrency(context);
 
-            int imageCount = getImageCount(context, episode, imageCountResolver);
+        // Lets the limiter find the concurrency, and the workers are as many as its upper bound.
+        AdaptiveConcurrencyLimiter limiter = concurrency > 1 && context.getConcurrency().isAdaptive()
+                ? new AdaptiveConcurrencyLimiter(1, concurrency, Concurrency.DEFAULT_VALUE)
+                : null;
+        if (limiter != null) {
+            MetricRegistry.getDefault().gauge("lezhin_download_concurrency_limit", limiter::getLimit);
+        }
 
-            // If episode has no image, skips this episode.
-            if (imageCount < 1) {
-                continue;
-            }
+        // Archives have their own copies of the images, so they are not deduplicated.
+        boolean archiving = context.getArchiveMode().getValue();
+        BlobStore blobStore = context.getDedupMode().getValue() && !archiving ? new BlobStore(this.basePath) : null;
+        if (context.getDedupMode().getValue() && archiving) {
+            Loggers.getLogger().info("Images are not deduplicated while archiving episodes");
+        }
+
+        // Archives are completed as soon as the images are downloaded, so they are not stitched.
+        Integer pageHeight = archiving ? null : context.getStitch().getValue();
+        if (context.getStitch().getValue() != null && archiving) {
+            Loggers.getLogger().info("Images are not stitched while archiving episodes");
+        }
+
+        ImageDownloader imageDownloader = new ImageDownloader(limiter, blobStore);
+        RunReport report = RunReport.getDefault();
+        List<CompletableFuture<Void>> episodeFutures = new ArrayList<>();
+        AtomicInteger failedImageCount = new AtomicInteger();
+
+        // Images downloaded by the previous run are skipped as long as their files are intact.
+        DownloadManifest manifest = DownloadManifest.load(context.getDirectoryPath().getValue());
+
+        // While the workers download images of an episode, this thread prepares the next episodes.
+        // The progress is closed after the workers finish, and the stitcher last after the episodes are stitched.
+        StripStitcher stitcher = pageHeight == null ? null : new StripStitcher(pageHeight);
+        try (StitchScheduler stitchScheduler = stitcher == null ? null : StitchScheduler.create(stitcher);
+             DownloadProgress progress = DownloadProgress.start(contentAlias);
+             DownloadScheduler scheduler = createScheduler(context, concurrency);
+             AuthorityCache authorityCache = new AuthorityCache(service::getAuthForViewEpisode)) {
+            int[] range = calculateRange(context.getEpisodeRange(), episodes.size());
+            int[] targets = Arrays.stream(range)
+                    .filter(i -> isTarget(context, episodes.get(i), i + 1, lastSync, report))
+                    .toArray();
+
+            // Resolves the number of images of all the target episodes before downloading.
+            imageCountResolver.prepare(context, Arrays.stream(targets).mapToObj(episodes::get)
+                    .collect(toUnmodifiableList()));
+
+            for (int t = 0; t < targets.length; t++) {
+                int i = targets[t];
+                Episode episode = episodes.get(i);
+                boolean purchased = context.getPurchasedEpisodes().contains(episode.getId());
+
+                int imageCount = getImageCount(context, episode, imageCountResolver,
+                        it -> probeImageCount(context, it, imageDownloader, authorityCache, manifest));
+
+                int sequence = i + 1;
+
+                // If episode has no image, skips this episode.
+                if (imageCount < 1) {
+                    report.skipEpisode(contentAlias, "ep." + sequence, SkipReason.NO_IMAGE);
+                    continue;
+                }
+
+                String directoryName = String.format("%04d - %s", sequence, episode.getDisplay().getTitle());
+                directoryName = FileNameUtils.sanitize(directoryName);
+                directoryName = FileNameUtils.replaceForbiddenCharacters(directoryName);
+
+                String imageFormat = context.getImageFormat().getValue();
+                Path contentDirectoryPath = context.getDirectoryPath().getValue();
+                Path episodeDirectoryPath;
+                EpisodeArchive archive = null;
+                List<Integer> missingNumbers;
+
+                if (archiving) {
+                    // Images are appended to the archive of the episode in the directory of the content.
+                    episodeDirectoryPath = contentDirectoryPath;
+                    archive = openArchive(contentDirectoryPath.resolve(directoryName + '.' + EpisodeArchive.EXTENSION),
+                            imageCount, imageFormat);
+                    missingNumbers = archive == null
+                            ? List.of()
+                            : IntStream.rangeClosed(archive.getNextNumber(), imageCount)
+                                    .boxed().collect(toUnmodifiableList());
+                } else {
+                    // Creates a directory with the name of episode.
+                    episodeDirectoryPath = contentDirectoryPath.resolve(directoryName);
+                    PathUtils.createDirectoryIfNotExists(episodeDirectoryPath);
+
+                    missingNumbers = IntStream.rangeClosed(1, imageCount)
+                            .filter(n -> !manifest.isCompleted(episodeDirectoryPath.resolve(getImageFileName(n, imageFormat))))
+                            .boxed().collect(toUnmodifiableList());
+                }
+
+                // If all images of the episode are already downloaded, doesn't even request the authority.
+                if (missingNumbers.isEmpty()) {
+                    Loggers.getLogger().debug("Skip episode[{}]: all {} images are already downloaded",
+                            episode.getName(), imageCount);
+                    report.skipEpisode(contentAlias, "ep." + sequence, SkipReason.ALREADY_DOWNLOADED);
+                    syncedEpisodes.add(episode);
+
+                    // Strips which are missing, for example by enabling it after download, are stitched anyway.
+                    if (stitchScheduler != null) {
+                        stitch(stitchScheduler, episodeDirectoryPath, imageCount, imageFormat, episode);
+                    }
+                    continue;
+                }
 
-            int sequence = i + 1;
-            String directoryName = String.format("%04d - %s", sequence, episode.getDisplay().getTitle());
-            directoryName = FileNameUtils.sanitize(directoryName);
-            directoryName = FileNameUtils.replaceForbiddenCharacters(directoryName);
+                // Workers of this episode share the authority, which is refreshed when it is about to expire.
+                ServiceRequest serviceRequest = toServiceRequest(context, episode);
+                EpisodeAuthority authority = new EpisodeAuthority(authorityCache.get(serviceRequest),
+                        () -> authorityCache.refresh(serviceRequest));
 
-            // Creates a directory with the name of episode.
-            Path episodeDirectoryPath = context.getDirectoryPath().getValue().resolve(directoryName);
-            PathUtils.createDirectoryIfNotExists(episodeDirectoryPath);
+                // Requests the authorities of the next episodes while the images of this episode are downloaded,
+                // so that the next episode doesn't wait for its authority.
+                for (int k = t + 1; k < Math.min(t + 1 + AUTHORITY_PREFETCH_COUNT, targets.length); k++) {
+                    authorityCache.prefetch(toServiceRequest(context, episodes.get(targets[k])));
+                }
 
-            String taskName = String.format("%s ep.%d", context.getContent().getAlias(), sequence);
-            try (ProgressBar progressBar = createProgressBar(taskName, imageCount)) {
-                ServiceRequest serviceRequest = PropertyBinder.INSTANCE.toServiceRequest(context.getContent(), episode, purchased);
-                Authority authority = service.getAuthForViewEpisode(serviceRequest);
+                // Renders the constant parts of the image URLs once for the episode.
+                EpisodeImageUrls imageUrls = new EpisodeImageUrls(context.getHttpHosts().getContentsCdn(),
+                        context.getContent().getId(), episode.getId(), imageFormat, purchased);
+
+                progress.addEpisode(missingNumbers.size());
+
+                int[] numbers = new int[missingNumbers.size()];
+                Path[] dests = new Path[missingNumbers.size()];
+                FileSyncBatch syncBatch = new FileSyncBatch(episodeDirectoryPath);
+                EpisodeReport episodeReport = report.startEpisode(contentAlias, "ep." + sequence,
+                        missingNumbers.size());
+
+                EpisodeArchive episodeArchive = archive;
+
+                List<CompletableFuture<DownloadedImage>> imageFutures = new ArrayList<>(missingNumbers.size());
+                for (int j = 0; j < missingNumbers.size(); j++) {
+                    int num = missingNumbers.get(j);
+                    Path dest = episodeArchive == null
+                            ? episodeDirectoryPath.resolve(getImageFileName(num, imageFormat))
+                            : episodeArchive.getStagingFile(num);
+                    numbers[j] = num;
+                    dests[j] = dest;
+                    if (episodeArchive == null) {
+                        manifest.begin(episode.getId(), num, dest);
+                    }
 
-                // Downloads all images of the episode in sequential.
-                if (context.getSingleThreading().getValue()) {
-                    for (int n = 1; n <= imageCount; n++) {
-                        String fileName = String.format("%03d.%s", n, context.getImageFormat().getValue());
-                        Path dest = episodeDirectoryPath.resolve(fileName);
+                    imageFutures.add(scheduler.submit(() -> {
+                        long imageStartedAt = System.nanoTime();
 
                         // Tries to download an image of the specific resolution.
                         // The resolution depends on whether you paid for this episode or not.
-                        URL url = getImageUrl(context, episode, authority, n, purchased);
-                        boolean success = downloadImage(url, dest);
+                        DownloadedImage image = downloadImage(imageDownloader, authority,
+                                it -> imageUrls.get(it, num), dest);
+                        if (image != null && episodeArchive != null && !addToArchive(episodeArchive, num)) {
+                            image = null;
+                        }
 
                         // If failed to download, skips this image.
-                        if (!success) {
-                            continue;
+                        if (image == null) {
+                            failedImageCount.incrementAndGet();
+                            episodeReport.recordFailure();
+                            progress.onFailed();
+                        } else {
+                            if (episodeArchive == null) {
+                                syncBatch.add(dest);
+                            }
+                            progress.onDownloaded(image.getSize());
+                            episodeReport.recordImage(System.nanoTime() - imageStartedAt, image.getSize());
                         }
 
-                        progressBar.step();
-                    }
-
-                    continue;
+                        return image;
+                    }));
                 }
 
-                // Downloads all images of the episode in parallel.
-                IntStream.rangeClosed(1, imageCount).parallel().forEach(n -> {
-                    String fileName = String.format("%03d.%s", n, context.getImageFormat().getValue());
-                    Path dest = episodeDirectoryPath.resolve(fileName);
+                // The images are recorded as completed only after they are synced to the disk,
+                // and the manifest is saved from time to time so that an interrupted run can resume.
+                // The archive has synced its entries by itself, and is completed if it has all the images.
+                CompletableFuture<Void> episodeFuture = CompletableFuture
+                        .allOf(imageFutures.toArray(CompletableFuture[]::new))
+                        .whenComplete((result, throwable) -> {
+                            progress.completeEpisode();
+                            episodeReport.finish();
+                            if (episodeArchive != null) {
+                                if (closeArchive(episodeArchive, episode)) {
+                                    syncedEpisodes.add(episode);
+                                }
+                            } else if (throwable == null) {
+                                if (completeEpisode(manifest, episode, syncBatch, numbers, dests, imageFutures)) {
+                                    syncedEpisodes.add(episode);
+                                }
+
+                                // Stitches only if all the images are downloaded, without waiting for it.
+                                if (stitchScheduler != null
+                                        && imageFutures.stream().allMatch(it -> it.join() != null)) {
+                                    stitch(stitchScheduler, episodeDirectoryPath, imageCount, imageFormat, episode);
+                                }
+                            }
+                        });
+                episodeFutures.add(episodeFuture);
+            }
+        } finally {
+            manifest.save();
+        }
 
-                    // Tries to download an image of the specific resolution.
-                    // The resolution depends on whether you paid for this episode or not.
-                    URL url = getImageUrl(context, episode, authority, n, purchased);
-                    boolean success = downloadImage(url, dest);
+        // Propagates an exception thrown by any worker.
+        CompletableFuture.allOf(episodeFutures.toArray(CompletableFuture[]::new)).join();
 
-                    // If failed to download, skips this image.
-                    if (!success) {
-                        return;
-                    }
+        if (limiter != null) {
+            Loggers.getLogger().info("Concurrency settled at {} (peak: {}, max: {})",
+                    limiter.getLimit(), limiter.getPeakLimit(), concurrency);
+        }
 
-                    progressBar.step();
-                });
-            }
+        if (failedImageCount.get() > 0) {
+            Loggers.getLogger().warn("Failed to download {} image(s) of '{}'; run again to download them",
+                    failedImageCount.get(), contentAlias);
+        }
+
+        // Only the episodes having all the images are recorded, so the others will be synced again next time.
+        if (syncHistory != null) {
+            syncHistory.put(locale, contentAlias, startedAt, syncedEpisodes,
+                    it -> context.getPurchasedEpisodes().contains(it.getId()));
+            syncHistory.save();
         }
 
         return null;
@@ -168,11 +368,46 @@ public class DownloadProcessor implements Processor {
 
     // -------------------------------------------------------------------------------------------------
 
+    /**
+     * You can access episode you bought and free episode only.
+     * If you didn't buy it when accessing an expired content, you can't access even free episode.
+     */
+    private static boolean isAccessible(ProcessContext context, Episode episode) {
+        boolean purchased = context.getPurchasedEpisodes().contains(episode.getId());
+        return purchased || (episode.isFree() && !context.getContent().getProperties().isExpired());
+    }
+
+    /**
+     * Returns whether the episode is to be downloaded, reporting the reason if not.
+     */
+    private static boolean isTarget(ProcessContext context, Episode episode, int sequence,
+            @Nullable SyncHistory.Entry lastSync, RunReport report) {
+        SkipReason reason = null;
+        if (!isAccessible(context, episode)) {
+            reason = SkipReason.NOT_PURCHASED;
+        } else if (lastSync != null
+                && !lastSync.isChanged(episode, context.getPurchasedEpisodes().contains(episode.getId()))) {
+            reason = SkipReason.UNCHANGED;
+        }
+
+        if (reason == null) {
+            return true;
+        }
+
+        report.skipEpisode(context.getContent().getAlias(), "ep." + sequence, reason);
+        return false;
+    }
+
+    private static ServiceRequest toServiceRequest(ProcessContext context, Episode episode) {
+        boolean purchased = context.getPurchasedEpisodes().contains(episode.getId());
+        return PropertyBinder.INSTANCE.toServiceRequest(context.getContent(), episode, purchased);
+    }
+
     /**
      * @since 3.0.3
      */
     private interface ImageCountResolver {
-        default void prepare(ProcessContext context) {
+        default void prepare(ProcessContext context, List<Episode> episodes) {
         }
 
         int getImageCountOfEpisode(ProcessContext context, Episode episode);
@@ -182,10 +417,10 @@ public class DownloadProcessor implements Processor {
         private Map<String, Integer> imageCountMap;
 
         @Override
-        public void prepare(ProcessContext context) {
+        public void prepare(ProcessContext context, List<Episode> episodes) {
             UUID token = context.getAccessToken().getValue();
             String contentAlias = context.getContent().getAlias();
-            EpisodeImageCountService service = new EpisodeImageCountService(token);
+            EpisodeImageCountService service = new EpisodeImageCountService(token, context.getHttpHosts().getApi());
 
             this.imageCountMap = service.getImageCountMap(contentAlias);
         }
@@ -205,21 +440,76 @@ public class DownloadProcessor implements Processor {
         }
     }
 
-    private static final class VisitingPage implements ImageCountResolver {
+    /**
+     * @since 3.2.0
+     */
+    private static final class ReadingPage implements ImageCountResolver {
+        private Map<String, Integer> imageCountMap;
+
         @Override
-        public int getImageCountOfEpisode(ProcessContext context, Episode episode) {
-            Language language = context.getLanguage();
+        public void prepare(ProcessContext context, List<Episode> episodes) {
+            this.imageCountMap = Map.of();
+            if (episodes.isEmpty()) {
+                return;
+            }
 
-            String episodeUrl;
-            if (context.getContent().getProperties().isExpired()) {
-                // Visits to "My Library", if the content is expired.
-                episodeUrl = URIs.LIBRARY_EPISODE.get(language.getValue().getLanguage(),
-                        language.asLocaleString(), context.getContent().getAlias(), episode.getName());
+            // Web browser is already running unless browserless, so its session is borrowed.
+            PageSession pageSession = context.getPageSession();
+            WebPageClient webPageClient;
+            if (pageSession != null) {
+                webPageClient = pageSession.getClient();
             } else {
-                episodeUrl = URIs.EPISODE.get(language.getValue().getLanguage(),
-                        context.getContent().getAlias(), episode.getName());
+                if (!WebBrowser.isRunning()) {
+                    LocaleSelectionProcessor.runWebBrowser(context);
+                }
+
+                String baseUrl = URI.create(WebBrowser.getCurrentUrl()).resolve("/").toString();
+                webPageClient = new WebPageClient(baseUrl, WebBrowser.getCookies());
             }
 
+            Map<String, String> paths = new LinkedHashMap<>();
+            for (Episode episode : episodes) {
+                paths.put(episode.getName(), getEpisodePath(context, episode));
+            }
+
+            long startedAt = System.currentTimeMillis();
+            // A page is much heavier than an image, so pages are requested with half the concurrency.
+            int concurrency = Math.max(1, getConcurrency(context) / 2);
+            this.imageCountMap = new EpisodeImageCountReader(webPageClient, concurrency).readAll(paths);
+            Loggers.getLogger().debug("Read number of images of {}/{} episode(s) over HTTP in {} ms",
+                    this.imageCountMap.size(), paths.size(), System.currentTimeMillis() - startedAt);
+
+            if (this.imageCountMap.size() < paths.size()) {
+                Loggers.getLogger().info("Failed to read {} episode page(s) over HTTP -> use web browser for them",
+                        paths.size() - this.imageCountMap.size());
+                VISITING_PAGE.prepare(context, episodes);
+            }
+        }
+
+        @Override
+        public int getImageCountOfEpisode(ProcessContext context, Episode episode) {
+            Integer imageCount = this.imageCountMap.get(episode.getName());
+            if (imageCount != null) {
+                return imageCount;
+            }
+
+            return VISITING_PAGE.getImageCountOfEpisode(context, episode);
+        }
+    }
+
+    private static final class VisitingPage implements ImageCountResolver {
+        @Override
+        public void prepare(ProcessContext context, List<Episode> episodes) {
+            // Web browser doesn't run yet, if the pages have been requested without it.
+            if (!WebBrowser.isRunning()) {
+                LocaleSelectionProcessor.runWebBrowser(context);
+            }
+        }
+
+        @Override
+        public int getImageCountOfEpisode(ProcessContext context, Episode episode) {
+            String episodeUrl = getEpisodePath(context, episode);
+
             Loggers.getLogger().debug("Request episode page: {}", episodeUrl);
             WebBrowser.request(episodeUrl);
 
@@ -240,6 +530,21 @@ public class DownloadProcessor implements Processor {
         }
     }
 
+    /**
+     * Returns the path of the episode page, which is in "My Library" if the content is expired.
+     */
+    private static String getEpisodePath(ProcessContext context, Episode episode) {
+        Language language = context.getLanguage();
+
+        if (context.getContent().getProperties().isExpired()) {
+            return URIs.LIBRARY_EPISODE.get(language.getValue().getLanguage(),
+                    language.asLocaleString(), context.getContent().getAlias(), episode.getName());
+        }
+
+        return URIs.EPISODE.get(language.getValue().getLanguage(),
+                context.getContent().getAlias(), episode.getName());
+    }
+
     // -------------------------------------------------------------------------------------------------
 
     private static int[] calculateRange(EpisodeRange episodeRange, int episodeCount) {
@@ -259,7 +564,23 @@ public class DownloadProcessor implements Processor {
         }
     }
 
-    private static int getImageCount(ProcessContext context, Episode episode, ImageCountResolver resolver) {
+    /**
+     * Returns the number of requests to the CDN at the same time, which is one if single-threading is enabled.
+     */
+    private static int getConcurrency(ProcessContext context) {
+        return context.getSingleThreading().getValue() ? 1 : context.getConcurrency().getValue();
+    }
+
+    private static DownloadScheduler createScheduler(ProcessContext context, int concurrency) {
+        if (context.getVirtualThreading().getValue() && concurrency > 1) {
+            return DownloadScheduler.ofVirtualThreads(concurrency);
+        }
+
+        return DownloadScheduler.ofPlatformThreads(concurrency);
+    }
+
+    private static int getImageCount(ProcessContext context, Episode episode, ImageCountResolver resolver,
+            Function<Episode, Integer> prober) {
         int imageCount;
 
         try {
@@ -270,11 +591,15 @@ public class DownloadProcessor implements Processor {
                     .isInstanceOf(UsingService.class);
 
             Loggers.getLogger().debug(e.getMessage());
-            resolver = IMPLEMENTATION_MAP.get(Locale.US);
 
-            Asserts.that(resolver)
-                    .isNotNull()
-                    .isInstanceOf(VisitingPage.class);
+            // Asks the CDN before rendering the episode page on web browser.
+            Integer probed = prober.apply(episode);
+            if (probed != null) {
+                return probed;
+            }
+
+            resolver = VISITING_PAGE;
+            resolver.prepare(context, List.of(episode));
 
             // Fix: https://github.com/ImSejin/lezhin-comics-downloader/issues/153
             imageCount = resolver.getImageCountOfEpisode(context, episode);
@@ -283,61 +608,229 @@ public class DownloadProcessor implements Processor {
         return imageCount;
     }
 
-    private URL getImageUrl(ProcessContext context, Episode episode, Authority authority, int num, boolean purchased) {
-        String uriString = URIs.EPISODE_IMAGE.get(context.getContent().getId(), episode.getId(), num,
-                context.getImageFormat().getValue(), purchased, authority.getPolicy(), authority.getSignature(),
-                authority.getKeyPairId());
+    /**
+     * Finds the number of images by probing the CDN with the authority of the episode, and records it
+     * in the manifest. Returns {@code null} if failed, including when even the first image is missing,
+     * which may be caused by the authority rather than the episode.
+     */
+    @Nullable
+    private static Integer probeImageCount(ProcessContext context, Episode episode, ImageDownloader imageDownloader,
+            AuthorityCache authorityCache, DownloadManifest manifest) {
+        Integer cached = manifest.getImageCount(episode.getId());
+        if (cached != null) {
+            Loggers.getLogger().debug("Use number of images of episode[{}] in the manifest: {}",
+                    episode.getName(), cached);
+            return cached;
+        }
+
+        boolean purchased = context.getPurchasedEpisodes().contains(episode.getId());
+        EpisodeImageUrls imageUrls = new EpisodeImageUrls(context.getHttpHosts().getContentsCdn(),
+                context.getContent().getId(), episode.getId(), context.getImageFormat().getValue(), purchased);
+
+        try {
+            // The authority is cached, so the download of this episode reuses it.
+            ServiceRequest serviceRequest = toServiceRequest(context, episode);
+            Authority authority = authorityCache.get(serviceRequest);
+
+            long startedAt = System.currentTimeMillis();
+            int imageCount = new ImageCountProber(getConcurrency(context))
+                    .probe(num -> imageDownloader.exists(imageUrls.get(authority, num)));
+            Loggers.getLogger().debug("Probe {} images of episode[{}] on CDN in {} ms",
+                    imageCount, episode.getName(), System.currentTimeMillis() - startedAt);
+
+            if (imageCount == 0) {
+                return null;
+            }
+
+            // The CDN responds with 403 to the URL signed by an authority which is revoked or rejected
+            // as well as to a missing image, so the first missing image is checked again with a new authority.
+            Authority refreshed = authorityCache.refresh(serviceRequest);
+            Presence boundary = imageDownloader.checkPresence(imageUrls.get(refreshed, imageCount + 1));
+            if (boundary == Presence.PRESENT) {
+                Loggers.getLogger().info("Image {} of episode[{}] exists with new authority -> use web browser",
+                        imageCount + 1, episode.getName());
+                return null;
+            }
+
+            // Only 404 proves that the image is missing, so the number of images is verified by the next run
+            // unless the CDN responds with it.
+            if (boundary == Presence.MISSING) {
+                manifest.putImageCount(episode.getId(), imageCount);
+            }
+
+            return imageCount;
+        } catch (IOException | RuntimeException e) {
+            Loggers.getLogger().info("Failed to probe images of episode[{}] on CDN -> use web browser: {}",
+                    episode.getName(), e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Records the images downloaded as completed, returning whether all the images are completed.
+     */
+    private static boolean completeEpisode(DownloadManifest manifest, Episode episode, FileSyncBatch syncBatch,
+            int[] numbers, Path[] dests, List<CompletableFuture<DownloadedImage>> imageFutures) {
+        try {
+            syncBatch.sync();
+        } catch (IOException e) {
+            // The images will be verified and downloaded again by the next run.
+            Loggers.getLogger().warn("Failed to sync images of episode[{}]: {}", episode.getName(), e.getMessage());
+            return false;
+        }
+
+        boolean completed = true;
+        for (int i = 0; i < numbers.length; i++) {
+            DownloadedImage image = imageFutures.get(i).join();
+            if (image == null) {
+                completed = false;
+            } else {
+                manifest.complete(episode.getId(), numbers[i], dests[i], image);
+            }
+        }
+
+        manifest.saveIfDue();
+        return completed;
+    }
+
+    private static void stitch(StitchScheduler stitchScheduler, Path episodeDirectoryPath, int imageCount,
+            String imageFormat, Episode episode) {
+        List<Path> cuts = IntStream.rangeClosed(1, imageCount)
+                .mapToObj(n -> episodeDirectoryPath.resolve(getImageFileName(n, imageFormat)))
+                .collect(toUnmodifiableList());
+
+        stitchScheduler.submit(cuts, episodeDirectoryPath, episode.getName());
+    }
+
+    /**
+     * Opens the archive of the episode to resume. Returns {@code null} if it is already completed.
+     */
+    @Nullable
+    private static EpisodeArchive openArchive(Path path, int imageCount, String imageFormat)
+            throws DirectoryCreationException {
+        if (EpisodeArchive.isCompleted(path)) {
+            return null;
+        }
+
+        EpisodeArchive archive;
         try {
-            if (authority.isExpired()) {
-                throw new IllegalStateException("Authority for viewing episode is expired: " + authority);
+            archive = new EpisodeArchive(path, imageCount, n -> getImageFileName(n, imageFormat));
+        } catch (IOException e) {
+            throw new DirectoryCreationException(e, "Failed to open archive: %s", path);
+        }
+
+        // The previous run was interrupted after the last image, but before completing the archive.
+        if (archive.isFull()) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                throw new DirectoryCreationException(e, "Failed to complete archive: %s", path);
             }
 
-            URI uri = URI.create(context.getHttpHosts().getContentsCdn());
-            return uri.resolve(uriString).normalize().toURL();
-        } catch (MalformedURLException e) {
-            throw new RuntimeException(e.getMessage(), e);
+            return null;
         }
+
+        return archive;
     }
 
     /**
-     * Creates an image file with the image URL. Returns {@code true} if success or {@code false}.
+     * Appends the image to the archive. Returns whether it is appended or staged to be appended in order.
      */
-    private static boolean downloadImage(URL url, Path dest) {
+    private static boolean addToArchive(EpisodeArchive archive, int num) {
         try {
-            FileUtils.download(url, dest);
+            archive.add(num);
             return true;
-        } catch (Exception e) {
-            Loggers.getLogger().debug("Failed to download an image to {} by {}", dest, url);
+        } catch (IOException e) {
+            Loggers.getLogger().warn("Failed to add an image to archive: {}", e.getMessage());
             return false;
         }
     }
 
     /**
-     * Creates a progress bar.
-     *
-     * <pre>
-     *     i_have_a_baby ep.1 100% [=======] 80/80 imgs (0:00:03 / 0:00:00) | 26.7 imgs/s
-     *     i_have_a_baby ep.2 100% [=======] 70/70 imgs (0:00:02 / 0:00:00) | 35.0 imgs/s
-     *     i_have_a_baby ep.3 100% [=======] 56/56 imgs (0:00:01 / 0:00:00) | 56.0 imgs/s
-     * </pre>
-     *
-     * @param taskName   name of task
-     * @param imageCount number of images of the episode
-     * @return progress bar
+     * Closes the archive, returning whether it has all the images.
+     */
+    private static boolean closeArchive(EpisodeArchive archive, Episode episode) {
+        try {
+            archive.close();
+        } catch (IOException e) {
+            // The part file will be resumed by the next run.
+            Loggers.getLogger().warn("Failed to complete archive of episode[{}]: {}",
+                    episode.getName(), e.getMessage());
+            return false;
+        }
+
+        if (!archive.isFull()) {
+            Loggers.getLogger().warn("Archive of episode[{}] is incomplete; run again to complete it",
+                    episode.getName());
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the file name of the image such as {@code 007.webp}, without {@link String#format(String, Object...)}
+     * which is costly for every image.
      */
-    private static ProgressBar createProgressBar(String taskName, int imageCount) {
-        ProgressBarBuilder builder = new ProgressBarBuilder();
-        builder.setTaskName(taskName);
-        builder.setInitialMax(imageCount);
-        builder.setUpdateIntervalMillis(250);
-        builder.setConsumer(new ConsoleProgressBarConsumer(System.out));
-        builder.setStyle(ProgressBarStyle.ASCII);
-        builder.setUnit(" imgs", 1);
-        builder.showSpeed(new DecimalFormat("| #.0"));
-        builder.setSpeedUnit(ChronoUnit.SECONDS);
-        builder.startsFrom(0L, Duration.ZERO);
-
-        return builder.build();
+    private static String getImageFileName(int num, String imageFormat) {
+        StringBuilder sb = new StringBuilder(8 + imageFormat.length());
+        if (num < 100) {
+            sb.append('0');
+        }
+        if (num < 10) {
+            sb.append('0');
+        }
+
+        return sb.append(num).append('.').append(imageFormat).toString();
+    }
+
+    /**
+     * Creates an image file with the image URL signed by the authority. If the CDN rejects the signature,
+     * retries once with new authority. Returns the downloaded image if success or {@code null}.
+     */
+    @Nullable
+    private static DownloadedImage downloadImage(ImageDownloader imageDownloader, EpisodeAuthority episodeAuthority,
+            Function<Authority, URL> urlResolver, Path dest) {
+        Authority authority = null;
+        URL url = null;
+
+        try {
+            authority = episodeAuthority.get();
+            url = urlResolver.apply(authority);
+
+            return imageDownloader.download(url, dest);
+        } catch (HttpResponseException e) {
+            // The signature is expired or rejected by the CDN, so retries once with new authority.
+            if (e.getCode() == HttpURLConnection.HTTP_FORBIDDEN) {
+                return retryWithNewAuthority(imageDownloader, episodeAuthority, authority, urlResolver, dest);
+            }
+
+            Loggers.getLogger().warn("Failed to download an image to {} by {}: {}", dest, url, e.getMessage());
+            return null;
+        } catch (Exception e) {
+            Loggers.getLogger().warn("Failed to download an image to {} by {}: {}", dest, url, e.getMessage());
+            return null;
+        }
+    }
+
+    @Nullable
+    private static DownloadedImage retryWithNewAuthority(ImageDownloader imageDownloader,
+            EpisodeAuthority episodeAuthority, Authority rejected, Function<Authority, URL> urlResolver, Path dest) {
+        URL url = null;
+
+        try {
+            Authority authority = episodeAuthority.refresh(rejected);
+            if (authority == null) {
+                Loggers.getLogger().warn("Failed to download an image to {}: authority is rejected", dest);
+                return null;
+            }
+
+            url = urlResolver.apply(authority);
+            return imageDownloader.download(url, dest);
+        } catch (Exception e) {
+            Loggers.getLogger().warn("Failed to download an image to {} by {}: {}", dest, url, e.getMessage());
+            return null;
+        }
     }
 
 }
@@ -19,6 +19,7 @@ package io.github.imsejin.dl.lezhin.process.impl;
 import io.github.imsejin.common.util.CollectionUtils;
 import io.github.imsejin.dl.lezhin.annotation.ProcessSpecification;
 import io.github.imsejin.dl.lezhin.attribute.impl.HttpHosts;
+import io.github.imsejin.dl.lezhin.attribute.impl.SessionCache;
 import io.github.imsejin.dl.lezhin.browser.WebBrowser;
 import io.github.imsejin.dl.lezhin.common.Loggers;
 import io.github.imsejin.dl.lezhin.common.PropertyBinder;
@@ -68,6 +69,11 @@ public class HttpHostsProcessor implements Processor {
      */
     @Override
     public HttpHosts process(ProcessContext context) throws URLConfigurationNotFoundException {
+        SessionCache sessionCache = context.getSessionCache();
+        if (sessionCache != null && sessionCache.isHit()) {
+            return sessionCache.getSession().toHttpHosts();
+        }
+
         try {
             // Finds a script tag that has the configuration.
             WebBrowser.waitForPresenceOfElement(By.xpath("//script[not(@src) and contains(text(), '__LZ_CONFIG__')]"));
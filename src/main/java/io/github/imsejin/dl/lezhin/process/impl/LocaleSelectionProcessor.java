@@ -18,6 +18,7 @@ package io.github.imsejin.dl.lezhin.process.impl;
 
 import io.github.imsejin.dl.lezhin.annotation.ProcessSpecification;
 import io.github.imsejin.dl.lezhin.argument.impl.Language;
+import io.github.imsejin.dl.lezhin.attribute.impl.PageSession;
 import io.github.imsejin.dl.lezhin.browser.WebBrowser;
 import io.github.imsejin.dl.lezhin.common.Loggers;
 import io.github.imsejin.dl.lezhin.exception.LezhinComicsDownloaderException;
@@ -25,6 +26,8 @@ import io.github.imsejin.dl.lezhin.http.url.URIs;
 import io.github.imsejin.dl.lezhin.process.ProcessContext;
 import io.github.imsejin.dl.lezhin.process.Processor;
 
+import java.io.IOException;
+
 /**
  * Processor for selecting locale
  *
@@ -47,13 +50,47 @@ public class LocaleSelectionProcessor implements Processor {
 
     @Override
     public Void process(ProcessContext context) throws LezhinComicsDownloaderException {
-        Language language = context.getLanguage();
-        String localePath = URIs.LOCALE.get(language.getValue().getLanguage(), language.asLocaleString());
+        String localePath = getLocalePath(context.getLanguage());
+
+        // Lets server set the cookie of locale without web browser.
+        PageSession pageSession = context.getPageSession();
+        if (pageSession != null) {
+            try {
+                Loggers.getLogger().debug("Change locale setting over HTTP: {}", localePath);
+                pageSession.getClient().request(localePath);
+                return null;
+            } catch (IOException e) {
+                Loggers.getLogger().info("Failed to change locale setting over HTTP -> use web browser: {}",
+                        e.toString());
+            }
+        }
+
+        runWebBrowser(context);
+
+        return null;
+    }
+
+    /**
+     * Runs web browser and changes locale setting on it.
+     *
+     * <p> This is also used by the processors which fall back to web browser in browserless mode.
+     *
+     * @param context process context
+     * @since 3.2.0
+     */
+    static void runWebBrowser(ProcessContext context) {
+        // Web browser doesn't run yet, if login is skipped by the cached session.
+        WebBrowser.run();
 
+        String localePath = getLocalePath(context.getLanguage());
         Loggers.getLogger().debug("Change locale setting: {}", localePath);
         WebBrowser.request(localePath);
+    }
 
-        return null;
+    // -------------------------------------------------------------------------------------------------
+
+    private static String getLocalePath(Language language) {
+        return URIs.LOCALE.get(language.getValue().getLanguage(), language.asLocaleString());
     }
 
 }
@@ -3,13 +3,18 @@ package io.github.imsejin.dl.lezhin.process.impl;
 import io.github.imsejin.common.util.StringUtils;
 import io.github.imsejin.dl.lezhin.annotation.ProcessSpecification;
 import io.github.imsejin.dl.lezhin.attribute.impl.Authentication;
+import io.github.imsejin.dl.lezhin.attribute.impl.PageSession;
+import io.github.imsejin.dl.lezhin.attribute.impl.SessionCache;
 import io.github.imsejin.dl.lezhin.browser.WebBrowser;
 import io.github.imsejin.dl.lezhin.common.Loggers;
 import io.github.imsejin.dl.lezhin.exception.LoginException;
+import io.github.imsejin.dl.lezhin.http.page.WebPageClient;
 import io.github.imsejin.dl.lezhin.http.url.URIs;
 import io.github.imsejin.dl.lezhin.process.ProcessContext;
 import io.github.imsejin.dl.lezhin.process.Processor;
+import org.jetbrains.annotations.Nullable;
 import org.openqa.selenium.By;
+import org.openqa.selenium.Cookie;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.chrome.ChromeDriver;
@@ -17,6 +22,7 @@ import org.openqa.selenium.chrome.ChromeDriver;
 import java.net.URI;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Processor for login
@@ -36,7 +42,7 @@ import java.util.Map;
  *
  * @since 3.0.0
  */
-@ProcessSpecification(dependsOn = ConfigurationFileProcessor.class)
+@ProcessSpecification(dependsOn = SessionCacheProcessor.class)
 public class LoginProcessor implements Processor {
 
     private static final Map<Locale, String> BASE_URL_MAP = Map.ofEntries(
@@ -45,8 +51,16 @@ public class LoginProcessor implements Processor {
             Map.entry(Locale.JAPAN, "https://www.lezhin.jp/")
     );
 
+    /**
+     * Performs a process of login.
+     *
+     * @param context process context
+     * @return session for pages without web browser, or {@code null} if pages are requested on web browser
+     * @throws LoginException if failed to login
+     */
     @Override
-    public Void process(ProcessContext context) throws LoginException {
+    @Nullable
+    public PageSession process(ProcessContext context) throws LoginException {
         // Resolves an implementation for the locale.
         Locale locale = context.getLanguage().getValue();
         String baseUrl = BASE_URL_MAP.get(locale);
@@ -55,6 +69,16 @@ public class LoginProcessor implements Processor {
             throw new AssertionError("ProcessContext.language.value is not recognized: " + locale);
         }
 
+        // Skips login with the cached session; web browser will run with its cookies when needed.
+        SessionCache sessionCache = context.getSessionCache();
+        if (sessionCache != null && sessionCache.isHit()) {
+            Set<Cookie> cookies = sessionCache.getSession().toBrowserCookies();
+            WebBrowser.restoreCookies(baseUrl, cookies);
+            context.getAuthentication().erasePassword();
+
+            return context.getBrowserless().getValue() ? new PageSession(new WebPageClient(baseUrl, cookies)) : null;
+        }
+
         // Starts to run web browser.
         WebBrowser.run();
 
@@ -79,7 +103,7 @@ public class LoginProcessor implements Processor {
 
         validate(loginPageUrl);
 
-        // Return value will be ignored by ProcessContext.
+        // Web browser is already running, so it is used for the pages as well.
         return null;
     }
 
@@ -35,7 +35,8 @@ public class PurchasedEpisodesProcessor implements Processor {
 
     @Override
     public PurchasedEpisodes process(ProcessContext context) throws LezhinComicsDownloaderException {
-        PurchasedEpisodeService service = new PurchasedEpisodeService(context.getLanguage(), context.getAccessToken().getValue());
+        PurchasedEpisodeService service = new PurchasedEpisodeService(context.getLanguage(),
+                context.getAccessToken().getValue(), context.getWebHost().getValue());
         List<Long> idList = service.getPurchasedEpisodeIdList(context.getContent().getAlias());
 
         return new PurchasedEpisodes(idList);
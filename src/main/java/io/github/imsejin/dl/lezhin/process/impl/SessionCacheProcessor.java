@@ -0,0 +1,121 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.process.impl;
+
+import io.github.imsejin.dl.lezhin.annotation.ProcessSpecification;
+import io.github.imsejin.dl.lezhin.api.purchase.service.PurchasedEpisodeService;
+import io.github.imsejin.dl.lezhin.attribute.impl.SessionCache;
+import io.github.imsejin.dl.lezhin.common.Loggers;
+import io.github.imsejin.dl.lezhin.exception.HttpResponseException;
+import io.github.imsejin.dl.lezhin.process.ProcessContext;
+import io.github.imsejin.dl.lezhin.process.Processor;
+import io.github.imsejin.dl.lezhin.session.Session;
+import io.github.imsejin.dl.lezhin.session.SessionStore;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Processor for reading the session cached by the previous run
+ *
+ * <p> If the cached session is still accepted by the platform, {@link LoginProcessor},
+ * {@link HttpHostsProcessor} and {@link AccessTokenProcessor} reuse it instead of logging in
+ * on web browser. Validity is checked by a cheap API with the cached access token,
+ * because the platform doesn't tell when the token expires.
+ *
+ * <p> The cache is deleted only if the platform rejects the token. If the check fails for the other reasons
+ * such as a timeout or a server error, the cache is kept for the next run, but this run logs in on web browser.
+ * Without content name, the check is skipped and the cached session is trusted.
+ *
+ * @since 3.2.0
+ */
+@ProcessSpecification(dependsOn = ConfigurationFileProcessor.class)
+public class SessionCacheProcessor implements Processor {
+
+    private final Path basePath;
+
+    public SessionCacheProcessor(Path basePath) {
+        this.basePath = basePath;
+    }
+
+    @Override
+    public SessionCache process(ProcessContext context) {
+        String language = context.getLanguage().getValue().getLanguage();
+        Path filePath = this.basePath.resolve(".session-" + language);
+
+        SessionStore store = SessionStore.open(filePath, context.getAuthentication());
+        Session session = store.load();
+
+        if (session == null) {
+            Loggers.getLogger().debug("There is no cached session: {}", filePath);
+            return new SessionCache(store, null);
+        }
+
+        Validity validity = validate(context, session);
+        if (validity == Validity.REJECTED) {
+            Loggers.getLogger().info("Cached session is rejected -> try to login");
+            store.delete();
+            return new SessionCache(store, null);
+        }
+        if (validity == Validity.UNKNOWN) {
+            Loggers.getLogger().info("Failed to validate the cached session -> try to login");
+            return new SessionCache(store, null);
+        }
+
+        Loggers.getLogger().info("Reuse the session cached at {}", Instant.ofEpochMilli(session.getCreatedAt()));
+        return new SessionCache(store, session);
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static Validity validate(ProcessContext context, Session session) {
+        String contentName = context.getContentName().getValue();
+        if (contentName.isEmpty()) {
+            Loggers.getLogger().debug("Skip validation of the cached session without content name");
+            return Validity.ACCEPTED;
+        }
+
+        try {
+            PurchasedEpisodeService service = new PurchasedEpisodeService(
+                    context.getLanguage(), session.toAccessToken().getValue(), context.getWebHost().getValue());
+            service.getPurchasedEpisodeIdList(contentName);
+
+            return Validity.ACCEPTED;
+        } catch (RuntimeException e) {
+            Loggers.getLogger().debug("Failed to request with the cached session: {}", e.getMessage());
+            return isUnauthorized(e) ? Validity.REJECTED : Validity.UNKNOWN;
+        }
+    }
+
+    private static boolean isUnauthorized(Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpResponseException) {
+                int code = ((HttpResponseException) cause).getCode();
+                return code == 401 || code == 403;
+            }
+        }
+
+        return false;
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private enum Validity {
+        ACCEPTED, REJECTED, UNKNOWN
+    }
+
+}
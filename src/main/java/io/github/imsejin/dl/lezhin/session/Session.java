@@ -0,0 +1,135 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.session;
+
+import io.github.imsejin.dl.lezhin.attribute.impl.AccessToken;
+import io.github.imsejin.dl.lezhin.attribute.impl.HttpHosts;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toUnmodifiableList;
+import static java.util.stream.Collectors.toUnmodifiableSet;
+
+/**
+ * Logged-in state of the platform, which is cached to skip login next time
+ *
+ * @since 3.2.0
+ */
+@Getter
+@ToString
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class Session {
+
+    private String accessToken;
+
+    private Hosts httpHosts;
+
+    private List<Cookie> cookies;
+
+    /**
+     * When the session was created, in epoch milliseconds.
+     */
+    private long createdAt;
+
+    public static Session of(AccessToken accessToken, HttpHosts httpHosts,
+                             Collection<org.openqa.selenium.Cookie> cookies) {
+        Hosts hosts = new Hosts(httpHosts.getApi(), httpHosts.getCdn(), httpHosts.getContentsCdn(),
+                httpHosts.getReco(), httpHosts.getPay(), httpHosts.getPanther());
+        List<Cookie> cookieList = cookies.stream().map(Cookie::from).collect(toUnmodifiableList());
+
+        return new Session(accessToken.getValue().toString(), hosts, cookieList, System.currentTimeMillis());
+    }
+
+    public AccessToken toAccessToken() {
+        return new AccessToken(this.accessToken);
+    }
+
+    public HttpHosts toHttpHosts() {
+        Hosts h = this.httpHosts;
+        return new HttpHosts(h.api, h.cdn, h.contentsCdn, h.reco, h.pay, h.panther);
+    }
+
+    /**
+     * Returns the cookies of web browser, except the expired ones.
+     *
+     * @return cookies
+     */
+    public Set<org.openqa.selenium.Cookie> toBrowserCookies() {
+        long now = System.currentTimeMillis();
+
+        return this.cookies.stream()
+                .filter(it -> it.expiry == null || it.expiry > now)
+                .map(Cookie::toBrowserCookie)
+                .collect(toUnmodifiableSet());
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class Hosts {
+        private String api;
+        private String cdn;
+        private String contentsCdn;
+        private String reco;
+        private String pay;
+        private String panther;
+    }
+
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class Cookie {
+        private String name;
+        private String value;
+        private String domain;
+        private String path;
+        @Nullable
+        private Long expiry;
+        private boolean secure;
+        private boolean httpOnly;
+        @Nullable
+        private String sameSite;
+
+        private static Cookie from(org.openqa.selenium.Cookie cookie) {
+            Long expiry = cookie.getExpiry() == null ? null : cookie.getExpiry().getTime();
+            return new Cookie(cookie.getName(), cookie.getValue(), cookie.getDomain(), cookie.getPath(), expiry,
+                    cookie.isSecure(), cookie.isHttpOnly(), cookie.getSameSite());
+        }
+
+        private org.openqa.selenium.Cookie toBrowserCookie() {
+            return new org.openqa.selenium.Cookie.Builder(this.name, this.value)
+                    .domain(this.domain)
+                    .path(this.path)
+                    .expiresOn(this.expiry == null ? null : new Date(this.expiry))
+                    .isSecure(this.secure)
+                    .isHttpOnly(this.httpOnly)
+                    .sameSite(this.sameSite)
+                    .build();
+        }
+    }
+
+}
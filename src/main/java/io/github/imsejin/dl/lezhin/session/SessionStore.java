@@ -0,0 +1,214 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.session;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import io.github.imsejin.dl.lezhin.attribute.impl.Authentication;
+import io.github.imsejin.dl.lezhin.common.Loggers;
+import org.jetbrains.annotations.Nullable;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Store of the session encrypted with the account in configuration file
+ *
+ * <p> The session is encrypted with AES-GCM. Its key is derived from the username and password
+ * by PBKDF2, so the file is useless without the configuration file, and it can't be read any more
+ * when the account is changed. The file consists of the following parts.
+ *
+ * <pre>
+ *     | version (1) | salt (16) | iv (12) | encrypted session in JSON with tag (n + 16) |
+ * </pre>
+ *
+ * @since 3.2.0
+ */
+public final class SessionStore {
+
+    private static final byte VERSION = 1;
+
+    private static final int SALT_LENGTH = 16;
+
+    private static final int IV_LENGTH = 12;
+
+    private static final int TAG_BIT_LENGTH = 128;
+
+    private static final int KEY_BIT_LENGTH = 256;
+
+    private static final int ITERATION_COUNT = 100_000;
+
+    private static final SecureRandom random = new SecureRandom();
+
+    private static final Gson gson = new GsonBuilder()
+            .disableJdkUnsafe()
+            .create();
+
+    private final Path file;
+
+    private final byte[] salt;
+
+    private final SecretKey key;
+
+    private SessionStore(Path file, byte[] salt, SecretKey key) {
+        this.file = file;
+        this.salt = salt;
+        this.key = key;
+    }
+
+    /**
+     * Opens a store with the account.
+     *
+     * <p> The key is derived here, because the password is erased from memory after login.
+     *
+     * @param file           file of the session
+     * @param authentication account in configuration file
+     * @return store
+     */
+    public static SessionStore open(Path file, Authentication authentication) {
+        byte[] salt = readSalt(file);
+        if (salt == null) {
+            salt = new byte[SALT_LENGTH];
+            random.nextBytes(salt);
+        }
+
+        SecretKey key = deriveKey(authentication, salt);
+        return new SessionStore(file, salt, key);
+    }
+
+    /**
+     * Reads the session.
+     *
+     * @return session or {@code null} if there is no session or it can't be decrypted
+     */
+    @Nullable
+    public Session load() {
+        if (!Files.isRegularFile(this.file)) {
+            return null;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(this.file));
+            buffer.position(1 + SALT_LENGTH);
+
+            byte[] iv = new byte[IV_LENGTH];
+            buffer.get(iv);
+            byte[] encrypted = new byte[buffer.remaining()];
+            buffer.get(encrypted);
+
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, this.key, new GCMParameterSpec(TAG_BIT_LENGTH, iv));
+            byte[] decrypted = cipher.doFinal(encrypted);
+
+            return gson.fromJson(new String(decrypted, StandardCharsets.UTF_8), Session.class);
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            // When the account is changed or the file is broken.
+            Loggers.getLogger().debug("Failed to read the cached session: {}", e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the session.
+     *
+     * @param session session
+     */
+    public void save(Session session) {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+
+        Path tempFile = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, this.key, new GCMParameterSpec(TAG_BIT_LENGTH, iv));
+            byte[] encrypted = cipher.doFinal(gson.toJson(session).getBytes(StandardCharsets.UTF_8));
+
+            ByteBuffer buffer = ByteBuffer.allocate(1 + SALT_LENGTH + IV_LENGTH + encrypted.length);
+            buffer.put(VERSION).put(this.salt).put(iv).put(encrypted);
+
+            Files.write(tempFile, buffer.array());
+            Files.move(tempFile, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | GeneralSecurityException e) {
+            Loggers.getLogger().warn("Failed to cache the session: {}", this.file, e);
+        }
+    }
+
+    /**
+     * Deletes the session, which is rejected by the platform.
+     */
+    public void delete() {
+        try {
+            Files.deleteIfExists(this.file);
+        } catch (IOException e) {
+            Loggers.getLogger().warn("Failed to delete the cached session: {}", this.file, e);
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    @Nullable
+    private static byte[] readSalt(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            if (bytes.length < 1 + SALT_LENGTH + IV_LENGTH || bytes[0] != VERSION) {
+                return null;
+            }
+
+            return Arrays.copyOfRange(bytes, 1, 1 + SALT_LENGTH);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static SecretKey deriveKey(Authentication authentication, byte[] salt) {
+        char[] password = (authentication.getUsername() + '\0' + authentication.getPassword()).toCharArray();
+        PBEKeySpec spec = new PBEKeySpec(password, salt, ITERATION_COUNT, KEY_BIT_LENGTH);
+
+        try {
+            SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+            byte[] encoded = factory.generateSecret(spec).getEncoded();
+
+            return new SecretKeySpec(encoded, "AES");
+        } catch (GeneralSecurityException e) {
+            // Every Java platform is required to support these algorithms.
+            throw new IllegalStateException("Failed to derive a key of session", e);
+        } finally {
+            spec.clearPassword();
+            Arrays.fill(password, '\0');
+        }
+    }
+
+}
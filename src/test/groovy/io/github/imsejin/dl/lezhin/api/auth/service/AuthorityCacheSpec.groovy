@@ -0,0 +1,147 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.api.auth.service
+
+import io.github.imsejin.dl.lezhin.api.auth.model.Authority
+import io.github.imsejin.dl.lezhin.api.auth.model.ServiceRequest
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Function
+
+@Subject(AuthorityCache)
+class AuthorityCacheSpec extends Specification {
+
+    def "Reuses the prefetched authority"() {
+        given:
+        def count = new AtomicInteger()
+        def cache = new AuthorityCache({ count.incrementAndGet(); authority(600) } as Function)
+
+        when:
+        cache.prefetch(request(1, 10, true))
+        cache.prefetch(request(1, 10, true))
+        def first = cache.get(request(1, 10, true))
+        def second = cache.get(request(1, 10, true))
+
+        then:
+        count.get() == 1
+        first.is(second)
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "Distinguishes authorities by content, episode and whether it is purchased"() {
+        given:
+        def count = new AtomicInteger()
+        def cache = new AuthorityCache({ count.incrementAndGet(); authority(600) } as Function)
+
+        when:
+        cache.get(request(1, 10, true))
+        cache.get(request(1, 10, false))
+        cache.get(request(1, 11, true))
+        cache.get(request(2, 10, true))
+
+        then:
+        count.get() == 4
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "Requests the authority again if it is about to expire"() {
+        given:
+        def count = new AtomicInteger()
+        def remaining = AuthorityCache.EXPIRATION_MARGIN.toSeconds() - 1
+        def cache = new AuthorityCache({ count.incrementAndGet(); authority(remaining) } as Function)
+
+        when:
+        cache.get(request(1, 10, true))
+        cache.prefetch(request(1, 10, true))
+        cache.get(request(1, 10, true))
+
+        then:
+        count.get() == 3
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "Requests the authority right now if failed to prefetch it"() {
+        given:
+        def count = new AtomicInteger()
+        def cache = new AuthorityCache({
+            if (count.incrementAndGet() == 1) throw new RuntimeException("Unexpected response")
+            authority(600)
+        } as Function)
+
+        when:
+        cache.prefetch(request(1, 10, true))
+        def result = cache.get(request(1, 10, true))
+
+        then:
+        result != null
+        count.get() == 2
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "Prefetches the authority in the background"() {
+        given:
+        def latch = new CountDownLatch(1)
+        def cache = new AuthorityCache({ latch.await(5, TimeUnit.SECONDS); authority(600) } as Function)
+
+        when:
+        def startedAt = System.nanoTime()
+        cache.prefetch(request(1, 10, true))
+        def elapsed = System.nanoTime() - startedAt
+        latch.countDown()
+
+        then:
+        elapsed < TimeUnit.SECONDS.toNanos(1)
+        cache.get(request(1, 10, true)) != null
+
+        cleanup:
+        cache?.close()
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private Authority authority(long secondsToExpire) {
+        def expiredAt = System.currentTimeMillis().intdiv(1000) + secondsToExpire
+        Stub(Authority) {
+            getExpiredAt() >> expiredAt
+            isExpired(_ as Duration) >> { Duration margin ->
+                expiredAt - margin.toSeconds() < System.currentTimeMillis().intdiv(1000)
+            }
+        }
+    }
+
+    private static ServiceRequest request(long contentId, long episodeId, boolean purchased) {
+        def request = new ServiceRequest()
+        request.contentId = contentId
+        request.episodeId = episodeId
+        request.purchased = purchased
+        request
+    }
+
+}
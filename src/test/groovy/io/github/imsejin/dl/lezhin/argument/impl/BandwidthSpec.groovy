@@ -0,0 +1,77 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.argument.impl
+
+import io.github.imsejin.dl.lezhin.argument.ArgumentsParser
+import io.github.imsejin.dl.lezhin.exception.ParsingArgumentException
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.LocalTime
+
+@Subject(Bandwidth)
+class BandwidthSpec extends Specification {
+
+    def "Is unlimited by default"() {
+        when:
+        def arguments = new ArgumentsParser(new Bandwidth()).parse()
+
+        then:
+        (arguments[0] as Bandwidth).value == null
+    }
+
+    def "Parses bandwidth with binary unit"() {
+        when:
+        def arguments = new ArgumentsParser(new Bandwidth()).parse("-w=$value")
+        def throttle = (arguments[0] as Bandwidth).value
+
+        then:
+        throttle.rate == bytes
+        throttle.from == null
+
+        where:
+        value  | bytes
+        "1"    | 1
+        "512K" | 512 * 1024
+        "2m"   | 2 * 1024 * 1024
+        "1.5M" | 1.5 * 1024 * 1024
+        "1G"   | 1024 * 1024 * 1024
+    }
+
+    def "Parses bandwidth during hours"() {
+        when:
+        def arguments = new ArgumentsParser(new Bandwidth()).parse("-w=2M@09-18")
+        def throttle = (arguments[0] as Bandwidth).value
+
+        then:
+        throttle.rate == 2 * 1024 * 1024
+        throttle.from == LocalTime.of(9, 0)
+        throttle.to == LocalTime.of(18, 0)
+    }
+
+    def "Throws exception with invalid bandwidth"() {
+        when:
+        new ArgumentsParser(new Bandwidth()).parse("-w=$value")
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        value << ["0", "0.5", "2T", "-1M", "2M@", "2M@9"]
+    }
+
+}
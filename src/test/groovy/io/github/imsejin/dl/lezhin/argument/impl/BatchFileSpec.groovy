@@ -0,0 +1,79 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.argument.impl
+
+import io.github.imsejin.dl.lezhin.exception.ParsingArgumentException
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+@Subject(BatchFile)
+class BatchFileSpec extends Specification {
+
+    @TempDir
+    private Path tempPath
+
+    def "Reads the entries"() {
+        given:
+        def file = Files.writeString(tempPath.resolve("batch.txt"), """
+            # Ongoing series
+            appetite
+            snail   8~   # since the second season
+
+            alpha ~25
+        """.stripIndent())
+        def batchFile = new BatchFile()
+        batchFile.validate(file.toString())
+        batchFile.value = file.toString()
+
+        when:
+        def entries = batchFile.readEntries()
+
+        then:
+        entries*.contentName*.value == ["appetite", "snail", "alpha"]
+        entries*.episodeRange*.value == ["*", "8~", "~25"]
+    }
+
+    def "Fails to read the entries due to invalid line"() {
+        given:
+        def file = Files.writeString(tempPath.resolve("batch.txt"), "appetite\n$line\n")
+        def batchFile = new BatchFile()
+        batchFile.value = file.toString()
+
+        when:
+        batchFile.readEntries()
+
+        then:
+        def e = thrown(ParsingArgumentException)
+        e.message == "Invalid line 2 of batch file: $line"
+
+        where:
+        line << ["snail 8~ 10", "snail 8-10", "snail ~"]
+    }
+
+    def "Fails to validate the value"() {
+        when:
+        new BatchFile().validate(tempPath.resolve("unknown.txt").toString())
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+}
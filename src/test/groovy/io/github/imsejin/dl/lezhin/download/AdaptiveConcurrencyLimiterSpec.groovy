@@ -0,0 +1,135 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download
+
+import io.github.imsejin.dl.lezhin.download.AdaptiveConcurrencyLimiter.Outcome
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+@Subject(AdaptiveConcurrencyLimiter)
+class AdaptiveConcurrencyLimiterSpec extends Specification {
+
+    def "Increases the limit while it is saturated and latency is flat"() {
+        given:
+        def limiter = new AdaptiveConcurrencyLimiter(1, 16, 4)
+
+        when:
+        50.times { runRound(limiter, Outcome.SUCCESS, 1_000_000) }
+
+        then:
+        limiter.limit == 16
+        limiter.peakLimit == 16
+    }
+
+    def "Doesn't increase the limit which is not saturated"() {
+        given:
+        def limiter = new AdaptiveConcurrencyLimiter(1, 16, 4)
+
+        when:
+        100.times {
+            limiter.acquire()
+            limiter.release(Outcome.SUCCESS, 1_000_000)
+        }
+
+        then:
+        limiter.limit == 4
+    }
+
+    def "Decreases the limit when throttled, but not below the minimum"() {
+        given:
+        def limiter = new AdaptiveConcurrencyLimiter(2, 16, 16)
+
+        when:
+        limiter.acquire()
+        limiter.release(Outcome.DROPPED, 0)
+
+        then:
+        limiter.limit == 12
+
+        when:
+        20.times {
+            limiter.acquire()
+            limiter.release(Outcome.DROPPED, 0)
+        }
+
+        then:
+        limiter.limit == 2
+    }
+
+    def "Decreases the limit on latency spike"() {
+        given:
+        def limiter = new AdaptiveConcurrencyLimiter(1, 16, 8)
+        20.times { runRound(limiter, Outcome.SUCCESS, 1_000) }
+        def before = limiter.limit
+
+        when:
+        5.times { runRound(limiter, Outcome.SUCCESS, 1_000_000_000) }
+
+        then:
+        limiter.limit < before
+    }
+
+    def "Ignores the outcome which doesn't tell about congestion"() {
+        given:
+        def limiter = new AdaptiveConcurrencyLimiter(1, 16, 8)
+
+        when:
+        10.times { runRound(limiter, Outcome.IGNORED, 0) }
+
+        then:
+        limiter.limit == 8
+        limiter.inFlight == 0
+    }
+
+    def "Blocks acquisition over the limit until a permit is released"() {
+        given:
+        def limiter = new AdaptiveConcurrencyLimiter(1, 1, 1)
+        limiter.acquire()
+        def acquired = new CountDownLatch(1)
+
+        when:
+        Thread.start {
+            limiter.acquire()
+            acquired.countDown()
+        }
+
+        then:
+        !acquired.await(100, TimeUnit.MILLISECONDS)
+
+        when:
+        limiter.release(Outcome.IGNORED, 0)
+
+        then:
+        acquired.await(5, TimeUnit.SECONDS)
+        limiter.inFlight == 1
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    /**
+     * Acquires all the permits and releases them with the outcome.
+     */
+    private static void runRound(AdaptiveConcurrencyLimiter limiter, Outcome outcome, long latencyNanos) {
+        int limit = limiter.limit
+        limit.times { limiter.acquire() }
+        limit.times { limiter.release(outcome, latencyNanos) }
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download
+
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+@Subject(BlobStore)
+class BlobStoreSpec extends Specification {
+
+    @TempDir
+    private Path tempPath
+
+    def "Stores the same bytes only once"() {
+        given:
+        def blobStore = new BlobStore(tempPath)
+        def checksum = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08"
+        def files = ["a.webp", "b.webp", "c.webp"].collect { Files.writeString(tempPath.resolve(it), "test") }
+
+        when:
+        files.each { blobStore.store(it, checksum) }
+
+        then:
+        def blob = tempPath.resolve(".blobs/9f/$checksum")
+        blobStore.getBlobPath(checksum) == blob
+        Files.readString(blob) == "test"
+        files.every { Files.readString(it) == "test" && Files.isSameFile(it, blob) }
+        Files.list(blob.parent).withCloseable { it.count() } == 1
+    }
+
+    def "Keeps the other links when one of them is deleted"() {
+        given:
+        def blobStore = new BlobStore(tempPath)
+        def checksum = "6105d6cc76af400325e94d588ce511be5bfdbb73b437dc51eca43917d7a43e3d"
+        def first = Files.writeString(tempPath.resolve("first.webp"), "image")
+        def second = Files.writeString(tempPath.resolve("second.webp"), "image")
+        blobStore.store(first, checksum)
+        blobStore.store(second, checksum)
+
+        when:
+        Files.delete(first)
+
+        then:
+        Files.readString(second) == "image"
+        Files.readString(blobStore.getBlobPath(checksum)) == "image"
+    }
+
+    def "Replaces the broken blob"() {
+        given:
+        def blobStore = new BlobStore(tempPath)
+        def checksum = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08"
+        def blob = blobStore.getBlobPath(checksum)
+        Files.createDirectories(blob.parent)
+        Files.write(blob, content as byte[])
+        def file = Files.writeString(tempPath.resolve("a.webp"), "test")
+
+        when:
+        blobStore.store(file, checksum)
+
+        then:
+        Files.readString(blob) == "test"
+        Files.isSameFile(file, blob)
+
+        where:
+        content << [[], [0, 0, 0, 0], "tes".bytes]
+    }
+
+    def "Keeps the first blob when the same bytes are stored at once"() {
+        given:
+        def blobStore = new BlobStore(tempPath)
+        def checksum = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08"
+        def files = (1..16).collect { Files.writeString(tempPath.resolve("${it}.webp"), "test") }
+        def executor = Executors.newFixedThreadPool(files.size())
+        def start = new CountDownLatch(1)
+
+        when:
+        def futures = files.collect { file -> executor.submit { start.await(); blobStore.store(file, checksum) } }
+        start.countDown()
+        futures*.get()
+        executor.shutdown()
+        executor.awaitTermination(5, TimeUnit.SECONDS)
+
+        then: "All the files share the bytes of the blob"
+        def blob = blobStore.getBlobPath(checksum)
+        files.every { Files.isSameFile(it, blob) }
+        Files.list(blob.parent).withCloseable { it.count() } == 1
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download
+
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.security.MessageDigest
+
+@Subject(DownloadManifest)
+class DownloadManifestSpec extends Specification {
+
+    @TempDir
+    private Path tempPath
+
+    def "Loads empty manifest if there is no manifest file"() {
+        when:
+        def manifest = DownloadManifest.load(tempPath)
+
+        then:
+        !manifest.isCompleted(tempPath.resolve("0001 - Prologue/001.webp"))
+    }
+
+    def "Loads empty manifest if manifest file is broken"() {
+        given:
+        Files.writeString(tempPath.resolve(DownloadManifest.FILE_NAME), '{"version": 1, "images": [{"pa')
+
+        when:
+        def manifest = DownloadManifest.load(tempPath)
+
+        then:
+        noExceptionThrown()
+        !manifest.isCompleted(tempPath.resolve("0001 - Prologue/001.webp"))
+    }
+
+    def "Remembers completed images after saving and loading"() {
+        given:
+        def imagePath = writeImage("0001 - Prologue/001.webp", 2048)
+        def manifest = DownloadManifest.load(tempPath)
+
+        when:
+        manifest.begin(1L, 1, imagePath)
+        manifest.save()
+
+        then: "Image in progress is not completed."
+        !DownloadManifest.load(tempPath).isCompleted(imagePath)
+
+        when:
+        manifest.complete(1L, 1, imagePath, toDownloadedImage(imagePath))
+        manifest.save()
+
+        then:
+        DownloadManifest.load(tempPath).isCompleted(imagePath)
+        Files.notExists(tempPath.resolve(DownloadManifest.FILE_NAME + ".tmp"))
+    }
+
+    def "Remembers the number of images of episodes after saving and loading"() {
+        given:
+        def manifest = DownloadManifest.load(tempPath)
+
+        when:
+        manifest.putImageCount(5402479112798208L, 88)
+        manifest.save()
+
+        then:
+        def loaded = DownloadManifest.load(tempPath)
+        loaded.getImageCount(5402479112798208L) == 88
+        loaded.getImageCount(1L) == null
+    }
+
+    def "Doesn't save the manifest again right after saving it"() {
+        given:
+        def manifest = DownloadManifest.load(tempPath)
+        manifest.putImageCount(1L, 88)
+        manifest.save()
+
+        when:
+        manifest.putImageCount(2L, 45)
+        manifest.saveIfDue()
+
+        then: "The record is saved later"
+        DownloadManifest.load(tempPath).getImageCount(1L) == 88
+        DownloadManifest.load(tempPath).getImageCount(2L) == null
+
+        and: "No temporary file is left"
+        Files.list(tempPath).withCloseable { it.count() } == 1
+    }
+
+    def "Doesn't regard missing or corrupt image as completed"() {
+        given:
+        def imagePath = writeImage("0001 - Prologue/001.webp", 2048)
+        def manifest = DownloadManifest.load(tempPath)
+        manifest.complete(1L, 1, imagePath, toDownloadedImage(imagePath))
+
+        expect:
+        manifest.isCompleted(imagePath)
+
+        when: "File is corrupt with the same size."
+        def bytes = Files.readAllBytes(imagePath)
+        bytes[0] = ~bytes[0]
+        Files.write(imagePath, bytes)
+        touch(imagePath, 1)
+
+        then:
+        !manifest.isCompleted(imagePath)
+
+        when: "File is truncated."
+        Files.write(imagePath, new byte[16])
+
+        then:
+        !manifest.isCompleted(imagePath)
+
+        when: "File is deleted."
+        Files.delete(imagePath)
+
+        then:
+        !manifest.isCompleted(imagePath)
+    }
+
+    def "Verifies the checksum of image only if its modification time has changed"() {
+        given:
+        def imagePath = writeImage("0001 - Prologue/001.webp", 2048)
+        def modifiedAt = Files.getLastModifiedTime(imagePath)
+        def manifest = DownloadManifest.load(tempPath)
+        manifest.complete(1L, 1, imagePath, toDownloadedImage(imagePath))
+        manifest.save()
+
+        when: "File is changed keeping its size and modification time."
+        def bytes = Files.readAllBytes(imagePath)
+        bytes[0] = ~bytes[0]
+        Files.write(imagePath, bytes)
+        Files.setLastModifiedTime(imagePath, modifiedAt)
+
+        then: "File is not read."
+        DownloadManifest.load(tempPath).isCompleted(imagePath)
+
+        when: "File is restored but touched."
+        bytes[0] = ~bytes[0]
+        Files.write(imagePath, bytes)
+        touch(imagePath, 1)
+
+        then: "File is read and still intact."
+        manifest.isCompleted(imagePath)
+
+        when: "File is changed keeping its size and the new modification time."
+        def touchedAt = Files.getLastModifiedTime(imagePath)
+        bytes[0] = ~bytes[0]
+        Files.write(imagePath, bytes)
+        Files.setLastModifiedTime(imagePath, touchedAt)
+
+        then: "The new modification time is recorded, so file is not read."
+        manifest.isCompleted(imagePath)
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static void touch(Path path, long seconds) {
+        def modifiedAt = Files.getLastModifiedTime(path).toInstant().plusSeconds(seconds)
+        Files.setLastModifiedTime(path, FileTime.from(modifiedAt))
+    }
+
+    private Path writeImage(String path, int size) {
+        def bytes = new byte[size]
+        new Random(size).nextBytes(bytes)
+
+        def imagePath = tempPath.resolve(path)
+        Files.createDirectories(imagePath.parent)
+        Files.write(imagePath, bytes)
+    }
+
+    private static DownloadedImage toDownloadedImage(Path imagePath) {
+        def bytes = Files.readAllBytes(imagePath)
+        def checksum = MessageDigest.getInstance("SHA-256").digest(bytes).encodeHex().toString()
+
+        new DownloadedImage(bytes.length, checksum)
+    }
+
+}
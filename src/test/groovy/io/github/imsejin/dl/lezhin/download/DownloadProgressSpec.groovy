@@ -0,0 +1,98 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+@Subject(DownloadProgress)
+class DownloadProgressSpec extends Specification {
+
+    def "Aggregates the progress of all the episodes"() {
+        given:
+        def progress = new DownloadProgress("alias", false)
+
+        when:
+        progress.addEpisode(3)
+        progress.addEpisode(2)
+        progress.onDownloaded(1024 * 1024)
+        progress.onDownloaded(1024 * 1024)
+        progress.onFailed()
+        progress.completeEpisode()
+
+        then:
+        progress.getSummary().startsWith("ep 1/2, 3/5 imgs (60.0%), 2.0 MiB, 0.0 MiB/s, 1 failed, ETA ")
+
+        cleanup:
+        progress.close()
+    }
+
+    def "Estimates the time remaining with the throughput"() {
+        given:
+        def progress = new DownloadProgress("alias", false)
+        progress.addEpisode(100)
+
+        when:
+        Thread.sleep(100)
+        10.times { progress.onDownloaded(1024) }
+        progress.render()
+        def summary = progress.getSummary()
+
+        then:
+        !summary.contains("ETA ?")
+        summary ==~ /.*, ETA \d+:\d{2}:\d{2}$/
+
+        when:
+        90.times { progress.onDownloaded(1024) }
+
+        then:
+        !progress.getSummary().contains("ETA")
+
+        cleanup:
+        progress.close()
+    }
+
+    def "Counts the images reported by many workers at the same time"() {
+        given:
+        def progress = new DownloadProgress("alias", false)
+        progress.addEpisode(10_000)
+        def executor = Executors.newFixedThreadPool(16)
+        def latch = new CountDownLatch(1)
+
+        when:
+        16.times {
+            executor.execute {
+                latch.await()
+                625.times { progress.onDownloaded(1) }
+            }
+        }
+        latch.countDown()
+        executor.shutdown()
+        executor.awaitTermination(10, TimeUnit.SECONDS)
+
+        then:
+        progress.getSummary().startsWith("ep 0/1, 10000/10000 imgs (100.0%)")
+
+        cleanup:
+        progress.close()
+    }
+
+}
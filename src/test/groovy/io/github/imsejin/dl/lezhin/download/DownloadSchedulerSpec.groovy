@@ -0,0 +1,98 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+@Subject(DownloadScheduler)
+class DownloadSchedulerSpec extends Specification {
+
+    def "Fails to create scheduler with invalid concurrency"() {
+        when:
+        factory(concurrency)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        factory                              | concurrency
+        DownloadScheduler::ofPlatformThreads | 0
+        DownloadScheduler::ofPlatformThreads | -1
+        DownloadScheduler::ofVirtualThreads  | 0
+        DownloadScheduler::ofVirtualThreads  | Integer.MIN_VALUE
+    }
+
+    def "Runs tasks on workers no more than concurrency"() {
+        given:
+        def running = new AtomicInteger()
+        def maxRunning = new AtomicInteger()
+        def futures = []
+
+        when:
+        def scheduler = factory(concurrency)
+        taskCount.times {
+            futures << scheduler.submit {
+                def current = running.incrementAndGet()
+                maxRunning.accumulateAndGet(current, Math::max)
+                TimeUnit.MILLISECONDS.sleep(5)
+                running.decrementAndGet()
+            }
+        }
+        scheduler.close()
+
+        then:
+        futures.every { it.isDone() && !it.isCompletedExceptionally() }
+        maxRunning.get() <= concurrency
+
+        where:
+        factory                              | concurrency | taskCount
+        DownloadScheduler::ofPlatformThreads | 1           | 10
+        DownloadScheduler::ofPlatformThreads | 4           | 40
+        DownloadScheduler::ofPlatformThreads | 8           | 100
+        DownloadScheduler::ofVirtualThreads  | 1           | 10
+        DownloadScheduler::ofVirtualThreads  | 16          | 200
+    }
+
+    def "Uses virtual threads only if the runtime supports"() {
+        when:
+        def executor = DownloadScheduler.newVirtualThreadPerTaskExecutor()
+
+        then:
+        (executor != null) == (Runtime.version().feature() >= 21)
+
+        cleanup:
+        executor?.shutdown()
+    }
+
+    def "Completes future exceptionally when task fails"() {
+        given:
+        def scheduler = DownloadScheduler.ofPlatformThreads(2)
+
+        when:
+        CompletableFuture<?> future = scheduler.submit { throw new IOException("broken pipe") }
+        scheduler.close()
+
+        then:
+        future.isCompletedExceptionally()
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download
+
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.zip.ZipFile
+
+@Subject(EpisodeArchive)
+class EpisodeArchiveSpec extends Specification {
+
+    @TempDir
+    private Path tempPath
+
+    private static String entryName(int n) {
+        String.format("%03d.webp", n)
+    }
+
+    def "Archives the images in order of their numbers, however they arrive"() {
+        given:
+        def path = tempPath.resolve("0001 - Prologue.cbz")
+        def archive = new EpisodeArchive(path, 20, EpisodeArchiveSpec::entryName)
+        def executor = Executors.newFixedThreadPool(8)
+        def latch = new CountDownLatch(1)
+
+        when:
+        (1..20).toList().shuffled().each { n ->
+            executor.execute {
+                latch.await()
+                Files.writeString(archive.getStagingFile(n), "image $n")
+                archive.add(n)
+            }
+        }
+        latch.countDown()
+        executor.shutdown()
+        executor.awaitTermination(10, TimeUnit.SECONDS)
+        archive.close()
+
+        then:
+        EpisodeArchive.isCompleted(path)
+        Files.list(tempPath).withCloseable { it.toList() } == [path]
+        def zipFile = new ZipFile(path.toFile())
+        zipFile.entries().toList()*.name == (1..20).collect { entryName(it) }
+        zipFile.getInputStream(zipFile.getEntry("007.webp")).text == "image 7"
+
+        cleanup:
+        zipFile?.close()
+    }
+
+    def "Stages an image without waiting for the worker appending the others"() {
+        given: "Appending the first image blocks until it is released"
+        def path = tempPath.resolve("0001 - Prologue.cbz")
+        def appending = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def blocking = new AtomicBoolean()
+        def archive = new EpisodeArchive(path, 3, { n ->
+            if (n == 1 && blocking.get()) {
+                appending.countDown()
+                release.await()
+            }
+            entryName(n)
+        })
+        (1..3).each { Files.writeString(archive.getStagingFile(it), "image $it") }
+
+        when:
+        blocking.set(true)
+        def appender = CompletableFuture.runAsync { archive.add(1) }
+        appending.await()
+        def others = CompletableFuture.runAsync { [3, 2].each { archive.add(it) } }
+
+        then: "The other images are staged while the first one is being appended"
+        others.get(5, TimeUnit.SECONDS) == null
+        !appender.done
+
+        when:
+        release.countDown()
+        appender.get(5, TimeUnit.SECONDS)
+        blocking.set(false)
+        archive.close()
+
+        then: "The worker appending has appended the images staged meanwhile"
+        EpisodeArchive.isCompleted(path)
+        def zipFile = new ZipFile(path.toFile())
+        zipFile.entries().toList()*.name == ["001.webp", "002.webp", "003.webp"]
+
+        cleanup:
+        release.countDown()
+        zipFile?.close()
+    }
+
+    def "Keeps the part file to resume if an image is missing"() {
+        given:
+        def path = tempPath.resolve("0001 - Prologue.cbz")
+        def archive = new EpisodeArchive(path, 3, EpisodeArchiveSpec::entryName)
+
+        when: "The second image is failed"
+        [1, 3].each { n ->
+            Files.writeString(archive.getStagingFile(n), "image $n")
+            archive.add(n)
+        }
+        archive.close()
+
+        then:
+        !archive.full
+        !EpisodeArchive.isCompleted(path)
+        Files.list(tempPath).withCloseable { it.toList() }*.fileName*.toString() == [".0001 - Prologue.cbz.part"]
+
+        when:
+        archive = new EpisodeArchive(path, 3, EpisodeArchiveSpec::entryName)
+
+        then:
+        archive.nextNumber == 2
+
+        when:
+        [2, 3].each { n ->
+            Files.writeString(archive.getStagingFile(n), "image $n")
+            archive.add(n)
+        }
+        archive.close()
+
+        then:
+        EpisodeArchive.isCompleted(path)
+        def zipFile = new ZipFile(path.toFile())
+        zipFile.entries().toList()*.name == ["001.webp", "002.webp", "003.webp"]
+
+        cleanup:
+        zipFile?.close()
+    }
+
+    def "Starts over the part file which has unexpected entries"() {
+        given:
+        def path = tempPath.resolve("0001 - Prologue.cbz")
+        def archive = new EpisodeArchive(path, 3, { it + ".jpg" })
+        Files.writeString(archive.getStagingFile(1), "image")
+        archive.add(1)
+        archive.close()
+
+        when:
+        archive = new EpisodeArchive(path, 3, EpisodeArchiveSpec::entryName)
+
+        then:
+        archive.nextNumber == 1
+
+        cleanup:
+        archive.close()
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download
+
+import io.github.imsejin.dl.lezhin.api.auth.model.Authority
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Duration
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Supplier
+
+@Subject(EpisodeAuthority)
+class EpisodeAuthoritySpec extends Specification {
+
+    def "Returns the authority as it is until it is about to expire"() {
+        given:
+        def initial = authority(600)
+        def count = new AtomicInteger()
+        def episodeAuthority = new EpisodeAuthority(initial, { count.incrementAndGet(); authority(600) } as Supplier)
+
+        expect:
+        episodeAuthority.get().is(initial)
+        count.get() == 0
+    }
+
+    def "Refreshes the authority which is about to expire"() {
+        given:
+        def initial = authority(EpisodeAuthority.EXPIRATION_MARGIN.toSeconds() - 1)
+        def refreshed = authority(600)
+        def episodeAuthority = new EpisodeAuthority(initial, { refreshed } as Supplier)
+
+        expect:
+        episodeAuthority.get().is(refreshed)
+        episodeAuthority.get().is(refreshed)
+    }
+
+    def "Requests new authority only once, even if all the workers are rejected"() {
+        given:
+        def initial = authority(600)
+        def count = new AtomicInteger()
+        def episodeAuthority = new EpisodeAuthority(initial, {
+            Thread.sleep(50)
+            count.incrementAndGet()
+            authority(600)
+        } as Supplier)
+        def executor = Executors.newFixedThreadPool(8)
+
+        when:
+        def futures = (1..8).collect { executor.submit({ episodeAuthority.refresh(initial) } as Callable) }
+        def authorities = futures.collect { it.get() }
+
+        then:
+        count.get() == 1
+        authorities.toSet().size() == 1
+        !authorities[0].is(initial)
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "Gives up refreshing after too many times"() {
+        given:
+        def episodeAuthority = new EpisodeAuthority(authority(600), { authority(600) } as Supplier)
+
+        when:
+        def refreshed = (1..EpisodeAuthority.MAX_REFRESH_COUNT).collect { episodeAuthority.refresh(episodeAuthority.get()) }
+
+        then:
+        refreshed.every { it != null }
+        episodeAuthority.refresh(episodeAuthority.get()) == null
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private Authority authority(long secondsToExpire) {
+        def expiredAt = System.currentTimeMillis().intdiv(1000) + secondsToExpire
+        Stub(Authority) {
+            getExpiredAt() >> expiredAt
+            isExpired(_ as Duration) >> { Duration margin ->
+                expiredAt - margin.toSeconds() < System.currentTimeMillis().intdiv(1000)
+            }
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download
+
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.NoSuchFileException
+import java.nio.file.OpenOption
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+@Subject(FileSyncBatch)
+class FileSyncBatchSpec extends Specification {
+
+    @TempDir
+    private Path tempPath
+
+    def "Syncs the files and then the directory"() {
+        given:
+        def forced = []
+        def batch = new FileSyncBatch(tempPath, { Path path, OpenOption option -> forced << [path, option] })
+        def files = (1..3).collect { tempPath.resolve("${it}.jpg") }
+        files.each { batch.add(it) }
+
+        when:
+        batch.sync()
+
+        then:
+        forced == files.collect { [it, StandardOpenOption.WRITE] } + [[tempPath, StandardOpenOption.READ]]
+    }
+
+    def "Syncs each file only once"() {
+        given:
+        def forced = []
+        def batch = new FileSyncBatch(tempPath, { Path path, OpenOption option -> forced << path })
+        batch.add(tempPath.resolve("1.jpg"))
+
+        when:
+        batch.sync()
+        batch.sync()
+
+        then:
+        forced == [tempPath.resolve("1.jpg"), tempPath, tempPath]
+    }
+
+    def "Syncs only the directory when no file is added"() {
+        given:
+        def batch = new FileSyncBatch(tempPath)
+
+        when:
+        batch.sync()
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "Syncs the files written on the disk"() {
+        given:
+        def batch = new FileSyncBatch(tempPath)
+        def files = (1..3).collect { Files.writeString(tempPath.resolve("${it}.jpg"), "image-$it") }
+        files.each { batch.add(it) }
+
+        when:
+        batch.sync()
+
+        then:
+        noExceptionThrown()
+        files.every { Files.readString(it) == "image-${it.fileName.toString() - '.jpg'}" }
+    }
+
+    def "Tolerates the directory that cannot be opened"() {
+        given:
+        def batch = new FileSyncBatch(tempPath, { Path path, OpenOption option ->
+            if (path == tempPath) throw new IOException("Access is denied")
+        })
+        batch.add(tempPath.resolve("1.jpg"))
+
+        when:
+        batch.sync()
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "Throws exception when a file cannot be synced"() {
+        given:
+        def batch = new FileSyncBatch(tempPath)
+        batch.add(tempPath.resolve("missing.jpg"))
+
+        when:
+        batch.sync()
+
+        then:
+        thrown NoSuchFileException
+    }
+
+}
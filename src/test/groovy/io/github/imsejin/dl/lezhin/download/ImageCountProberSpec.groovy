@@ -0,0 +1,141 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download
+
+import io.github.imsejin.dl.lezhin.api.auth.service.AuthorityService
+import io.github.imsejin.dl.lezhin.api.auth.model.ServiceRequest
+import io.github.imsejin.dl.lezhin.http.url.EpisodeImageUrls
+import io.github.imsejin.dl.lezhin.mock.MockLezhinServer
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+@Subject(ImageCountProber)
+class ImageCountProberSpec extends Specification {
+
+    def "Finds the last existing number with a few rounds of probes"() {
+        given:
+        def probed = ConcurrentHashMap.newKeySet()
+        def prober = new ImageCountProber(8)
+
+        when:
+        def count = prober.probe { probed.add(it); it <= imageCount }
+
+        then:
+        count == imageCount
+        probed.size() <= maxProbes
+
+        where:
+        imageCount | maxProbes
+        0          | 8
+        1          | 8
+        2          | 16
+        7          | 16
+        64         | 24
+        88         | 32
+        128        | 32
+        129        | 40
+        5_000      | 48
+    }
+
+    def "Probes one image at a time, which is a binary search"() {
+        given:
+        def inFlight = new AtomicInteger()
+        def peak = new AtomicInteger()
+        def probed = ConcurrentHashMap.newKeySet()
+        def prober = new ImageCountProber(1)
+
+        when:
+        def count = prober.probe {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max)
+            probed.add(it)
+            inFlight.decrementAndGet()
+            it <= imageCount
+        }
+
+        then:
+        count == imageCount
+        peak.get() == 1
+        probed.size() <= maxProbes
+
+        where:
+        imageCount | maxProbes
+        0          | 1
+        1          | 2
+        7          | 6
+        88         | 14
+        5_000      | 26
+    }
+
+    def "Probes the images at the same time"() {
+        given:
+        def inFlight = new AtomicInteger()
+        def peak = new AtomicInteger()
+        def prober = new ImageCountProber(4)
+
+        when:
+        def count = prober.probe {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max)
+            Thread.sleep(50)
+            inFlight.decrementAndGet()
+            it <= 30
+        }
+
+        then:
+        count == 30
+        peak.get() > 1
+    }
+
+    def "Throws exception when failed to probe an image"() {
+        when:
+        new ImageCountProber(4).probe { if (it == 4) throw new IOException("timeout"); true }
+
+        then:
+        def e = thrown(IOException)
+        e.message == "timeout"
+    }
+
+    def "Stops galloping when everything seems to exist"() {
+        when:
+        new ImageCountProber(8).probe { true }
+
+        then:
+        thrown(IOException)
+    }
+
+    def "Finds the number of images on the CDN"() {
+        given:
+        def server = new MockLezhinServer().setCdnImageCount(2, 43)
+        def authority = new AuthorityService(Locale.KOREA, UUID.randomUUID(), server.host)
+                .getAuthForViewEpisode(new ServiceRequest(contentId: 1, episodeId: 2, purchased: true))
+        def urls = new EpisodeImageUrls(server.host, 1, 2, "webp", true)
+        def downloader = new ImageDownloader()
+
+        when:
+        def count = new ImageCountProber(8).probe { downloader.exists(urls.get(authority, it)) }
+
+        then:
+        count == 43
+        server.imageCount == 0
+
+        cleanup:
+        server?.close()
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download
+
+import com.sun.net.httpserver.HttpServer
+import io.github.imsejin.dl.lezhin.exception.HttpResponseException
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.security.MessageDigest
+
+@Subject(ImageDownloader)
+class ImageDownloaderSpec extends Specification {
+
+    @TempDir
+    private Path tempPath
+
+    private HttpServer server
+
+    /**
+     * Number of the next responses whose body is cut off.
+     */
+    private volatile int truncations
+
+    void setup() {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.loopbackAddress, 0), 0)
+        server.createContext("/images/") { exchange ->
+            def name = exchange.requestURI.path.substring("/images/".length())
+            if (name == "missing.webp") {
+                exchange.sendResponseHeaders(403, -1)
+            } else if (name == "gone.webp") {
+                exchange.sendResponseHeaders(404, -1)
+            } else if (exchange.requestMethod == "HEAD") {
+                exchange.sendResponseHeaders(200, -1)
+            } else if (truncations > 0) {
+                truncations--
+                exchange.sendResponseHeaders(200, 1024)
+                exchange.responseBody.write(new byte[512])
+                exchange.responseBody.flush()
+            } else {
+                def bytes = new byte[Integer.parseInt(name.takeWhile { it.isNumber() })]
+                new Random(bytes.length).nextBytes(bytes)
+                exchange.sendResponseHeaders(200, bytes.length)
+                exchange.responseBody.withCloseable { it.write(bytes) }
+            }
+            exchange.close()
+        }
+        server.start()
+    }
+
+    void cleanup() {
+        server.stop(0)
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    def "Downloads an image"() {
+        given:
+        def url = new URL("http://127.0.0.1:${server.address.port}/images/${size}.webp")
+        def dest = tempPath.resolve("001.webp")
+
+        when:
+        def image = new ImageDownloader().download(url, dest)
+
+        then:
+        image.size == size
+        image.checksum == MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(dest)).encodeHex().toString()
+        Files.size(dest) == size
+        Files.list(tempPath).withCloseable { it.count() } == 1
+
+        where:
+        size << [1, 1024, 512 * 1024]
+    }
+
+    def "Downloads an image again if reading its body fails"() {
+        given:
+        truncations = 2
+        def url = new URL("http://127.0.0.1:${server.address.port}/images/1024.webp")
+        def dest = tempPath.resolve("001.webp")
+
+        when:
+        def image = new ImageDownloader().download(url, dest)
+
+        then:
+        truncations == 0
+        image.size == 1024
+        Files.size(dest) == 1024
+        Files.list(tempPath).withCloseable { it.count() } == 1
+    }
+
+    def "Gives up the image whose body keeps failing"() {
+        given:
+        truncations = Integer.MAX_VALUE
+        def url = new URL("http://127.0.0.1:${server.address.port}/images/1024.webp")
+        def dest = tempPath.resolve("001.webp")
+
+        when:
+        new ImageDownloader().download(url, dest)
+
+        then: "No temporary file is left"
+        thrown IOException
+        truncations == Integer.MAX_VALUE - 4
+        Files.list(tempPath).withCloseable { it.count() } == 0
+    }
+
+    def "Downloads the same images to links into the blob store"() {
+        given:
+        def url = new URL("http://127.0.0.1:${server.address.port}/images/1024.webp")
+        def blobStore = new BlobStore(tempPath)
+        def downloader = new ImageDownloader(null, blobStore)
+        def episode1 = Files.createDirectory(tempPath.resolve("0001 - Prologue"))
+        def episode2 = Files.createDirectory(tempPath.resolve("0002 - Chapter 1"))
+
+        when:
+        def image1 = downloader.download(url, episode1.resolve("001.webp"))
+        def image2 = downloader.download(url, episode2.resolve("005.webp"))
+
+        then:
+        image1 == image2
+        Files.isSameFile(episode1.resolve("001.webp"), blobStore.getBlobPath(image1.checksum))
+        Files.isSameFile(episode2.resolve("005.webp"), blobStore.getBlobPath(image1.checksum))
+        Files.walk(blobStore.directory).withCloseable { it.filter(Files::isRegularFile).count() } == 1
+        Files.list(episode1).withCloseable { it.count() } == 1
+        Files.list(episode2).withCloseable { it.count() } == 1
+    }
+
+    def "Checks if an image exists without downloading it"() {
+        given:
+        def url = new URL("http://127.0.0.1:${server.address.port}/images/$name")
+
+        expect:
+        new ImageDownloader().exists(url) == expected
+        Files.list(tempPath).withCloseable { it.count() } == 0
+
+        where:
+        name           | expected
+        "1024.webp"    | true
+        "missing.webp" | false
+        "gone.webp"    | false
+    }
+
+    def "Tells a forbidden image from a missing one"() {
+        given:
+        def url = new URL("http://127.0.0.1:${server.address.port}/images/$name")
+
+        expect:
+        new ImageDownloader().checkPresence(url) == expected
+
+        where:
+        name           | expected
+        "1024.webp"    | ImageDownloader.Presence.PRESENT
+        "gone.webp"    | ImageDownloader.Presence.MISSING
+        "missing.webp" | ImageDownloader.Presence.FORBIDDEN
+    }
+
+    def "Fails to download an image due to unsuccessful response"() {
+        given:
+        def url = new URL("http://127.0.0.1:${server.address.port}/images/missing.webp")
+        def dest = tempPath.resolve("001.webp")
+
+        when:
+        new ImageDownloader().download(url, dest)
+
+        then:
+        def e = thrown(HttpResponseException)
+        e.code == 403
+        Files.notExists(dest)
+        Files.list(tempPath).withCloseable { it.count() } == 0
+    }
+
+}
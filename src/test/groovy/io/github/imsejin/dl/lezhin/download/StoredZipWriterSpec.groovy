@@ -0,0 +1,131 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download
+
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.TempDir
+
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+
+@Subject(StoredZipWriter)
+class StoredZipWriterSpec extends Specification {
+
+    @TempDir
+    private Path tempPath
+
+    def "Writes the entries without compression"() {
+        given:
+        def zip = tempPath.resolve("episode.cbz")
+        def files = (1..3).collect { n -> Files.write(tempPath.resolve("00${n}.webp"), new byte[n * 1000].tap { it[0] = n }) }
+
+        when:
+        def writer = StoredZipWriter.open(zip)
+        files.each { writer.add(it.fileName.toString(), it) }
+        writer.finish()
+        writer.close()
+
+        then:
+        def zipFile = new ZipFile(zip.toFile())
+        def entries = zipFile.entries().toList()
+        entries*.name == ["001.webp", "002.webp", "003.webp"]
+        entries.every { it.method == ZipEntry.STORED }
+        entries.every { zipFile.getInputStream(it).bytes == Files.readAllBytes(tempPath.resolve(it.name)) }
+
+        cleanup:
+        zipFile?.close()
+    }
+
+    def "Writes the same file for the same entries"() {
+        given:
+        def image = Files.write(tempPath.resolve("001.webp"), "image".bytes)
+
+        when:
+        def checksums = ["a.cbz", "b.cbz"].collect { name ->
+            def path = tempPath.resolve(name)
+            def writer = StoredZipWriter.open(path)
+            writer.add("001.webp", image)
+            writer.finish()
+            writer.close()
+            Files.readAllBytes(path).encodeHex().toString()
+        }
+
+        then:
+        checksums[0] == checksums[1]
+    }
+
+    def "Resumes the intact entries of the file written before"() {
+        given:
+        def zip = tempPath.resolve("episode.cbz")
+        def files = (1..3).collect { n -> Files.write(tempPath.resolve("00${n}.webp"), new byte[1000].tap { it[0] = n }) }
+        def writer = StoredZipWriter.open(zip)
+        files.each { writer.add(it.fileName.toString(), it) }
+        writer.close()
+
+        and: "The last entry is truncated"
+        FileChannel.open(zip, StandardOpenOption.WRITE).withCloseable { it.truncate(it.size() - 10) }
+
+        when:
+        writer = StoredZipWriter.open(zip)
+
+        then:
+        writer.entryNames == ["001.webp", "002.webp"]
+
+        when:
+        writer.add("003.webp", files[2])
+        writer.finish()
+        writer.close()
+
+        then:
+        def zipFile = new ZipFile(zip.toFile())
+        zipFile.entries().toList()*.name == ["001.webp", "002.webp", "003.webp"]
+        zipFile.getInputStream(zipFile.getEntry("003.webp")).bytes == Files.readAllBytes(files[2])
+
+        cleanup:
+        zipFile?.close()
+    }
+
+    def "Discards the entries after a corrupted one"() {
+        given:
+        def zip = tempPath.resolve("episode.cbz")
+        def files = (1..3).collect { n -> Files.write(tempPath.resolve("00${n}.webp"), new byte[1000]) }
+        def writer = StoredZipWriter.open(zip)
+        files.each { writer.add(it.fileName.toString(), it) }
+        writer.close()
+
+        and: "A byte of the second image is flipped"
+        def bytes = Files.readAllBytes(zip)
+        bytes[(30 + 8 + 1000) + 30 + 8 + 500] = 1
+        Files.write(zip, bytes)
+
+        when:
+        writer = StoredZipWriter.open(zip)
+
+        then:
+        writer.entryNames == ["001.webp"]
+        Files.size(zip) == 30 + 8 + 1000
+
+        cleanup:
+        writer?.close()
+    }
+
+}
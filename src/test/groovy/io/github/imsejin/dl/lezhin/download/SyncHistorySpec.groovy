@@ -0,0 +1,142 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.download
+
+import io.github.imsejin.dl.lezhin.attribute.impl.Content.Episode
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+@Subject(SyncHistory)
+class SyncHistorySpec extends Specification {
+
+    @TempDir
+    private Path tempPath
+
+    def "Has no entry for the content never synced"() {
+        when:
+        def history = SyncHistory.load(tempPath)
+
+        then:
+        history.get(Locale.KOREA, "snail") == null
+    }
+
+    def "Ignores broken history file"() {
+        given:
+        Files.writeString(tempPath.resolve(SyncHistory.FILE_NAME), '{"ko:snail": {"syncedAt": ')
+
+        when:
+        def history = SyncHistory.load(tempPath)
+
+        then:
+        noExceptionThrown()
+        history.get(Locale.KOREA, "snail") == null
+    }
+
+    def "Records the episodes synced per locale"() {
+        given:
+        def history = SyncHistory.load(tempPath)
+        def episodes = [episode(1, 200, 100), episode(2, 250, 300)]
+
+        when:
+        history.put(Locale.KOREA, "snail", 1000, episodes, { it.id == 2 })
+        history.save()
+        def loaded = SyncHistory.load(tempPath)
+
+        then:
+        loaded.get(Locale.KOREA, "snail").syncedAt == 1000
+        !loaded.get(Locale.KOREA, "snail").isChanged(episode(1, 200, 100), false)
+        !loaded.get(Locale.KOREA, "snail").isChanged(episode(2, 250, 300), true)
+        loaded.get(Locale.US, "snail") == null
+    }
+
+    def "Checks if the episode is changed since it was synced"() {
+        given:
+        def history = SyncHistory.load(tempPath)
+        history.put(Locale.KOREA, "snail", 1000, [episode(1, 500, 500)], { false })
+        def lastSync = history.get(Locale.KOREA, "snail")
+
+        expect:
+        lastSync.isChanged(episode(id, updatedAt, publishedAt), purchased) == expected
+
+        where:
+        id | updatedAt | publishedAt | purchased || expected
+        1  | 500       | 500         | false     || false
+        1  | 400       | 400         | false     || false
+        1  | 600       | 500         | false     || true
+        1  | 500       | 600         | false     || true
+        1  | 500       | 500         | true      || true
+        2  | 400       | 400         | false     || true
+    }
+
+    def "Syncs the episodes out of the range of the last sync when the range is widened"() {
+        given: "Syncs the first two episodes only"
+        def history = SyncHistory.load(tempPath)
+        def episodes = (1..4).collect { episode(it, it * 100, it * 100) }
+        history.put(Locale.KOREA, "snail", 1000, episodes[0..1], { false })
+
+        when: "Widens the range to all the episodes"
+        def changed = episodes.findAll { history.get(Locale.KOREA, "snail").isChanged(it, false) }
+
+        then: "The later episodes are synced though they are older than the last sync"
+        changed == episodes[2..3]
+
+        when: "Syncs the widened range"
+        history.put(Locale.KOREA, "snail", 2000, changed, { false })
+
+        then: "The episodes synced before are kept"
+        episodes.every { !history.get(Locale.KOREA, "snail").isChanged(it, false) }
+    }
+
+    def "Syncs the episode purchased after it was synced"() {
+        given: "Syncs the free episode without purchase"
+        def history = SyncHistory.load(tempPath)
+        def episode = episode(1, 100, 100)
+        history.put(Locale.KOREA, "snail", 1000, [episode], { false })
+
+        expect: "Purchase doesn't change any timestamp of the episode"
+        !history.get(Locale.KOREA, "snail").isChanged(episode, false)
+        history.get(Locale.KOREA, "snail").isChanged(episode, true)
+
+        when: "Syncs the purchased episode"
+        history.put(Locale.KOREA, "snail", 2000, [episode], { true })
+
+        then:
+        !history.get(Locale.KOREA, "snail").isChanged(episode, true)
+    }
+
+    def "Doesn't record the episode not synced"() {
+        given:
+        def history = SyncHistory.load(tempPath)
+
+        when: "Sync records none of the episodes, for example all of them are failed to download"
+        history.put(Locale.KOREA, "snail", 1000, [], { false })
+
+        then:
+        history.get(Locale.KOREA, "snail").isChanged(episode(1, 100, 100), false)
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static Episode episode(long id, Long updatedAt, Long publishedAt) {
+        new Episode(id: id, updatedAt: updatedAt, publishedAt: publishedAt)
+    }
+
+}
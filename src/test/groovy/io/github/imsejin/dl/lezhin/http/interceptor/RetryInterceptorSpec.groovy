@@ -0,0 +1,316 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.http.interceptor
+
+import okhttp3.Call
+import okhttp3.Connection
+import okhttp3.Interceptor
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.RequestBody
+import okhttp3.Response
+import okhttp3.ResponseBody
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.net.ProtocolException
+import java.time.Duration
+import java.time.ZoneOffset
+import java.time.ZonedDateTime
+import java.time.format.DateTimeFormatter
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+@Subject(RetryInterceptor)
+class RetryInterceptorSpec extends Specification {
+
+    def "Retries the request failed by a transient problem"() {
+        given:
+        def interceptor = new RetryInterceptor(4, Duration.ofMillis(1), Duration.ofMillis(5), 100, Duration.ofMillis(1))
+        def results = [new SocketTimeoutException("timeout"), 503, 502, 200]
+        def chain = chain(results)
+
+        when:
+        def response = interceptor.intercept(chain)
+
+        then:
+        response.code() == 200
+        chain.count == 4
+        interceptor.retryCount == 3
+        interceptor.failureCount == 0
+    }
+
+    def "Doesn't retry the request failed by a permanent problem"() {
+        given:
+        def interceptor = new RetryInterceptor(4, Duration.ofMillis(1), Duration.ofMillis(5), 100, Duration.ofMillis(1))
+        def chain = chain([result, 200])
+
+        when:
+        def response = null
+        def exception = null
+        try {
+            response = interceptor.intercept(chain)
+        } catch (IOException e) {
+            exception = e
+        }
+
+        then:
+        chain.count == 1
+        interceptor.retryCount == 0
+        response?.code() == code
+        exception?.class == exceptionType
+
+        where:
+        result                              | code | exceptionType
+        403                                 | 403  | null
+        404                                 | 404  | null
+        new ProtocolException("malformed")  | null | ProtocolException
+        new InterruptedIOException("intr")  | null | InterruptedIOException
+    }
+
+    def "Gives up after all the attempts"() {
+        given:
+        def interceptor = new RetryInterceptor(3, Duration.ofMillis(1), Duration.ofMillis(5), 100, Duration.ofMillis(1))
+        def chain = chain([500, 500, 500, 200])
+
+        when:
+        def response = interceptor.intercept(chain)
+
+        then:
+        response.code() == 500
+        chain.count == 3
+        interceptor.failureCount == 1
+    }
+
+    def "Doesn't retry the request which is not idempotent"() {
+        given:
+        def interceptor = new RetryInterceptor(4, Duration.ofMillis(1), Duration.ofMillis(5), 100, Duration.ofMillis(1))
+        def chain = chain([503, 200], "POST")
+
+        when:
+        def response = interceptor.intercept(chain)
+
+        then:
+        response.code() == 503
+        chain.count == 1
+    }
+
+    def "Pauses the requests to the host while it is throttling"() {
+        given:
+        def interceptor = new RetryInterceptor(2, Duration.ofMillis(1), Duration.ofMillis(5), 100, Duration.ofSeconds(10))
+        def chain = chain([[429, "1"], 200])
+
+        when:
+        def startedAt = System.nanoTime()
+        def response = interceptor.intercept(chain)
+        def elapsed = Duration.ofNanos(System.nanoTime() - startedAt)
+
+        then:
+        response.code() == 200
+        elapsed >= Duration.ofSeconds(1)
+        elapsed < Duration.ofSeconds(10)
+    }
+
+    def "Opens the circuit after failures in a row"() {
+        given:
+        def breaker = new CircuitBreaker("cdn.lezhin.com", 3, Duration.ofSeconds(10))
+
+        when:
+        2.times { breaker.onFailure(false, null) }
+
+        then:
+        !breaker.isOpen()
+
+        when:
+        breaker.onFailure(false, null)
+
+        then:
+        breaker.isOpen()
+    }
+
+    def "Lets only the probe through after the pause, and closes the circuit if it succeeds"() {
+        given:
+        def breaker = new CircuitBreaker("cdn.lezhin.com", 1, Duration.ofMillis(100))
+        breaker.onFailure(false, null)
+
+        when: "This thread is the probe"
+        breaker.await()
+        def passed = new AtomicInteger()
+        def executor = startWaiting(breaker, 8, passed)
+        Thread.sleep(300)
+
+        then: "The others wait for the probe"
+        passed.get() == 0
+
+        when:
+        breaker.onSuccess()
+        executor.shutdown()
+        executor.awaitTermination(5, TimeUnit.SECONDS)
+
+        then:
+        passed.get() == 8
+        !breaker.isOpen()
+    }
+
+    def "Opens the circuit again if the probe fails"() {
+        given:
+        def breaker = new CircuitBreaker("cdn.lezhin.com", 100, Duration.ofMillis(200))
+        breaker.onFailure(true, null)
+
+        when:
+        breaker.await()
+        def passed = new AtomicInteger()
+        def executor = startWaiting(breaker, 8, passed)
+        breaker.onFailure(false, null)
+
+        then:
+        breaker.isOpen()
+        passed.get() == 0
+
+        when: "One of the others is the next probe"
+        Thread.sleep(500)
+
+        then:
+        passed.get() == 1
+
+        cleanup:
+        executor?.shutdownNow()
+    }
+
+    def "Backoff grows exponentially up to the max delay"() {
+        given:
+        def interceptor = new RetryInterceptor(10, Duration.ofMillis(100), Duration.ofMillis(1000), 100, Duration.ofMillis(1))
+
+        expect:
+        (1..100).every { interceptor.getBackoff(attempt) <= Duration.ofMillis(cap) }
+
+        where:
+        attempt | cap
+        1       | 100
+        2       | 200
+        3       | 400
+        4       | 800
+        5       | 1000
+        30      | 1000
+    }
+
+    def "Parses Retry-After header"() {
+        expect:
+        RetryInterceptor.parseRetryAfter(value) == expected
+
+        where:
+        value                                   | expected
+        null                                    | null
+        ""                                      | null
+        "invalid"                               | null
+        "3"                                     | Duration.ofSeconds(3)
+        "-1"                                    | Duration.ZERO
+        "86400"                                 | Duration.ofMinutes(2)
+        "Wed, 21 Oct 2015 07:28:00 GMT"         | Duration.ZERO
+    }
+
+    def "Parses Retry-After header of HTTP date"() {
+        given:
+        def dateTime = ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(30)
+        def value = DateTimeFormatter.RFC_1123_DATE_TIME.format(dateTime)
+
+        when:
+        def duration = RetryInterceptor.parseRetryAfter(value)
+
+        then:
+        duration > Duration.ofSeconds(25)
+        duration <= Duration.ofSeconds(30)
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static ExecutorService startWaiting(CircuitBreaker breaker, int count, AtomicInteger passed) {
+        def executor = Executors.newFixedThreadPool(count)
+        count.times {
+            // Submitted, so that the interruption at cleanup is not reported.
+            executor.submit {
+                breaker.await()
+                passed.incrementAndGet()
+            }
+        }
+        executor
+    }
+
+    /**
+     * Creates a chain which responds with the results in order: status code,
+     * status code with Retry-After header or exception.
+     */
+    private static CountingChain chain(List results, String method = "GET") {
+        def body = method == "GET" ? null : RequestBody.create(null, new byte[0])
+        def request = new Request.Builder().url("https://cdn.lezhin.com/v2/comics/1/episodes/2/contents/scrolls/1")
+                .method(method, body).build()
+        new CountingChain(request, results)
+    }
+
+    private static class CountingChain implements Interceptor.Chain {
+        private final Request request
+        private final List results
+        int count
+
+        CountingChain(Request request, List results) {
+            this.request = request
+            this.results = results
+        }
+
+        @Override
+        Request request() { request }
+
+        @Override
+        Response proceed(Request request) throws IOException {
+            def result = results[count++]
+            if (result instanceof IOException) throw result
+
+            def (code, retryAfter) = result instanceof List ? result : [result, null]
+            def builder = new Response.Builder().request(request).protocol(Protocol.HTTP_1_1)
+                    .code(code as int).message("").body(ResponseBody.create(null, ""))
+            if (retryAfter != null) builder.header("Retry-After", retryAfter as String)
+            builder.build()
+        }
+
+        @Override
+        Connection connection() { null }
+
+        @Override
+        Call call() { [isCanceled: { false }] as Call }
+
+        @Override
+        int connectTimeoutMillis() { 0 }
+
+        @Override
+        Interceptor.Chain withConnectTimeout(int timeout, TimeUnit unit) { this }
+
+        @Override
+        int readTimeoutMillis() { 0 }
+
+        @Override
+        Interceptor.Chain withReadTimeout(int timeout, TimeUnit unit) { this }
+
+        @Override
+        int writeTimeoutMillis() { 0 }
+
+        @Override
+        Interceptor.Chain withWriteTimeout(int timeout, TimeUnit unit) { this }
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.http.page
+
+import io.github.imsejin.dl.lezhin.mock.MockLezhinServer
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Duration
+
+@Subject(EpisodeImageCountReader)
+class EpisodeImageCountReaderSpec extends Specification {
+
+    @AutoCleanup
+    private MockLezhinServer server = new MockLezhinServer()
+
+    def "Parses the number of images of the episode"() {
+        expect:
+        EpisodeImageCountReader.parse(objectLiteral) == expected
+
+        where:
+        objectLiteral                                                    | expected
+        '{productType: "comic", episode: {"name": "1", "scroll": 48}}'   | 48
+        '{episode: {"name": "p1", "scroll": 0, "cut": 12}}'              | 12
+        "{episode: {'name': '2', scroll: 7, cut: 0}, departure: ''}"     | 7
+        '{episode: {"name": "3", "scroll": 0, "cut": 0}}'                | null
+        '{episode: null}'                                                | null
+        '{product: {"alias": "snail"}}'                                  | null
+    }
+
+    def "Reads the pages at the same time"() {
+        given:
+        (1..8).each { server.addEpisode("snail", "$it", it * 10) }
+        server.latency = Duration.ofMillis(200)
+        def reader = new EpisodeImageCountReader(new WebPageClient(server.host, []), 4)
+        def paths = (1..8).collectEntries { ["$it".toString(), "/en/comic/snail/$it".toString()] }
+
+        when:
+        def imageCounts = reader.readAll(paths)
+
+        then:
+        imageCounts == (1..8).collectEntries { ["$it".toString(), it * 10] }
+        server.peakInFlight > 1
+    }
+
+    def "Reads the pages despite transient errors"() {
+        given:
+        (1..30).each { server.addEpisode("snail", "$it", it * 10) }
+        server.errorRate = 0.3
+        server.setErrorStatus(503, Duration.ZERO)
+        def reader = new EpisodeImageCountReader(new WebPageClient(server.host, []), 4)
+        def paths = (1..30).collectEntries { ["$it".toString(), "/en/comic/snail/$it".toString()] }
+
+        when:
+        def imageCounts = reader.readAll(paths)
+
+        then:
+        imageCounts == (1..30).collectEntries { ["$it".toString(), it * 10] }
+        server.errorCount > 0
+    }
+
+    def "Leaves out the episodes failed to read"() {
+        given:
+        server.addEpisode("snail", "1", 30)
+        def reader = new EpisodeImageCountReader(new WebPageClient(server.host, []), 4)
+
+        when:
+        def imageCounts = reader.readAll(["1": "/en/comic/snail/1", "2": "/en/comic/snail/2"])
+
+        then:
+        imageCounts == ["1": 30]
+        reader.read("/en/comic/snail/2") == null
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.http.page
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+@Subject(InlineScriptExtractor)
+class InlineScriptExtractorSpec extends Specification {
+
+    def "Extracts the object literal assigned to the variable"() {
+        given:
+        def page = """
+            <html><head><script>
+            window.__LZ_CONFIG__ = {"locale": "ko-KR"};
+            __LZ_PRODUCT__ = {
+                product: {"id": 5402479112798208, "alias": "appetite", "display": {"title": "Appetite"}},
+                departure: ""
+            };
+            </script></head><body></body></html>
+        """
+
+        when:
+        def literal = InlineScriptExtractor.extract(new StringReader(page), "__LZ_PRODUCT__")
+
+        then:
+        literal.startsWith('{')
+        literal.endsWith('}')
+        literal.contains('"alias": "appetite"')
+        literal.contains('departure: ""')
+    }
+
+    def "Skips the usage of the variable which is not an assignment"() {
+        given:
+        def page = """
+            <script>console.log(window.__LZ_PRODUCT__.product);</script>
+            <script>window.__LZ_PRODUCT__ = {product: {"alias": "snail"}};</script>
+        """
+
+        when:
+        def literal = InlineScriptExtractor.extract(new StringReader(page), "__LZ_PRODUCT__")
+
+        then:
+        literal == '{product: {"alias": "snail"}}'
+    }
+
+    def "Ignores braces in string literals"() {
+        given:
+        def page = """__LZ_PRODUCT__ = {a: "}", b: '{{', c: `}`, d: "\\"}"};"""
+
+        when:
+        def literal = InlineScriptExtractor.extract(new StringReader(page), "__LZ_PRODUCT__")
+
+        then:
+        literal == """{a: "}", b: '{{', c: `}`, d: "\\"}"}"""
+    }
+
+    def "Returns null if the object is not found"() {
+        expect:
+        InlineScriptExtractor.extract(new StringReader(page), "__LZ_PRODUCT__") == null
+
+        where:
+        page << [
+                "",
+                "<script>window.__LZ_CONFIG__ = {};</script>",
+                "<script>__LZ_PRODUCT__ = null;</script>",
+                "<script>__LZ_PRODUCT__ = {product: {\"alias\": \"appetite\"",
+        ]
+    }
+
+}
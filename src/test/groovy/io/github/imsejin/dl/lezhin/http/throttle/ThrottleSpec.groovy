@@ -0,0 +1,68 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.http.throttle
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.LocalTime
+
+@Subject(Throttle)
+class ThrottleSpec extends Specification {
+
+    def "Is active all day without time window"() {
+        given:
+        def throttle = Throttle.of(10, null)
+
+        expect:
+        throttle.isActiveAt(LocalTime.MIDNIGHT)
+        throttle.isActiveAt(LocalTime.NOON)
+    }
+
+    def "Is active only during the time window"() {
+        given:
+        def throttle = Throttle.of(10, window)
+
+        expect:
+        throttle.isActiveAt(LocalTime.parse(time)) == expected
+
+        where:
+        window        | time    | expected
+        "09-18"       | "08:59" | false
+        "09-18"       | "09:00" | true
+        "09-18"       | "17:59" | true
+        "09-18"       | "18:00" | false
+        "22:30-06:00" | "22:29" | false
+        "22:30-06:00" | "23:00" | true
+        "22:30-06:00" | "00:00" | true
+        "22:30-06:00" | "05:59" | true
+        "22:30-06:00" | "06:00" | false
+        "0-24"        | "23:59" | true
+    }
+
+    def "Throws exception with invalid time window"() {
+        when:
+        Throttle.of(10, window)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        window << ["", "9", "09~18", "25-03", "09:60-10", "10-10"]
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.http.throttle
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Duration
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+@Subject(TokenBucket)
+class TokenBucketSpec extends Specification {
+
+    def "Takes tokens up to the burst without waiting"() {
+        given:
+        def bucket = new TokenBucket(1, Duration.ofSeconds(10))
+
+        expect: "A token is refilled per second, which is far longer than the gap between the calls"
+        bucket.reserve(10) <= 0
+        bucket.reserve(1) > 0
+    }
+
+    def "Makes the next taker wait as long as the cost of the tokens"() {
+        given:
+        def bucket = new TokenBucket(1000, Duration.ofMillis(1))
+        bucket.reserve(1)
+
+        when:
+        def waitNanos = bucket.reserve(500)
+
+        then: "500 tokens at 1000 tokens/s cost 500 ms"
+        waitNanos > Duration.ofMillis(490).toNanos()
+        waitNanos <= Duration.ofMillis(500).toNanos()
+    }
+
+    def "Keeps the rate under parallel takers"() {
+        given:
+        def rate = 200
+        def bucket = new TokenBucket(rate, Duration.ofMillis(10))
+        def executor = Executors.newFixedThreadPool(8)
+
+        when: "8 workers take 100 tokens in total, which needs 0.5 sec"
+        def startedAt = System.nanoTime()
+        def futures = (1..8).collect {
+            executor.submit({ (1..12).each { bucket.acquire(1) }; null } as Callable)
+        }
+        bucket.acquire(4)
+        futures.each { it.get() }
+        def elapsed = Duration.ofNanos(System.nanoTime() - startedAt)
+
+        then:
+        elapsed >= Duration.ofMillis(480)
+        elapsed < Duration.ofSeconds(3)
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "Doesn't accumulate tokens over the burst while idle"() {
+        given:
+        def bucket = new TokenBucket(1000, Duration.ofMillis(10))
+        Thread.sleep(50)
+
+        expect:
+        bucket.reserve(10) <= 0
+        bucket.reserve(10) > 0
+    }
+
+}
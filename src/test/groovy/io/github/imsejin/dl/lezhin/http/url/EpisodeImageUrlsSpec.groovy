@@ -0,0 +1,66 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.http.url
+
+import io.github.imsejin.dl.lezhin.api.auth.model.Authority
+import spock.lang.Specification
+import spock.lang.Subject
+
+@Subject(EpisodeImageUrls)
+class EpisodeImageUrlsSpec extends Specification {
+
+    def "Gets the image URL, which is the same as the one rendered by the template"() {
+        given:
+        def authority = authority("policy", "signature", "key")
+        def imageUrls = new EpisodeImageUrls(host, 1024, 2048, "webp", true)
+
+        when:
+        def url = imageUrls.get(authority, 7)
+
+        then:
+        url.toString() == "https://rcdn.lezhin.com" + URIs.EPISODE_IMAGE.get(1024, 2048, 7, "webp", true,
+                "policy", "signature", "key")
+
+        where:
+        host << ["https://rcdn.lezhin.com", "https://rcdn.lezhin.com/", "https://rcdn.lezhin.com/path"]
+    }
+
+    def "Renders the image URL again with the new authority"() {
+        given:
+        def imageUrls = new EpisodeImageUrls("https://rcdn.lezhin.com", 1, 2, "jpg", false)
+
+        when:
+        def before = imageUrls.get(authority("old", "old", "old"), 10)
+        def after = imageUrls.get(authority("new", "new", "new"), 10)
+
+        then:
+        before.query == "purchased=false&q=30&Policy=old&Signature=old&Key-Pair-Id=old"
+        after.query == "purchased=false&q=30&Policy=new&Signature=new&Key-Pair-Id=new"
+        after.path == "/v2/comics/1/episodes/2/contents/scrolls/10.jpg"
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private Authority authority(String policy, String signature, String keyPairId) {
+        Stub(Authority) {
+            getPolicy() >> policy
+            getSignature() >> signature
+            getKeyPairId() >> keyPairId
+        }
+    }
+
+}
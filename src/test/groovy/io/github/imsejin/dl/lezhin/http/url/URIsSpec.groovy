@@ -0,0 +1,82 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.http.url
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+@Subject(URIs)
+class URIsSpec extends Specification {
+
+    def "Gets URI string"() {
+        expect:
+        uri.get(params as Object[]) == expected
+
+        where:
+        uri                  | params                                || expected
+        URIs.LOGIN           | []                                    || "/{language}/login"
+        URIs.LOGIN           | ["ko"]                                || "/ko/login"
+        URIs.EXPIRATION      | ["en"]                                || "/en/error/expired"
+        URIs.LOCALE          | ["ko", "ko-KR"]                       || "/ko/locale/ko-KR"
+        URIs.CONTENT         | ["ja", "redhood"]                     || "/ja/comic/redhood"
+        URIs.LIBRARY_EPISODE | ["ko", "ko-KR", "redhood", "e1"]      || "/ko/library/comic/ko-KR/redhood/e1"
+        URIs.EPISODE         | ["ko", "redhood", '$1\\']             || '/ko/comic/redhood/$1\\'
+    }
+
+    def "Fails to get URI string with insufficient parameters"() {
+        when:
+        URIs.LOCALE.get("ko")
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message.startsWith("Template URI has not matched variable(s): '/{language}/locale/{locale}'")
+    }
+
+    def "Renders URI string into the builder"() {
+        given:
+        def builder = new StringBuilder("https://www.lezhin.com")
+
+        when:
+        def result = URIs.CONTENT.render(builder, "ko", "redhood")
+
+        then:
+        result.is(builder)
+        builder.toString() == "https://www.lezhin.com/ko/comic/redhood"
+    }
+
+    def "Splits URI string by the variable"() {
+        expect:
+        uri.split(variable, params as Object[]) == expected as String[]
+
+        where:
+        uri                 | variable      | params                                               || expected
+        URIs.EPISODE        | "comicName"   | ["ko", "e1"]                                         || ["/ko/comic/", "/e1"]
+        URIs.EPISODE        | "language"    | ["redhood", "e1"]                                    || ["/", "/comic/redhood/e1"]
+        URIs.EPISODE        | "episodeName" | ["ko", "redhood"]                                    || ["/ko/comic/redhood/", ""]
+        URIs.EPISODE_IMAGE  | "num"         | [1, 2, "webp", true, "p", "s", "k"]                  || ["/v2/comics/1/episodes/2/contents/scrolls/", ".webp?purchased=true&q=30&Policy=p&Signature=s&Key-Pair-Id=k"]
+    }
+
+    def "Fails to split URI string by unknown variable"() {
+        when:
+        URIs.EPISODE.split("unknown", "ko", "redhood")
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message.startsWith("Template URI has no variable 'unknown': '/{language}/comic/{comicName}/{episodeName}'")
+    }
+
+}
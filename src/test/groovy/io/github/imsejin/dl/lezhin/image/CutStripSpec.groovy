@@ -0,0 +1,66 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.image
+
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.TempDir
+
+import javax.imageio.ImageIO
+import java.awt.Color
+import java.awt.Rectangle
+import java.awt.image.BufferedImage
+import java.nio.file.Path
+
+@Subject(CutStrip)
+class CutStripSpec extends Specification {
+
+    @TempDir
+    private Path tempPath
+
+    def "Copies the pixels to a new raster"() {
+        given:
+        def cuts = [createCut("001.png", Color.RED), createCut("002.png", Color.BLUE)]
+        def strip = new CutStrip(cuts, [10, 10] as int[], [20, 20] as int[], 0, 40, 8)
+
+        when:
+        def raster = strip.copyData(null)
+
+        then:
+        raster.bounds == new Rectangle(0, 0, 10, 40)
+        raster.getPixel(5, 5, (int[]) null) == [255, 0, 0] as int[]
+        raster.getPixel(5, 35, (int[]) null) == [0, 0, 255] as int[]
+
+        cleanup:
+        strip?.close()
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private Path createCut(String name, Color color) {
+        def image = new BufferedImage(10, 20, BufferedImage.TYPE_INT_RGB)
+        def graphics = image.createGraphics()
+        graphics.color = color
+        graphics.fillRect(0, 0, 10, 20)
+        graphics.dispose()
+
+        def path = tempPath.resolve(name)
+        ImageIO.write(image, "png", path.toFile())
+        return path
+    }
+
+}
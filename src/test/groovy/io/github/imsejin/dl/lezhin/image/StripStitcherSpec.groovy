@@ -0,0 +1,157 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.image
+
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.TempDir
+
+import javax.imageio.ImageIO
+import java.awt.Color
+import java.awt.image.BufferedImage
+import java.nio.file.Files
+import java.nio.file.Path
+
+@Subject(StripStitcher)
+class StripStitcherSpec extends Specification {
+
+    @TempDir
+    private Path tempPath
+
+    def "Stacks the cuts vertically and centers the narrower ones"() {
+        given:
+        def cuts = [
+                createCut("001.png", 40, 30, Color.RED),
+                createCut("002.png", 20, 50, Color.BLUE),
+                createCut("003.png", 40, 25, Color.GREEN),
+        ]
+
+        when:
+        def strips = new StripStitcher(0, 16).stitch(cuts, tempPath)
+
+        then:
+        strips == [tempPath.resolve("strip.png")]
+        def strip = ImageIO.read(strips[0].toFile())
+        strip.width == 40
+        strip.height == 105
+        rgb(strip, 0, 0) == Color.RED.RGB
+        rgb(strip, 39, 29) == Color.RED.RGB
+        rgb(strip, 20, 30) == Color.BLUE.RGB
+        rgb(strip, 10, 79) == Color.BLUE.RGB
+        rgb(strip, 9, 50) == Color.WHITE.RGB
+        rgb(strip, 30, 50) == Color.WHITE.RGB
+        rgb(strip, 0, 80) == Color.GREEN.RGB
+        rgb(strip, 39, 104) == Color.GREEN.RGB
+        Files.list(tempPath).withCloseable { it.filter { it.fileName.toString().endsWith(".part") }.count() } == 0
+    }
+
+    def "Splits the strip into the pages"() {
+        given:
+        def cuts = (1..3).collect { createCut("00${it}.png", 10, 70, it % 2 == 0 ? Color.BLACK : Color.RED) }
+
+        when:
+        def strips = new StripStitcher(100, 32).stitch(cuts, tempPath)
+
+        then:
+        strips == ["strip-01.png", "strip-02.png", "strip-03.png"].collect { tempPath.resolve(it) }
+        strips.collect { ImageIO.read(it.toFile()).height } == [100, 100, 10]
+
+        def second = ImageIO.read(strips[1].toFile())
+        rgb(second, 5, 0) == Color.BLACK.RGB
+        rgb(second, 5, 39) == Color.BLACK.RGB
+        rgb(second, 5, 40) == Color.RED.RGB
+    }
+
+    def "Doesn't stitch again if all the pages exist"() {
+        given:
+        def cuts = [createCut("001.png", 10, 150, Color.RED)]
+        def stitcher = new StripStitcher(100)
+        stitcher.stitch(cuts, tempPath)
+
+        expect:
+        stitcher.stitch(cuts, tempPath).isEmpty()
+
+        when:
+        Files.delete(tempPath.resolve("strip-02.png"))
+
+        then:
+        stitcher.stitch(cuts, tempPath).size() == 2
+    }
+
+    def "Names the pages with enough digits"() {
+        expect:
+        def pages = new StripStitcher(100).getPages(tempPath, height)
+        [pages.first(), pages.last()].collect { it.fileName.toString() } == names
+
+        where:
+        height | names
+        100    | ["strip-01.png", "strip-01.png"]
+        101    | ["strip-01.png", "strip-02.png"]
+        10_000 | ["strip-001.png", "strip-100.png"]
+    }
+
+    def "Stitches a tall strip with bounded memory"() {
+        given: "cuts as tall as the whole strip is far beyond a band"
+        def cuts = (1..40).collect { createCut(String.format("%03d.jpg", it), 64, 2_000, Color.RED) }
+
+        when:
+        def strips = new StripStitcher(0, 64).stitch(cuts, tempPath)
+
+        then:
+        def strip = ImageIO.read(strips[0].toFile())
+        strip.width == 64
+        strip.height == 80_000
+        // JPEG is lossy, so the color is not exact.
+        new Color(strip.getRGB(32, 79_999)).with { red > 250 && green < 5 && blue < 5 }
+    }
+
+    def "Has a reader of WebP, which is the default format of images"() {
+        expect:
+        ImageIO.getImageReadersBySuffix("webp").hasNext()
+    }
+
+    def "Fails on an unsupported image"() {
+        given:
+        def cut = Files.writeString(tempPath.resolve("001.webp"), "not an image")
+
+        when:
+        new StripStitcher(0).stitch([cut], tempPath)
+
+        then:
+        thrown(IOException)
+        !Files.exists(tempPath.resolve("strip.png"))
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private Path createCut(String name, int width, int height, Color color) {
+        def image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB)
+        def graphics = image.createGraphics()
+        graphics.color = color
+        graphics.fillRect(0, 0, width, height)
+        graphics.dispose()
+
+        def path = tempPath.resolve(name)
+        ImageIO.write(image, name.substring(name.lastIndexOf('.') + 1), path.toFile())
+        return path
+    }
+
+    private static int rgb(BufferedImage image, int x, int y) {
+        return image.getRGB(x, y) | 0xFF000000
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.metrics
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.time.Duration
+
+@Subject(Histogram)
+class HistogramSpec extends Specification {
+
+    def "Estimates the quantiles by the buckets"() {
+        given:
+        def histogram = new Histogram()
+        90.times { histogram.record(Duration.ofMillis(40)) }
+        9.times { histogram.record(Duration.ofMillis(400)) }
+        histogram.record(Duration.ofSeconds(3))
+
+        expect:
+        histogram.count == 100
+        histogram.getQuantileSeconds(0.5) == 0.05
+        histogram.getQuantileSeconds(0.9) == 0.05
+        histogram.getQuantileSeconds(0.99) == 0.5
+        histogram.getQuantileSeconds(1) == 3
+        histogram.maxSeconds == 3
+        histogram.sumSeconds == 90 * 0.04 + 9 * 0.4 + 3 as double
+    }
+
+    def "Returns zero for the quantile if nothing is recorded"() {
+        expect:
+        new Histogram().getQuantileSeconds(0.99) == 0
+    }
+
+    def "Counts the value over the largest bound"() {
+        given:
+        def histogram = new Histogram()
+        histogram.record(Duration.ofMinutes(10))
+
+        expect:
+        histogram.cumulativeCounts[Histogram.BOUNDS.length] == 1
+        histogram.cumulativeCounts[Histogram.BOUNDS.length - 1] == 0
+        histogram.getQuantileSeconds(0.5) == 600
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.metrics
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+@Subject(LogLinearHistogram)
+class LogLinearHistogramSpec extends Specification {
+
+    def "Gets the quantile by the nearest rank"() {
+        given:
+        def histogram = new LogLinearHistogram()
+        values.each { histogram.record(it) }
+
+        expect:
+        histogram.getQuantile(quantile) == expected
+
+        where:
+        values       | quantile || expected
+        []           | 0.5      || 0
+        [7]          | 0.99     || 7
+        [1, 2, 3, 4] | 0.5      || 2
+        [1, 2, 3, 4] | 0.75     || 3
+        [1, 2, 3, 4] | 0.99     || 4
+        [1, 2, 3, 4] | 0        || 1
+        [-5, 3]      | 0        || 0
+    }
+
+    def "Estimates the quantile within 0.4% of the value"() {
+        given:
+        def histogram = new LogLinearHistogram()
+        histogram.record(value)
+
+        expect:
+        Math.abs(histogram.getQuantile(0.5) - value) <= value * 0.004
+
+        where:
+        value << [127, 128, 129, 255, 256, 1_000, 65_537, 50_000_000, 123_456_789_012, Long.MAX_VALUE]
+    }
+
+    def "Counts the values recorded at the same time"() {
+        given:
+        def histogram = new LogLinearHistogram()
+        def executor = Executors.newFixedThreadPool(8)
+
+        when:
+        8.times { executor.execute { (1..10_000).each { histogram.record(it * 1000L) } } }
+        executor.shutdown()
+        executor.awaitTermination(10, TimeUnit.SECONDS)
+
+        then:
+        histogram.count == 80_000
+        Math.abs(histogram.getQuantile(0.5) - 5_000_000) <= 5_000_000 * 0.004
+    }
+
+}
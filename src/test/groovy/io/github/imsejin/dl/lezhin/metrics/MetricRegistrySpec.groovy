@@ -0,0 +1,97 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.metrics
+
+import com.google.gson.JsonParser
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+
+@Subject(MetricRegistry)
+class MetricRegistrySpec extends Specification {
+
+    @TempDir
+    private Path tempPath
+
+    def "Returns the same metric for the same name and labels"() {
+        given:
+        def registry = new MetricRegistry()
+
+        expect:
+        registry.counter("retries", "host", "a").is(registry.counter("retries", "host", "a"))
+        !registry.counter("retries", "host", "a").is(registry.counter("retries", "host", "b"))
+        registry.histogram("latency").is(registry.histogram("latency"))
+    }
+
+    def "Fails to get a metric with labels which are not pairs"() {
+        when:
+        new MetricRegistry().counter("retries", "host")
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "Summarizes the metrics in JSON"() {
+        given:
+        def registry = new MetricRegistry()
+        registry.counter("bytes_total").add(1024)
+        registry.histogram("latency_seconds", "stage", "login").record(Duration.ofMillis(30))
+        registry.gauge("queue_depth", { 3L })
+
+        when:
+        def path = tempPath.resolve("metrics.json")
+        registry.writeJson(path)
+        def json = JsonParser.parseString(Files.readString(path)).asJsonObject
+
+        then:
+        json.get("elapsedSeconds").asDouble > 0
+        json.getAsJsonObject("counters").getAsJsonObject("bytes_total").get("value").asLong == 1024
+        json.getAsJsonObject("counters").getAsJsonObject("bytes_total").get("perSecond").asDouble > 0
+        json.getAsJsonObject("histograms").getAsJsonObject('latency_seconds{stage="login"}').get("count").asLong == 1
+        json.getAsJsonObject("histograms").getAsJsonObject('latency_seconds{stage="login"}').get("p99Seconds").asDouble == 0.03
+        json.getAsJsonObject("gauges").get("queue_depth").asLong == 3
+    }
+
+    def "Exports the metrics in the text format of Prometheus"() {
+        given:
+        def registry = new MetricRegistry()
+        registry.counter("retries_total", "host", "a").add(2)
+        registry.counter("retries_total", "host", 'b"c').increment()
+        registry.histogram("latency_seconds").record(Duration.ofMillis(7))
+        registry.gauge("workers", { 4L })
+
+        when:
+        def lines = registry.toPrometheus().readLines()
+
+        then:
+        lines.count { it == "# TYPE retries_total counter" } == 1
+        lines.contains('retries_total{host="a"} 2')
+        lines.contains('retries_total{host="b\\"c"} 1')
+        lines.contains("# TYPE workers gauge")
+        lines.contains("workers 4")
+        lines.contains("# TYPE latency_seconds histogram")
+        lines.contains('latency_seconds_bucket{le="0.005"} 0')
+        lines.contains('latency_seconds_bucket{le="0.01"} 1')
+        lines.contains('latency_seconds_bucket{le="+Inf"} 1')
+        lines.contains("latency_seconds_count 1")
+    }
+
+}
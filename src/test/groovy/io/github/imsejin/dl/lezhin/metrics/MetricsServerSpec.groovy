@@ -0,0 +1,44 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.metrics
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+@Subject(MetricsServer)
+class MetricsServerSpec extends Specification {
+
+    def "Exposes the metrics at /metrics"() {
+        given:
+        def registry = new MetricRegistry()
+        registry.counter("images_total").add(7)
+        def server = new MetricsServer(registry, 0)
+
+        when:
+        def connection = new URL("http://127.0.0.1:${server.port}/metrics").openConnection() as HttpURLConnection
+        def body = connection.inputStream.text
+
+        then:
+        connection.responseCode == 200
+        connection.contentType.startsWith("text/plain; version=0.0.4")
+        body.readLines().contains("images_total 7")
+
+        cleanup:
+        server?.close()
+    }
+
+}
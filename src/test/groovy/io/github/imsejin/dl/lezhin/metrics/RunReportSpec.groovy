@@ -0,0 +1,139 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.metrics
+
+import com.google.gson.JsonParser
+import io.github.imsejin.dl.lezhin.metrics.RunReport.SkipReason
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+
+@Subject(RunReport)
+class RunReportSpec extends Specification {
+
+    @TempDir
+    private Path tempPath
+
+    def "Keeps the order of the processors and sums up their times"() {
+        given:
+        def report = new RunReport(new MetricRegistry())
+        report.declareProcessors(["LoginProcessor", "ContentInformationProcessor", "DownloadProcessor"])
+
+        when:
+        report.recordProcessor("DownloadProcessor", Duration.ofSeconds(3).toNanos())
+        report.recordProcessor("LoginProcessor", Duration.ofSeconds(1).toNanos())
+        report.recordProcessor("DownloadProcessor", Duration.ofSeconds(2).toNanos())
+        def processors = report.toJson().getAsJsonArray("processors")
+
+        then:
+        processors*.asJsonObject*.get("name")*.asString == ["LoginProcessor", "ContentInformationProcessor", "DownloadProcessor"]
+        processors*.asJsonObject*.get("runs")*.asInt == [1, 0, 2]
+        processors*.asJsonObject*.get("seconds")*.asDouble == [1, 0, 5]
+    }
+
+    def "Is empty until a processor runs"() {
+        given:
+        def report = new RunReport(new MetricRegistry())
+        report.declareProcessors(["LoginProcessor"])
+
+        expect:
+        report.isEmpty()
+
+        when:
+        report.recordProcessor("LoginProcessor", 1)
+
+        then:
+        !report.isEmpty()
+    }
+
+    def "Reports the skipped episodes by their reasons"() {
+        given:
+        def report = new RunReport(new MetricRegistry())
+
+        when:
+        report.skipEpisode("alias", "ep.3", SkipReason.NOT_PURCHASED)
+        report.skipEpisode("alias", "ep.4", SkipReason.NOT_PURCHASED)
+        report.skipEpisode("alias", "ep.1", SkipReason.ALREADY_DOWNLOADED)
+        report.startEpisode("alias", "ep.2", 10).finish()
+        def skipped = report.toJson().getAsJsonObject("skippedEpisodes")
+
+        then:
+        skipped.keySet() == ["not_purchased", "already_downloaded"] as Set
+        skipped.getAsJsonArray("not_purchased")*.asString == ["alias ep.3", "alias ep.4"]
+        skipped.getAsJsonArray("already_downloaded")*.asString == ["alias ep.1"]
+        report.toTable().contains("Episodes: 1 downloaded, 3 skipped (not purchased: 2, already downloaded: 1)")
+        report.toTable().contains("Not purchased: [alias ep.3, alias ep.4]")
+    }
+
+    def "Reports the quantiles of the image fetch times and the bytes"() {
+        given:
+        def report = new RunReport(new MetricRegistry())
+        def episode = report.startEpisode("alias", "ep.1", 101)
+
+        when:
+        (1..100).each { episode.recordImage(Duration.ofMillis(it).toNanos(), 1024) }
+        episode.recordFailure()
+        episode.finish()
+        def images = report.toJson().getAsJsonObject("images")
+
+        then:
+        images.get("downloaded").asInt == 100
+        images.get("failed").asInt == 1
+        images.get("bytes").asLong == 100 * 1024
+        Math.abs(images.get("p50Seconds").asDouble - 0.05) <= 0.05 * 0.004
+        Math.abs(images.get("p95Seconds").asDouble - 0.095) <= 0.095 * 0.004
+        Math.abs(images.get("p99Seconds").asDouble - 0.099) <= 0.099 * 0.004
+    }
+
+    def "Reports the slowest episodes first"() {
+        given:
+        def report = new RunReport(new MetricRegistry())
+        def fast = report.startEpisode("alias", "ep.1", 1)
+        def slow = report.startEpisode("alias", "ep.2", 1)
+        def unfinished = report.startEpisode("alias", "ep.3", 1)
+
+        when:
+        fast.finish()
+        Thread.sleep(20)
+        slow.finish()
+        def slowest = report.toJson().getAsJsonArray("slowestEpisodes")
+
+        then:
+        slowest*.asJsonObject*.get("name")*.asString == ["alias ep.2", "alias ep.1"]
+    }
+
+    def "Writes the report with the metrics"() {
+        given:
+        def registry = new MetricRegistry()
+        registry.counter("bytes_total").add(1024)
+        def report = new RunReport(registry)
+
+        when:
+        def path = tempPath.resolve("report.json")
+        report.writeJson(path)
+        def json = JsonParser.parseString(Files.readString(path)).asJsonObject
+
+        then:
+        json.get("elapsedSeconds").asDouble > 0
+        json.getAsJsonObject("metrics").getAsJsonObject("counters").getAsJsonObject("bytes_total").get("value").asLong == 1024
+    }
+
+}
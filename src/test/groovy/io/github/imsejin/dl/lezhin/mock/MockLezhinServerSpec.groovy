@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.mock
+
+import io.github.imsejin.dl.lezhin.api.auth.model.ServiceRequest
+import io.github.imsejin.dl.lezhin.api.auth.service.AuthorityService
+import io.github.imsejin.dl.lezhin.api.image.service.EpisodeImageCountService
+import io.github.imsejin.dl.lezhin.api.purchase.service.PurchasedEpisodeService
+import io.github.imsejin.dl.lezhin.argument.impl.Language
+import io.github.imsejin.dl.lezhin.download.AdaptiveConcurrencyLimiter
+import io.github.imsejin.dl.lezhin.download.ImageDownloader
+import io.github.imsejin.dl.lezhin.exception.HttpResponseException
+import io.github.imsejin.dl.lezhin.http.url.EpisodeImageUrls
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+@Subject(MockLezhinServer)
+class MockLezhinServerSpec extends Specification {
+
+    @TempDir
+    private Path tempPath
+
+    @AutoCleanup
+    private MockLezhinServer server = new MockLezhinServer()
+
+    def "Serves the APIs to the services on the given host"() {
+        given:
+        server.addEpisode("redhood", "1", 40).addEpisode("redhood", "2", 55)
+        server.setPurchasedEpisodes("redhood", [1024L, 2048L])
+        def token = UUID.randomUUID()
+
+        when:
+        def authority = new AuthorityService(Locale.KOREA, token, server.host)
+                .getAuthForViewEpisode(new ServiceRequest(contentId: 1, episodeId: 2, purchased: true))
+        def imageCountMap = new EpisodeImageCountService(token, server.host).getImageCountMap("redhood")
+        def purchased = new PurchasedEpisodeService(new Language(value: "ko"), token, server.host)
+                .getPurchasedEpisodeIdList("redhood")
+
+        then:
+        authority.contentId == 1
+        authority.episodeId == 2
+        !authority.isExpired(Duration.ofMinutes(5))
+        imageCountMap == ["1": 40, "2": 55]
+        purchased == [1024L, 2048L]
+    }
+
+    def "Serves the image only for the URL signed by the issued authority"() {
+        given:
+        server.imageSize = 1000
+        def service = new AuthorityService(Locale.KOREA, UUID.randomUUID(), server.host)
+        def authority = service.getAuthForViewEpisode(new ServiceRequest(contentId: 1, episodeId: 2, purchased: true))
+        def other = service.getAuthForViewEpisode(new ServiceRequest(contentId: 1, episodeId: 3, purchased: true))
+        def dest = tempPath.resolve("001.webp")
+
+        when:
+        new ImageDownloader().download(new EpisodeImageUrls(server.host, 1, 2, "webp", true).get(authority, 1), dest)
+
+        then:
+        Files.readAllBytes(dest) == server.getImage(2, 1, "webp")
+
+        when:
+        new ImageDownloader().download(new EpisodeImageUrls(server.host, 1, 2, "webp", true).get(other, 1), dest)
+
+        then:
+        def e = thrown(HttpResponseException)
+        e.code == 403
+    }
+
+    def "Downloads all the images concurrently despite transient errors"() {
+        given:
+        server.latency = Duration.ofMillis(5)
+        server.errorRate = 0.1
+        server.setErrorStatus(503, Duration.ZERO)
+        server.imageSize = 16 * 1024
+
+        def authority = new AuthorityService(Locale.KOREA, UUID.randomUUID(), server.host)
+                .getAuthForViewEpisode(new ServiceRequest(contentId: 1, episodeId: 2, purchased: false))
+        def imageUrls = new EpisodeImageUrls(server.host, 1, 2, "jpg", false)
+        def imageDownloader = new ImageDownloader(new AdaptiveConcurrencyLimiter(1, 8, 4))
+        def executor = Executors.newFixedThreadPool(8)
+
+        when:
+        def futures = (1..40).collect { num ->
+            executor.submit({
+                imageDownloader.download(imageUrls.get(authority, num), tempPath.resolve("${num}.jpg"))
+            } as Callable)
+        }
+        def images = futures.collect { it.get() }
+
+        then:
+        images.size() == 40
+        (1..40).every { Files.readAllBytes(tempPath.resolve("${it}.jpg")) == server.getImage(2, it, "jpg") }
+        server.imageCount == 40
+        server.peakInFlight > 1
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+}
@@ -9,6 +9,7 @@ import io.github.imsejin.dl.lezhin.process.impl.HttpHostsProcessor
 import io.github.imsejin.dl.lezhin.process.impl.LocaleSelectionProcessor
 import io.github.imsejin.dl.lezhin.process.impl.LoginProcessor
 import io.github.imsejin.dl.lezhin.process.impl.PurchasedEpisodesProcessor
+import io.github.imsejin.dl.lezhin.process.impl.SessionCacheProcessor
 import spock.lang.Specification
 import spock.lang.Subject
 
@@ -31,7 +32,7 @@ class ProcessorCreatorSpec extends Specification {
     def "Creates processors"() {
         given:
         def beans = [Path].collect { Mock(it) }
-        def types = [ConfigurationFileProcessor, LoginProcessor, HttpHostsProcessor, AccessTokenProcessor,
+        def types = [ConfigurationFileProcessor, SessionCacheProcessor, LoginProcessor, HttpHostsProcessor, AccessTokenProcessor,
                      LocaleSelectionProcessor, ContentInformationProcessor, PurchasedEpisodesProcessor,
                      DirectoryCreationProcessor, DownloadProcessor]
 
@@ -12,6 +12,7 @@ import io.github.imsejin.dl.lezhin.process.impl.HttpHostsProcessor
 import io.github.imsejin.dl.lezhin.process.impl.LocaleSelectionProcessor
 import io.github.imsejin.dl.lezhin.process.impl.LoginProcessor
 import io.github.imsejin.dl.lezhin.process.impl.PurchasedEpisodesProcessor
+import io.github.imsejin.dl.lezhin.process.impl.SessionCacheProcessor
 import org.reflections.Reflections
 import spock.lang.Specification
 import spock.lang.Subject
@@ -31,6 +32,7 @@ class ProcessorOrderResolverSpec extends Specification {
         processorTypes == orderedTypes as Set
         orderedTypes == [
                 ConfigurationFileProcessor,
+                SessionCacheProcessor,
                 LoginProcessor,
                 HttpHostsProcessor,
                 AccessTokenProcessor,
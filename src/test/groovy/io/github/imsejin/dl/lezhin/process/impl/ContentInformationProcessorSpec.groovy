@@ -7,17 +7,23 @@ import io.github.imsejin.dl.lezhin.attribute.impl.Content.Artist
 import io.github.imsejin.dl.lezhin.attribute.impl.Content.Display
 import io.github.imsejin.dl.lezhin.attribute.impl.Content.Episode
 import io.github.imsejin.dl.lezhin.attribute.impl.Content.Properties
+import io.github.imsejin.dl.lezhin.attribute.impl.PageSession
 import io.github.imsejin.dl.lezhin.browser.WebBrowser
+import io.github.imsejin.dl.lezhin.http.page.WebPageClient
 import io.github.imsejin.dl.lezhin.http.url.URIs
+import io.github.imsejin.dl.lezhin.mock.MockLezhinServer
 import io.github.imsejin.dl.lezhin.process.ProcessContext
 import org.mockito.MockedStatic
+import spock.lang.AutoCleanup
 import spock.lang.Specification
 import spock.lang.Subject
 
 import java.nio.charset.StandardCharsets
 
 import static java.util.stream.Collectors.joining
+import static org.mockito.ArgumentMatchers.anyString
 import static org.mockito.Mockito.mockStatic
+import static org.mockito.Mockito.never
 import static org.mockito.Mockito.when
 
 @Subject(ContentInformationProcessor)
@@ -27,6 +33,9 @@ class ContentInformationProcessorSpec extends Specification {
 
     private MockedStatic<WebBrowser> webBrowser
 
+    @AutoCleanup
+    private MockLezhinServer server = new MockLezhinServer()
+
     void setup() {
         webBrowser = mockStatic(WebBrowser)
         context = ProcessContext.create()
@@ -205,4 +214,87 @@ class ContentInformationProcessorSpec extends Specification {
         )
     }
 
+    def "Reads the content over HTTP without web browser"() {
+        given:
+        server.addProduct("christmas_in_the_elevator", readProduct(), false)
+        context.add(new ContentName(value: "christmas_in_the_elevator"), pageSession())
+
+        when:
+        def content = new ContentInformationProcessor().process(context)
+
+        then:
+        content.id == 5943773066559488
+        content.alias == "christmas_in_the_elevator"
+        content.episodes*.name == ["e1", "3", "2", "1", "p1"]
+        webBrowser.verify({ WebBrowser.run() }, never())
+        webBrowser.verify({ WebBrowser.request(anyString()) }, never())
+    }
+
+    def "Reads the expired content in the library over HTTP"() {
+        given:
+        server.addProduct("foo_bar", '{"id": 8235442190235440, "alias": "foo_bar", "display": {"title": "Foo Bar"}, ' +
+                '"properties": {"expired": true, "notForSale": false}, "episodes": []}', true)
+        context.add(new ContentName(value: "foo_bar"), pageSession())
+
+        when:
+        def content = new ContentInformationProcessor().process(context)
+
+        then:
+        content.id == 8235442190235440
+        content.properties.expired
+        webBrowser.verify({ WebBrowser.request(anyString()) }, never())
+    }
+
+    def "Reads the content over HTTP despite server errors"() {
+        given:
+        server.addProduct("christmas_in_the_elevator", readProduct(), false)
+        server.setErrorStatus(500, null).failNextRequests(2)
+        context.add(new ContentName(value: "christmas_in_the_elevator"), pageSession())
+
+        when:
+        def content = new ContentInformationProcessor().process(context)
+
+        then:
+        content.id == 5943773066559488
+        server.errorCount == 2
+        webBrowser.verify({ WebBrowser.request(anyString()) }, never())
+    }
+
+    def "Falls back to web browser if the content can't be read over HTTP"() {
+        given: "The page is not found, or doesn't have the product"
+        if (registered) {
+            server.addProduct("christmas_in_the_elevator", null, false)
+        }
+        context.add(new ContentName(value: "christmas_in_the_elevator"), pageSession())
+
+        def contentPath = URIs.CONTENT.get("en", "christmas_in_the_elevator")
+        with(WebBrowser) {
+            when(getCurrentUrl()).then { contentPath }
+            when(evaluate("JSON.stringify(window.__LZ_PRODUCT__.product)", String.class)).then { readProduct() }
+        }
+
+        when:
+        def content = new ContentInformationProcessor().process(context)
+
+        then:
+        content.id == 5943773066559488
+        webBrowser.verify { WebBrowser.run() }
+        webBrowser.verify { WebBrowser.request(contentPath) }
+
+        where:
+        registered << [false, true]
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private PageSession pageSession() {
+        new PageSession(new WebPageClient(server.host, []))
+    }
+
+    private static String readProduct() {
+        def inputStream = Thread.currentThread().contextClassLoader
+                .getResourceAsStream("json/ko-christmas_in_the_elevator.json")
+        new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)).lines().collect(joining())
+    }
+
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.process.impl
+
+import io.github.imsejin.dl.lezhin.argument.impl.ArchiveMode
+import io.github.imsejin.dl.lezhin.argument.impl.Concurrency
+import io.github.imsejin.dl.lezhin.argument.impl.DedupMode
+import io.github.imsejin.dl.lezhin.argument.impl.EpisodeRange
+import io.github.imsejin.dl.lezhin.argument.impl.ImageFormat
+import io.github.imsejin.dl.lezhin.argument.impl.Language
+import io.github.imsejin.dl.lezhin.argument.impl.SingleThreading
+import io.github.imsejin.dl.lezhin.argument.impl.Stitch
+import io.github.imsejin.dl.lezhin.argument.impl.SyncMode
+import io.github.imsejin.dl.lezhin.argument.impl.VirtualThreading
+import io.github.imsejin.dl.lezhin.attribute.impl.AccessToken
+import io.github.imsejin.dl.lezhin.attribute.impl.Content
+import io.github.imsejin.dl.lezhin.attribute.impl.Content.Display
+import io.github.imsejin.dl.lezhin.attribute.impl.Content.Episode
+import io.github.imsejin.dl.lezhin.attribute.impl.Content.Properties
+import io.github.imsejin.dl.lezhin.attribute.impl.DirectoryPath
+import io.github.imsejin.dl.lezhin.attribute.impl.HttpHosts
+import io.github.imsejin.dl.lezhin.attribute.impl.PurchasedEpisodes
+import io.github.imsejin.dl.lezhin.attribute.impl.WebHost
+import io.github.imsejin.dl.lezhin.download.DownloadManifest
+import io.github.imsejin.dl.lezhin.mock.MockLezhinServer
+import io.github.imsejin.dl.lezhin.process.ProcessContext
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+@Subject(DownloadProcessor)
+class DownloadProcessorSpec extends Specification {
+
+    @TempDir
+    private Path basePath
+
+    @AutoCleanup
+    private MockLezhinServer server = new MockLezhinServer()
+
+    private ProcessContext context
+
+    void setup() {
+        server.imageSize = 1024
+        server.addEpisode("redhood", "1", 3).addEpisode("redhood", "2", 4).addEpisode("redhood", "3", 2)
+
+        def contentPath = Files.createDirectory(basePath.resolve("redhood"))
+        context = ProcessContext.create(
+                new Language(value: "ko"), new EpisodeRange(value: ""), new ImageFormat(value: "false"),
+                new SingleThreading(value: "false"), new VirtualThreading(value: "false"),
+                new Concurrency(value: "4"), new SyncMode(value: "false"), new ArchiveMode(value: "false"),
+                new DedupMode(value: "false"), new Stitch(), new AccessToken(UUID.randomUUID().toString()),
+                new WebHost(server.host),
+                new HttpHosts(server.host, server.host, server.host, server.host, server.host, server.host),
+                new DirectoryPath(contentPath),
+                new Content(id: 1, alias: "redhood", properties: new Properties(), episodes: [
+                        episode(11, "1", 0), episode(12, "2", 3), episode(13, "3", 3),
+                ]),
+        )
+        context.add(new PurchasedEpisodes([12L]))
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    def "Downloads the images of the accessible episodes from the given hosts"() {
+        when:
+        new DownloadProcessor(basePath).process(context)
+
+        then: "The images are signed by the authority issued by the web host"
+        imagesOf("0001 - ep.1") == (1..3).collect { server.getImage(11, it, "webp") }
+        imagesOf("0002 - ep.2") == (1..4).collect { server.getImage(12, it, "webp") }
+        Files.notExists(context.directoryPath.value.resolve("0003 - ep.3"))
+        server.imageCount == 7
+    }
+
+    def "Probes the number of images missing in the API on the CDN"() {
+        given: "The API doesn't have the number of images of the new episode"
+        server.setCdnImageCount(14, 5).setMissingImageStatus(missingImageStatus)
+        context.content.episodes = context.content.episodes + episode(14, "4", 0)
+
+        when:
+        new DownloadProcessor(basePath).process(context)
+
+        then:
+        imagesOf("0004 - ep.4") == (1..5).collect { server.getImage(14, it, "webp") }
+
+        and: "The number of images is kept only if the CDN says the next image is missing"
+        DownloadManifest.load(context.directoryPath.value).getImageCount(14) == persisted
+
+        where:
+        missingImageStatus || persisted
+        403                || null
+        404                || 5
+    }
+
+    def "Syncs the episodes out of the range of the last sync"() {
+        given:
+        context.add(new SyncMode(value: "true"), new EpisodeRange(value: "1~1"))
+        new DownloadProcessor(basePath).process(context)
+
+        when: "Widens the range"
+        context.add(new EpisodeRange(value: ""))
+        new DownloadProcessor(basePath).process(context)
+
+        then:
+        imagesOf("0001 - ep.1") == (1..3).collect { server.getImage(11, it, "webp") }
+        imagesOf("0002 - ep.2") == (1..4).collect { server.getImage(12, it, "webp") }
+        server.imageCount == 7
+    }
+
+    def "Syncs the episode purchased after the last sync"() {
+        given:
+        context.add(new SyncMode(value: "true"))
+        new DownloadProcessor(basePath).process(context)
+
+        when:
+        context.add(new PurchasedEpisodes([12L, 13L]))
+        new DownloadProcessor(basePath).process(context)
+
+        then:
+        imagesOf("0003 - ep.3") == (1..2).collect { server.getImage(13, it, "webp") }
+        server.imageCount == 9
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private static Episode episode(long id, String name, int coin) {
+        new Episode(id: id, name: name, seq: Integer.parseInt(name), coin: coin, publishedAt: id * 1000,
+                display: new Display(title: "ep.$name"), properties: new Properties())
+    }
+
+    private List<byte[]> imagesOf(String directoryName) {
+        def directory = context.directoryPath.value.resolve(directoryName)
+        Files.list(directory).withCloseable { it.sorted().collect { Files.readAllBytes(it) } }
+    }
+
+}
@@ -1,13 +1,19 @@
 package io.github.imsejin.dl.lezhin.process.impl
 
 import io.github.imsejin.dl.lezhin.argument.impl.Language
+import io.github.imsejin.dl.lezhin.attribute.impl.PageSession
 import io.github.imsejin.dl.lezhin.browser.WebBrowser
+import io.github.imsejin.dl.lezhin.http.page.WebPageClient
+import io.github.imsejin.dl.lezhin.mock.MockLezhinServer
 import io.github.imsejin.dl.lezhin.process.ProcessContext
 import org.mockito.MockedStatic
+import spock.lang.AutoCleanup
 import spock.lang.Specification
 import spock.lang.Subject
 
+import static org.mockito.ArgumentMatchers.anyString
 import static org.mockito.Mockito.mockStatic
+import static org.mockito.Mockito.never
 import static org.mockito.Mockito.when
 
 @Subject(LocaleSelectionProcessor)
@@ -17,6 +23,9 @@ class LocaleSelectionProcessorSpec extends Specification {
 
     private MockedStatic<WebBrowser> webBrowser
 
+    @AutoCleanup
+    private MockLezhinServer server = new MockLezhinServer()
+
     void setup() {
         webBrowser = mockStatic(WebBrowser)
         context = ProcessContext.create()
@@ -43,4 +52,45 @@ class LocaleSelectionProcessorSpec extends Specification {
         noExceptionThrown()
     }
 
+    def "Changes locale setting over HTTP without web browser"() {
+        given:
+        context.add(new PageSession(new WebPageClient(server.host, [])))
+
+        when:
+        new LocaleSelectionProcessor().process(context)
+
+        then:
+        server.requestCount == 1
+        webBrowser.verify({ WebBrowser.run() }, never())
+        webBrowser.verify({ WebBrowser.request(anyString()) }, never())
+    }
+
+    def "Changes locale setting over HTTP despite server errors"() {
+        given:
+        server.setErrorStatus(502, null).failNextRequests(2)
+        context.add(new PageSession(new WebPageClient(server.host, [])))
+
+        when:
+        new LocaleSelectionProcessor().process(context)
+
+        then:
+        server.requestCount == 3
+        server.errorCount == 2
+        webBrowser.verify({ WebBrowser.request(anyString()) }, never())
+    }
+
+    def "Falls back to web browser if locale setting can't be changed over HTTP"() {
+        given:
+        server.setErrorStatus(404, null).failNextRequests(1)
+        context.add(new PageSession(new WebPageClient(server.host, [])))
+
+        when:
+        new LocaleSelectionProcessor().process(context)
+
+        then:
+        server.requestCount == 1
+        webBrowser.verify { WebBrowser.run() }
+        webBrowser.verify { WebBrowser.request("/en/locale/en-US") }
+    }
+
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.process.impl
+
+import io.github.imsejin.dl.lezhin.argument.impl.ContentName
+import io.github.imsejin.dl.lezhin.argument.impl.Language
+import io.github.imsejin.dl.lezhin.attribute.impl.AccessToken
+import io.github.imsejin.dl.lezhin.attribute.impl.Authentication
+import io.github.imsejin.dl.lezhin.attribute.impl.HttpHosts
+import io.github.imsejin.dl.lezhin.attribute.impl.WebHost
+import io.github.imsejin.dl.lezhin.mock.MockLezhinServer
+import io.github.imsejin.dl.lezhin.process.ProcessContext
+import io.github.imsejin.dl.lezhin.session.Session
+import io.github.imsejin.dl.lezhin.session.SessionStore
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+@Subject(SessionCacheProcessor)
+class SessionCacheProcessorSpec extends Specification {
+
+    @TempDir
+    private Path basePath
+
+    @AutoCleanup
+    private MockLezhinServer server = new MockLezhinServer()
+
+    private final def accessToken = new AccessToken(UUID.randomUUID().toString())
+
+    private ProcessContext context
+
+    void setup() {
+        context = ProcessContext.create(new Language(value: "ko"), new ContentName(value: "redhood"),
+                new Authentication("alpha", "beta"), new WebHost(server.host))
+
+        def httpHosts = new HttpHosts(server.host, server.host, server.host, server.host, server.host, server.host)
+        SessionStore.open(sessionFile, context.authentication).save(Session.of(accessToken, httpHosts, []))
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    def "Reuses the session accepted by the platform"() {
+        given:
+        server.accessToken = accessToken.value
+
+        when:
+        def sessionCache = new SessionCacheProcessor(basePath).process(context)
+
+        then:
+        sessionCache.hit
+        sessionCache.session.toAccessToken() == accessToken
+    }
+
+    def "Deletes the session rejected by the platform"() {
+        given:
+        server.accessToken = UUID.randomUUID()
+
+        when:
+        def sessionCache = new SessionCacheProcessor(basePath).process(context)
+
+        then:
+        !sessionCache.hit
+        Files.notExists(sessionFile)
+    }
+
+    def "Keeps the session but logs in if the platform fails to validate it"() {
+        given:
+        server.errorRate = 1
+        server.setErrorStatus(errorStatus, null)
+
+        when:
+        def sessionCache = new SessionCacheProcessor(basePath).process(context)
+
+        then:
+        !sessionCache.hit
+        Files.exists(sessionFile)
+        SessionStore.open(sessionFile, context.authentication).load().toAccessToken() == accessToken
+
+        where:
+        errorStatus << [400, 404]
+    }
+
+    def "Trusts the session without content name"() {
+        given:
+        context.add(new ContentName(value: ""))
+        server.accessToken = UUID.randomUUID()
+
+        when:
+        def sessionCache = new SessionCacheProcessor(basePath).process(context)
+
+        then:
+        sessionCache.hit
+        server.requestCount == 0
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private Path getSessionFile() {
+        basePath.resolve(".session-ko")
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.session
+
+import io.github.imsejin.dl.lezhin.attribute.impl.AccessToken
+import io.github.imsejin.dl.lezhin.attribute.impl.Authentication
+import io.github.imsejin.dl.lezhin.attribute.impl.HttpHosts
+import org.openqa.selenium.Cookie
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.TempDir
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+
+@Subject(SessionStore)
+class SessionStoreSpec extends Specification {
+
+    @TempDir
+    private Path tempPath
+
+    private final def accessToken = new AccessToken("ab585aaf-3379-488a-a93e-8658145ff715")
+
+    private final def httpHosts = new HttpHosts("api.lezhin.com", "https://ccdn.lezhin.com", "https://rcdn.lezhin.com",
+            "dondog.lezhin.com", "https://pay.lezhin.com", "https://panther.lezhin.com")
+
+    private final def cookies = [
+            new Cookie.Builder("SESSION", "4f1c").domain(".lezhin.com").path("/").isHttpOnly(true).build(),
+            new Cookie.Builder("expired", "0").domain(".lezhin.com").path("/").expiresOn(new Date(1000)).build(),
+    ] as Set
+
+    def "Has no session if file doesn't exist"() {
+        when:
+        def store = SessionStore.open(tempPath.resolve(".session-ko"), new Authentication("alpha", "beta"))
+
+        then:
+        store.load() == null
+    }
+
+    def "Saves and loads the session"() {
+        given:
+        def file = tempPath.resolve(".session-ko")
+        SessionStore.open(file, new Authentication("alpha", "beta")).save(Session.of(accessToken, httpHosts, cookies))
+
+        when:
+        def session = SessionStore.open(file, new Authentication("alpha", "beta")).load()
+
+        then: "Expired cookies are dropped."
+        session.toAccessToken() == accessToken
+        session.toHttpHosts() == httpHosts
+        session.toBrowserCookies()*.name == ["SESSION"]
+        session.toBrowserCookies()[0].httpOnly
+
+        and: "Session is not stored in plain text."
+        !new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1).contains(accessToken.value.toString())
+    }
+
+    def "Can't load the session with the other account"() {
+        given:
+        def file = tempPath.resolve(".session-ko")
+        SessionStore.open(file, new Authentication("alpha", "beta")).save(Session.of(accessToken, httpHosts, cookies))
+
+        expect:
+        SessionStore.open(file, new Authentication(username, password)).load() == null
+
+        where:
+        username | password
+        "alpha"  | "gamma"
+        "gamma"  | "beta"
+    }
+
+    def "Can't load the broken session"() {
+        given:
+        def file = tempPath.resolve(".session-ko")
+        SessionStore.open(file, new Authentication("alpha", "beta")).save(Session.of(accessToken, httpHosts, cookies))
+
+        def bytes = Files.readAllBytes(file)
+        bytes[bytes.length - 1] ^= 1
+        Files.write(file, bytes)
+
+        expect:
+        SessionStore.open(file, new Authentication("alpha", "beta")).load() == null
+    }
+
+}
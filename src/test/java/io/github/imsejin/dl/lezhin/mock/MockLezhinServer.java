@@ -0,0 +1,616 @@
+/*
+ * Copyright 2022 Sejin Im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.imsejin.dl.lezhin.mock;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.github.imsejin.dl.lezhin.http.throttle.TokenBucket;
+import org.jetbrains.annotations.Nullable;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stand-in for the web server, the API server and the contents CDN of Lezhin, running on the loopback address
+ *
+ * <p> This serves the endpoints that the services and the downloader request, so they can be tested
+ * and load-tested offline. Pass {@link #getHost()} to the services and as the hosts of
+ * {@link io.github.imsejin.dl.lezhin.attribute.impl.HttpHosts}.
+ *
+ * <ul>
+ *     <li>{@code GET /lz-api/v2/cloudfront/signed-url/generate}: issues an authority</li>
+ *     <li>{@code GET /lz-api/v2/contents/{alias}/users}: purchased episodes</li>
+ *     <li>{@code GET /episodes/{alias}}, {@code GET /episodes/{alias}/{name}}: number of images of episodes</li>
+ *     <li>{@code GET /{language}/comic/{alias}/{name}}: episode page with the number of images in inline script</li>
+ *     <li>{@code GET /{language}/comic/{alias}}, {@code GET /{language}/library/comic/{locale}/{alias}}:
+ *     content page with the product in inline script, which redirects to {@code /{language}/error/expired}
+ *     if the content is expired</li>
+ *     <li>{@code GET /{language}/locale/{locale}}: sets the cookie of locale</li>
+ *     <li>{@code GET|HEAD /v2/comics/{contentId}/episodes/{episodeId}/contents/scrolls/{num}.{webp|jpg}}:
+ *     synthetic image, only for the URL signed by an authority issued by this server</li>
+ * </ul>
+ *
+ * <p> Latency, error rate and bandwidth can be changed while running.
+ *
+ * @since 3.2.0
+ */
+@ThreadSafe
+public final class MockLezhinServer implements AutoCloseable {
+
+    private static final Pattern EPISODES_PATH = Pattern.compile("^/episodes/([^/]+)(?:/([^/]+))?$");
+
+    private static final Pattern EPISODE_PAGE_PATH = Pattern.compile("^/[a-z]{2}/comic/([^/]+)/([^/]+)$");
+
+    private static final Pattern CONTENT_PAGE_PATH = Pattern.compile("^/([a-z]{2})/comic/([^/]+)$");
+
+    private static final Pattern LIBRARY_CONTENT_PAGE_PATH = Pattern.compile("^/[a-z]{2}/library/comic/[^/]+/([^/]+)$");
+
+    private static final Pattern LOCALE_PATH = Pattern.compile("^/[a-z]{2}/locale/([^/]+)$");
+
+    private static final Pattern EXPIRATION_PATH = Pattern.compile("^/[a-z]{2}/error/expired$");
+
+    private static final Pattern PURCHASED_PATH = Pattern.compile("^/lz-api/v2/contents/([^/]+)/users$");
+
+    private static final Pattern IMAGE_PATH = Pattern.compile(
+            "^/v2/comics/(\\d+)/episodes/(\\d+)/contents/scrolls/(\\d+)\\.(webp|jpg)$");
+
+    private static final String KEY_PAIR_ID = "APKAMOCKLEZHINSERVER";
+
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    private final Gson gson = new Gson();
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "mock-lezhin-server");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ConcurrentMap<String, Grant> grants = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<String, Integer>> episodes = new ConcurrentHashMap<>();
+
+    private final Map<String, List<Long>> purchasedEpisodes = new ConcurrentHashMap<>();
+
+    private final Map<Long, Integer> cdnImageCounts = new ConcurrentHashMap<>();
+
+    private final Map<String, Product> products = new ConcurrentHashMap<>();
+
+    private final AtomicInteger pendingErrorCount = new AtomicInteger();
+
+    private final LongAdder requestCount = new LongAdder();
+
+    private final LongAdder imageCount = new LongAdder();
+
+    private final LongAdder errorCount = new LongAdder();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    private volatile Duration latency = Duration.ZERO;
+
+    private volatile double errorRate;
+
+    private volatile int errorStatus = 503;
+
+    private volatile int missingImageStatus = 403;
+
+    @Nullable
+    private volatile Duration retryAfter;
+
+    @Nullable
+    private volatile TokenBucket bandwidth;
+
+    private volatile Duration authorityTtl = Duration.ofMinutes(10);
+
+    private volatile int imageSize = 64 * 1024;
+
+    @Nullable
+    private volatile UUID accessToken;
+
+    /**
+     * Starts a server on a random port of the loopback address.
+     *
+     * @throws IOException if failed to bind the port
+     */
+    public MockLezhinServer() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/", new Dispatcher());
+        this.server.start();
+    }
+
+    /**
+     * Returns the host of this server, such as {@code http://127.0.0.1:54321}.
+     *
+     * @return host
+     */
+    public String getHost() {
+        return "http://127.0.0.1:" + this.server.getAddress().getPort();
+    }
+
+    // Configuration -----------------------------------------------------------------------------------
+
+    /**
+     * Registers an episode and its number of images.
+     */
+    public MockLezhinServer addEpisode(String contentAlias, String episodeName, int imageCount) {
+        this.episodes.computeIfAbsent(contentAlias, it -> Collections.synchronizedMap(new LinkedHashMap<>()))
+                .put(episodeName, imageCount);
+        return this;
+    }
+
+    /**
+     * Limits the images of the episode on the CDN; the images beyond it are missing.
+     * The images of the other episodes are served for any number.
+     */
+    public MockLezhinServer setCdnImageCount(long episodeId, int imageCount) {
+        this.cdnImageCounts.put(episodeId, imageCount);
+        return this;
+    }
+
+    /**
+     * Sets the status code of the missing images, which is 403 like CloudFront in front of S3 by default.
+     */
+    public MockLezhinServer setMissingImageStatus(int missingImageStatus) {
+        this.missingImageStatus = missingImageStatus;
+        return this;
+    }
+
+    /**
+     * Registers a content page with the product in its inline script.
+     *
+     * @param productJson JSON of the product, or {@code null} if the page doesn't have it
+     * @param expired     whether the page redirects to the page of expiration, and the product is found
+     *                    in the library instead
+     */
+    public MockLezhinServer addProduct(String contentAlias, @Nullable String productJson, boolean expired) {
+        this.products.put(contentAlias, new Product(productJson, expired));
+        return this;
+    }
+
+    public MockLezhinServer setPurchasedEpisodes(String contentAlias, List<Long> episodeIds) {
+        this.purchasedEpisodes.put(contentAlias, List.copyOf(episodeIds));
+        return this;
+    }
+
+    /**
+     * Sets the delay before every response.
+     */
+    public MockLezhinServer setLatency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * Sets the probability of failing a request with the error status, between 0 and 1.
+     */
+    public MockLezhinServer setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * Fails the next requests with the error status, regardless of the error rate.
+     */
+    public MockLezhinServer failNextRequests(int count) {
+        this.pendingErrorCount.set(count);
+        return this;
+    }
+
+    /**
+     * Sets the status code of the failed requests, and the value of its {@code Retry-After} header.
+     */
+    public MockLezhinServer setErrorStatus(int errorStatus, @Nullable Duration retryAfter) {
+        this.errorStatus = errorStatus;
+        this.retryAfter = retryAfter;
+        return this;
+    }
+
+    /**
+     * Limits the bytes per second of the response bodies, shared by all the connections.
+     *
+     * @param bytesPerSecond bytes per second, or zero if unlimited
+     */
+    public MockLezhinServer setBandwidth(long bytesPerSecond) {
+        this.bandwidth = bytesPerSecond > 0 ? new TokenBucket(bytesPerSecond, Duration.ofMillis(100)) : null;
+        return this;
+    }
+
+    /**
+     * Sets how long the issued authorities are valid.
+     */
+    public MockLezhinServer setAuthorityTtl(Duration authorityTtl) {
+        this.authorityTtl = authorityTtl;
+        return this;
+    }
+
+    /**
+     * Sets the size of the synthetic images in bytes.
+     */
+    public MockLezhinServer setImageSize(int imageSize) {
+        this.imageSize = imageSize;
+        return this;
+    }
+
+    /**
+     * Accepts only the access token on the APIs under {@code /lz-api}; the other tokens are rejected with 401.
+     *
+     * @param accessToken access token, or {@code null} if any token is accepted
+     */
+    public MockLezhinServer setAccessToken(@Nullable UUID accessToken) {
+        this.accessToken = accessToken;
+        return this;
+    }
+
+    // Statistics --------------------------------------------------------------------------------------
+
+    public long getRequestCount() {
+        return this.requestCount.sum();
+    }
+
+    /**
+     * Returns the number of images served successfully.
+     */
+    public long getImageCount() {
+        return this.imageCount.sum();
+    }
+
+    /**
+     * Returns the number of requests failed by the error rate or {@link #failNextRequests(int)}.
+     */
+    public long getErrorCount() {
+        return this.errorCount.sum();
+    }
+
+    /**
+     * Returns the highest number of requests handled at the same time.
+     */
+    public int getPeakInFlight() {
+        return this.peakInFlight.get();
+    }
+
+    /**
+     * Returns the synthetic image, which is always the same for the same episode and number.
+     */
+    public byte[] getImage(long episodeId, int num, String imageFormat) {
+        byte[] bytes = new byte[this.imageSize];
+        new Random(episodeId * 31 + num).nextBytes(bytes);
+
+        // Magic numbers, so that the image looks like the format.
+        byte[] magic = "webp".equals(imageFormat)
+                ? new byte[]{'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E', 'B', 'P'}
+                : new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+        System.arraycopy(magic, 0, bytes, 0, Math.min(magic.length, bytes.length));
+
+        return bytes;
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    // -------------------------------------------------------------------------------------------------
+
+    private final class Dispatcher implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            requestCount.increment();
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+
+            try (exchange) {
+                Thread.sleep(latency.toMillis());
+
+                if (pendingErrorCount.getAndUpdate(it -> Math.max(it - 1, 0)) > 0
+                        || ThreadLocalRandom.current().nextDouble() < errorRate) {
+                    errorCount.increment();
+                    Duration retryAfter = MockLezhinServer.this.retryAfter;
+                    if (retryAfter != null) {
+                        exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfter.toSeconds()));
+                    }
+                    exchange.sendResponseHeaders(errorStatus, -1);
+                    return;
+                }
+
+                route(exchange);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        private void route(HttpExchange exchange) throws IOException {
+            String path = exchange.getRequestURI().getPath();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+            UUID accessToken = MockLezhinServer.this.accessToken;
+            if (accessToken != null && path.startsWith("/lz-api/")
+                    && !("Bearer " + accessToken).equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                exchange.sendResponseHeaders(401, -1);
+                return;
+            }
+
+            Matcher matcher;
+            if (path.equals("/lz-api/v2/cloudfront/signed-url/generate")) {
+                issueAuthority(exchange, query);
+            } else if ((matcher = PURCHASED_PATH.matcher(path)).matches()) {
+                JsonObject data = new JsonObject();
+                data.add("purchased", gson.toJsonTree(purchasedEpisodes.getOrDefault(matcher.group(1), List.of())));
+                JsonObject body = new JsonObject();
+                body.add("data", data);
+                sendJson(exchange, body.toString());
+            } else if ((matcher = EPISODES_PATH.matcher(path)).matches()) {
+                sendEpisodes(exchange, matcher.group(1), matcher.group(2));
+            } else if ((matcher = EPISODE_PAGE_PATH.matcher(path)).matches()) {
+                sendEpisodePage(exchange, matcher.group(1), matcher.group(2));
+            } else if ((matcher = CONTENT_PAGE_PATH.matcher(path)).matches()) {
+                sendContentPage(exchange, matcher.group(2), "/" + matcher.group(1) + "/error/expired");
+            } else if ((matcher = LIBRARY_CONTENT_PAGE_PATH.matcher(path)).matches()) {
+                sendContentPage(exchange, matcher.group(1), null);
+            } else if ((matcher = LOCALE_PATH.matcher(path)).matches()) {
+                exchange.getResponseHeaders().add("Set-Cookie", "locale=" + matcher.group(1) + "; Path=/");
+                sendHtml(exchange, "<html><body></body></html>");
+            } else if (EXPIRATION_PATH.matcher(path).matches()) {
+                sendHtml(exchange, "<html><body>Expired</body></html>");
+            } else if ((matcher = IMAGE_PATH.matcher(path)).matches()) {
+                sendImage(exchange, query, Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)),
+                        Integer.parseInt(matcher.group(3)), matcher.group(4));
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+        }
+
+        private void issueAuthority(HttpExchange exchange, Map<String, String> query) throws IOException {
+            long contentId = Long.parseLong(query.get("contentId"));
+            long episodeId = Long.parseLong(query.get("episodeId"));
+            long now = System.currentTimeMillis() / 1000;
+            long expiredAt = now + authorityTtl.toSeconds();
+
+            // ASCII JSON without padding is encoded without '-' and '_', which Authority doesn't expect.
+            String statement = String.format("{\"Statement\":[{\"Resource\":\"https://rcdn.lezhin.com/v2/comics/%d"
+                    + "/episodes/%d/contents/*\",\"Condition\":{\"DateLessThan\":{\"AWS:EpochTime\":%d}}}]}",
+                    contentId, episodeId, expiredAt);
+            String policy = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(statement.getBytes(StandardCharsets.UTF_8));
+            String signature = UUID.randomUUID().toString().replace("-", "");
+            grants.put(policy, new Grant(contentId, episodeId, signature, expiredAt));
+
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("Policy", policy);
+            data.put("Signature", signature);
+            data.put("Key-Pair-Id", KEY_PAIR_ID);
+            data.put("expiredAt", expiredAt * 1000);
+            data.put("now", now * 1000);
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("code", 0);
+            body.put("data", data);
+            sendJson(exchange, gson.toJson(body));
+        }
+
+        private void sendEpisodes(HttpExchange exchange, String contentAlias, @Nullable String episodeName)
+                throws IOException {
+            Map<String, Integer> registered = episodes.getOrDefault(contentAlias, Map.of());
+            Map<String, Integer> imageCounts;
+            synchronized (registered) {
+                imageCounts = new LinkedHashMap<>(registered);
+            }
+
+            if (episodeName != null) {
+                Integer imageCount = imageCounts.get(episodeName);
+                if (imageCount == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+
+                sendJson(exchange, toEpisodeModel(contentAlias, episodeName, 1, imageCount).toString());
+                return;
+            }
+
+            JsonArray models = new JsonArray();
+            int seq = 1;
+            for (Map.Entry<String, Integer> entry : imageCounts.entrySet()) {
+                models.add(toEpisodeModel(contentAlias, entry.getKey(), seq++, entry.getValue()));
+            }
+            sendJson(exchange, models.toString());
+        }
+
+        private void sendEpisodePage(HttpExchange exchange, String contentAlias, String episodeName)
+                throws IOException {
+            Integer imageCount = episodes.getOrDefault(contentAlias, Map.of()).get(episodeName);
+            if (imageCount == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            JsonObject episode = toEpisodeModel(contentAlias, episodeName, 1, 0);
+            episode.addProperty("scroll", imageCount);
+            String html = "<html><head><script>\n__LZ_DATA__ = {\n    productType: 'comic',\n    episode: "
+                    + episode + "\n};\n</script></head><body><div id=\"scroll-list\"></div></body></html>";
+
+            sendHtml(exchange, html);
+        }
+
+        /**
+         * Sends the content page, or redirects to the page of expiration if it is given and the content is expired.
+         */
+        private void sendContentPage(HttpExchange exchange, String contentAlias, @Nullable String expirationPath)
+                throws IOException {
+            Product product = products.get(contentAlias);
+            if (product == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            if (product.expired && expirationPath != null) {
+                exchange.getResponseHeaders().set("Location", expirationPath);
+                exchange.sendResponseHeaders(302, -1);
+                return;
+            }
+
+            String script = product.json == null
+                    ? ""
+                    : "<script>\n__LZ_PRODUCT__ = {\n    product: " + product.json
+                            + ",\n    departure: ''\n};\n</script>";
+            sendHtml(exchange, "<html><head>" + script + "</head><body><main id=\"main\"></main></body></html>");
+        }
+
+        private void sendImage(HttpExchange exchange, Map<String, String> query, long contentId, long episodeId,
+                               int num, String imageFormat) throws IOException {
+            Grant grant = grants.get(query.getOrDefault("Policy", ""));
+
+            // Like CloudFront, rejects the URL that is not signed or expired.
+            if (grant == null || grant.contentId != contentId || grant.episodeId != episodeId
+                    || !grant.signature.equals(query.get("Signature")) || !KEY_PAIR_ID.equals(query.get("Key-Pair-Id"))
+                    || grant.expiredAt < System.currentTimeMillis() / 1000) {
+                exchange.sendResponseHeaders(403, -1);
+                return;
+            }
+
+            // Like CloudFront in front of S3, responds to a missing object with 403 unless it is changed.
+            if (num < 1 || num > cdnImageCounts.getOrDefault(episodeId, Integer.MAX_VALUE)) {
+                exchange.sendResponseHeaders(missingImageStatus, -1);
+                return;
+            }
+
+            byte[] image = getImage(episodeId, num, imageFormat);
+            exchange.getResponseHeaders().set("Content-Type", "webp".equals(imageFormat) ? "image/webp" : "image/jpeg");
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(image.length));
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+
+            exchange.sendResponseHeaders(200, image.length);
+
+            OutputStream out = exchange.getResponseBody();
+            for (int offset = 0; offset < image.length; offset += CHUNK_SIZE) {
+                int length = Math.min(CHUNK_SIZE, image.length - offset);
+
+                TokenBucket bandwidth = MockLezhinServer.this.bandwidth;
+                if (bandwidth != null) {
+                    bandwidth.acquire(length);
+                }
+
+                out.write(image, offset, length);
+            }
+            out.flush();
+
+            imageCount.increment();
+        }
+
+        private void sendHtml(HttpExchange exchange, String html) throws IOException {
+            byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        }
+
+        private void sendJson(HttpExchange exchange, String json) throws IOException {
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+
+    private static JsonObject toEpisodeModel(String contentAlias, String name, int seq, int imageCount) {
+        JsonObject model = new JsonObject();
+        model.addProperty("episodeId", String.valueOf(Math.abs((long) (contentAlias + '/' + name).hashCode())));
+        model.addProperty("seq", seq);
+        model.addProperty("name", name);
+        model.addProperty("comicId", contentAlias);
+        model.addProperty("cut", imageCount);
+
+        return model;
+    }
+
+    private static Map<String, String> parseQuery(@Nullable String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+
+        for (String pair : rawQuery.split("&")) {
+            int index = pair.indexOf('=');
+            String name = index < 0 ? pair : pair.substring(0, index);
+            String value = index < 0 ? "" : pair.substring(index + 1);
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+
+        return query;
+    }
+
+    private static final class Product {
+        @Nullable
+        private final String json;
+        private final boolean expired;
+
+        private Product(@Nullable String json, boolean expired) {
+            this.json = json;
+            this.expired = expired;
+        }
+    }
+
+    private static final class Grant {
+        private final long contentId;
+        private final long episodeId;
+        private final String signature;
+        private final long expiredAt;
+
+        private Grant(long contentId, long episodeId, String signature, long expiredAt) {
+            this.contentId = contentId;
+            this.episodeId = episodeId;
+            this.signature = signature;
+            this.expiredAt = expiredAt;
+        }
+    }
+
+}